@@ -0,0 +1,28 @@
+package kr.bb.store.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/*
+ * 기본 스케줄러는 스레드가 하나라 느린 작업 하나가 대기열 입장, 재고 반영, 발급 내역 저장을 모두 멈춥니다.
+ * 스케줄 작업마다 스레드 하나씩 돌 수 있도록 작업 수만큼 풀을 둡니다.
+ */
+@EnableScheduling
+@Configuration
+@Profile({"!test"})
+public class SchedulingConfig {
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${scheduling.pool-size:9}") int poolSize) {
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(poolSize);
+        taskScheduler.setThreadNamePrefix("scheduler-");
+        taskScheduler.setWaitForTasksToCompleteOnShutdown(true);
+        taskScheduler.setAwaitTerminationSeconds(10);
+        return taskScheduler;
+    }
+}
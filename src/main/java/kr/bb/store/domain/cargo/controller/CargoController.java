@@ -3,6 +3,7 @@ package kr.bb.store.domain.cargo.controller;
 import bloomingblooms.response.CommonResponse;
 import kr.bb.store.domain.cargo.controller.request.StockModifyRequest;
 import kr.bb.store.domain.cargo.controller.response.RemainingStocksResponse;
+import kr.bb.store.domain.cargo.controller.response.StockModifyResponse;
 import kr.bb.store.domain.cargo.facade.CargoFacade;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -13,9 +14,14 @@ public class CargoController {
     private final CargoFacade cargoFacade;
 
     @PutMapping("/{storeId}/flowers/stocks")
-    public void modifyAllStocks(@PathVariable Long storeId,
-                                @RequestBody StockModifyRequest stockModifyRequest) {
-        cargoFacade.modifyAllStocksWithLock(storeId,stockModifyRequest.getStockModifyDtos());
+    public CommonResponse<StockModifyResponse> modifyAllStocks(@PathVariable Long storeId,
+                                                               @RequestBody StockModifyRequest stockModifyRequest) {
+        return CommonResponse.success(cargoFacade.modifyAllStocksWithLock(storeId,stockModifyRequest.getStockModifyDtos()));
+    }
+
+    @PutMapping("/{storeId}/flowers/stocks/replay")
+    public void replayStocks(@PathVariable Long storeId) {
+        cargoFacade.replayStocksWithLock(storeId);
     }
 
     @GetMapping("/{storeId}/flowers/stocks")
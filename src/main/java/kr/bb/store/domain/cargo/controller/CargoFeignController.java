@@ -13,16 +13,38 @@ import java.util.List;
 @RequiredArgsConstructor
 @RequestMapping("/client/stores/flowers/stocks")
 public class CargoFeignController {
+    private static final String ORDER_ID_HEADER = "X-Order-Id";
+
     private final CargoFacade cargoFacade;
+
     @PutMapping("/add")
-    public CommonResponse addStock(@RequestBody List<StockChangeDto> stockChangeDtos) {
-        cargoFacade.plusStocksWithLock(stockChangeDtos);
+    public CommonResponse addStock(@RequestHeader(value = ORDER_ID_HEADER, required = false) String orderId,
+                                   @RequestBody List<StockChangeDto> stockChangeDtos) {
+        cargoFacade.plusStocksWithLock(orderId, stockChangeDtos);
         return CommonResponse.success(null);
     }
 
     @PutMapping("/subtract")
-    public CommonResponse subtractStock(@RequestBody List<StockChangeDto> stockChangeDtos) {
-        cargoFacade.minusStocksWithLock(stockChangeDtos);
+    public CommonResponse subtractStock(@RequestHeader(value = ORDER_ID_HEADER, required = false) String orderId,
+                                        @RequestBody List<StockChangeDto> stockChangeDtos) {
+        cargoFacade.minusStocksWithLock(orderId, stockChangeDtos);
+        return CommonResponse.success(null);
+    }
+
+    @PostMapping("/reservations")
+    public CommonResponse<String> reserveStock(@RequestBody List<StockChangeDto> stockChangeDtos) {
+        return CommonResponse.success(cargoFacade.reserveStocks(stockChangeDtos));
+    }
+
+    @PutMapping("/reservations/{reservationId}/confirm")
+    public CommonResponse confirmReservedStock(@PathVariable String reservationId) {
+        cargoFacade.confirmReservedStocks(reservationId);
+        return CommonResponse.success(null);
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    public CommonResponse releaseReservedStock(@PathVariable String reservationId) {
+        cargoFacade.releaseReservedStocks(reservationId);
         return CommonResponse.success(null);
     }
 }
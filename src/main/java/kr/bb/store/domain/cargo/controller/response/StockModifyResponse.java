@@ -0,0 +1,23 @@
+package kr.bb.store.domain.cargo.controller.response;
+
+import kr.bb.store.domain.cargo.dto.StockModifyResultDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockModifyResponse {
+    List<StockModifyResultDto> stockModifyResultDtos;
+
+    public static StockModifyResponse from(List<StockModifyResultDto> stockModifyResultDtos) {
+        return StockModifyResponse.builder()
+                .stockModifyResultDtos(stockModifyResultDtos)
+                .build();
+    }
+}
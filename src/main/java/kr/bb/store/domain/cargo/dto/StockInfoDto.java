@@ -25,4 +25,13 @@ public class StockInfoDto {
                 .data(List.of(flowerCargo.getStock()))
                 .build();
     }
+
+    public static StockInfoDto of(Long flowerId, String name, Long stock) {
+        return StockInfoDto
+                .builder()
+                .flowerId(flowerId)
+                .name(name)
+                .data(List.of(stock))
+                .build();
+    }
 }
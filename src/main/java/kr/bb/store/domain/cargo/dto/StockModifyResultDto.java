@@ -0,0 +1,24 @@
+package kr.bb.store.domain.cargo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockModifyResultDto {
+    private Long flowerId;
+    private Long stock;
+    private Boolean modified;
+
+    public static StockModifyResultDto of(StockModifyDto stockModifyDto, boolean modified) {
+        return StockModifyResultDto.builder()
+                .flowerId(stockModifyDto.getFlowerId())
+                .stock(stockModifyDto.getStock())
+                .modified(modified)
+                .build();
+    }
+}
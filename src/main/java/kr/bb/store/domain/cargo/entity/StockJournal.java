@@ -0,0 +1,48 @@
+package kr.bb.store.domain.cargo.entity;
+
+import kr.bb.store.domain.common.entity.BaseEntity;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+/*
+ * 재고 변경 이력입니다. PLUS, MINUS는 변경량(차감은 음수)을, SET은 점주가 입력한 재고를 그대로 기록합니다.
+ * 마지막 SET 이후의 변경량을 더하면 재고를 다시 계산할 수 있습니다.
+ */
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Getter
+@Entity
+@Table(indexes = @Index(name = "idx_stock_journal_flower", columnList = "store_id, flower_id, id"))
+public class StockJournal extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String orderId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private StockOperation operation;
+
+    @NotNull
+    private Long storeId;
+
+    @NotNull
+    private Long flowerId;
+
+    @NotNull
+    private Long quantity;
+
+    @Builder
+    public StockJournal(String orderId, StockOperation operation, Long storeId, Long flowerId, Long quantity) {
+        this.orderId = orderId;
+        this.operation = operation;
+        this.storeId = storeId;
+        this.flowerId = flowerId;
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,7 @@
+package kr.bb.store.domain.cargo.entity;
+
+public enum StockOperation {
+    PLUS,
+    MINUS,
+    SET;
+}
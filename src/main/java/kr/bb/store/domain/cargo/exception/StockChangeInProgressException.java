@@ -0,0 +1,11 @@
+package kr.bb.store.domain.cargo.exception;
+
+import kr.bb.store.exception.CustomException;
+
+public class StockChangeInProgressException extends CustomException {
+    private static final String MESSAGE = "같은 주문의 재고 변경이 처리 중입니다. 잠시 후 다시 시도해주세요.";
+
+    public StockChangeInProgressException() {
+        super(MESSAGE);
+    }
+}
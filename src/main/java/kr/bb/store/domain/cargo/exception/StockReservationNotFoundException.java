@@ -0,0 +1,11 @@
+package kr.bb.store.domain.cargo.exception;
+
+import kr.bb.store.exception.CustomException;
+
+public class StockReservationNotFoundException extends CustomException {
+    private static final String MESSAGE = "존재하지 않거나 만료된 재고 예약입니다.";
+
+    public StockReservationNotFoundException() {
+        super(MESSAGE);
+    }
+}
@@ -3,10 +3,17 @@ package kr.bb.store.domain.cargo.facade;
 import bloomingblooms.domain.flower.StockChangeDto;
 import bloomingblooms.domain.notification.NotificationKind;
 import kr.bb.store.domain.cargo.controller.response.RemainingStocksResponse;
+import kr.bb.store.domain.cargo.controller.response.StockModifyResponse;
 import kr.bb.store.domain.cargo.dto.StockModifyDto;
+import kr.bb.store.domain.cargo.entity.StockOperation;
 import kr.bb.store.domain.cargo.exception.LockInterruptedException;
 import kr.bb.store.domain.cargo.exception.StockChangeFailedException;
+import kr.bb.store.domain.cargo.exception.StockChangeInProgressException;
+import kr.bb.store.domain.cargo.handler.StockChangeDeduplicator;
+import kr.bb.store.domain.cargo.handler.StockChangeDeduplicator.Claim;
+import kr.bb.store.domain.cargo.handler.StockLaneExecutor;
 import kr.bb.store.domain.cargo.service.CargoService;
+import kr.bb.store.domain.cargo.service.StockChangeMode;
 import kr.bb.store.message.OrderStatusSQSPublisher;
 import kr.bb.store.message.OutOfStockSQSPublisher;
 import lombok.RequiredArgsConstructor;
@@ -15,10 +22,13 @@ import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static kr.bb.store.util.RedisUtils.makeRedissonKey;
 
@@ -27,9 +37,12 @@ import static kr.bb.store.util.RedisUtils.makeRedissonKey;
 @RequiredArgsConstructor
 public class CargoFacade {
     private final CargoService cargoService;
+    private final StockLaneExecutor stockLaneExecutor;
+    private final StockChangeDeduplicator stockChangeDeduplicator;
     private final RedissonClient redissonClient;
     private final OutOfStockSQSPublisher outOfStockSQSPublisher;
     private final OrderStatusSQSPublisher orderStatusSQSPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${redisson.lock.wait-second}")
     private Integer waitSecond;
@@ -37,7 +50,10 @@ public class CargoFacade {
     @Value("${redisson.lock.lease-second}")
     private Integer leaseSecond;
 
-    public void modifyAllStocksWithLock(Long storeId, List<StockModifyDto> stockModifyDtos) {
+    @Value("${stock.change-mode:REDISSON_LOCK}")
+    private StockChangeMode stockChangeMode;
+
+    public StockModifyResponse modifyAllStocksWithLock(Long storeId, List<StockModifyDto> stockModifyDtos) {
         RLock lock = redissonClient.getLock(makeRedissonKey(storeId));
         try {
             boolean available = lock.tryLock(waitSecond, leaseSecond, TimeUnit.SECONDS);
@@ -45,8 +61,13 @@ public class CargoFacade {
                 throw new StockChangeFailedException();
             }
 
-            cargoService.modifyAllStocks(storeId, stockModifyDtos);
+            StockModifyResponse stockModifyResponse = cargoService.modifyAllStocksInBatch(storeId, stockModifyDtos);
+            cargoService.overwriteShardedStocks(storeId, stockModifyDtos);
+            if(stockChangeMode == StockChangeMode.REDIS_LEDGER) {
+                cargoService.overwriteLedgerStocks(storeId, stockModifyDtos);
+            }
             log.info("stock in {} modified" ,storeId);
+            return stockModifyResponse;
         } catch (InterruptedException e){
             throw new LockInterruptedException();
         } finally {
@@ -57,32 +78,234 @@ public class CargoFacade {
     }
 
     public void plusStocksWithLock(List<StockChangeDto> stockChangeDtos) {
+        plusStocksWithLock(null, stockChangeDtos);
+    }
+
+    public void plusStocksWithLock(String orderId, List<StockChangeDto> stockChangeDtos) {
+        if(isDuplicated(orderId, StockOperation.PLUS)) {
+            log.info("duplicated stock plus of order {} ignored", orderId);
+            return;
+        }
+        Set<Long> inSufficientStores;
         try {
-            Set<Long> inSufficientStores = cargoService.plusStockCounts(stockChangeDtos);
-            inSufficientStores.forEach(outOfStockSQSPublisher::publish);
+            inSufficientStores = changeStocksWithJournal(orderId, StockOperation.PLUS, stockChangeDtos);
         } catch (Exception e) {
+            releaseClaim(orderId, StockOperation.PLUS);
             Long userId = stockChangeDtos.get(0).getUserId();
             String phoneNumber = stockChangeDtos.get(0).getPhoneNumber();
             orderStatusSQSPublisher.publish(userId, phoneNumber, NotificationKind.OUT_OF_STOCK);
 
             throw e;
         }
+        completeClaim(orderId, StockOperation.PLUS);
+        inSufficientStores.forEach(outOfStockSQSPublisher::publish);
+        cargoService.applySnapshotChanges(stockChangeDtos, 1L);
     }
 
     public void minusStocksWithLock(List<StockChangeDto> stockChangeDtos) {
+        minusStocksWithLock(null, stockChangeDtos);
+    }
+
+    public void minusStocksWithLock(String orderId, List<StockChangeDto> stockChangeDtos) {
+        if(isDuplicated(orderId, StockOperation.MINUS)) {
+            log.info("duplicated stock minus of order {} ignored", orderId);
+            return;
+        }
+        Set<Long> inSufficientStores;
         try {
-            Set<Long> inSufficientStores = cargoService.minusStockCounts(stockChangeDtos);
-            inSufficientStores.forEach(outOfStockSQSPublisher::publish);
+            inSufficientStores = changeStocksWithJournal(orderId, StockOperation.MINUS, stockChangeDtos);
         } catch (Exception e) {
+            releaseClaim(orderId, StockOperation.MINUS);
             Long userId = stockChangeDtos.get(0).getUserId();
             String phoneNumber = stockChangeDtos.get(0).getPhoneNumber();
             orderStatusSQSPublisher.publish(userId, phoneNumber, NotificationKind.OUT_OF_STOCK);
             throw e;
         }
+        completeClaim(orderId, StockOperation.MINUS);
+        inSufficientStores.forEach(outOfStockSQSPublisher::publish);
+        cargoService.applySnapshotChanges(stockChangeDtos, -1L);
+    }
+
+    public void replayStocksWithLock(Long storeId) {
+        RLock lock = redissonClient.getLock(makeRedissonKey(storeId));
+        try {
+            boolean available = lock.tryLock(waitSecond, leaseSecond, TimeUnit.SECONDS);
+            if(!available) {
+                throw new StockChangeFailedException();
+            }
+
+            List<StockModifyDto> replayedStocks = cargoService.replayStocks(storeId);
+            cargoService.overwriteShardedStocks(storeId, replayedStocks);
+            if(stockChangeMode == StockChangeMode.REDIS_LEDGER) {
+                cargoService.overwriteLedgerStocks(storeId, replayedStocks);
+            }
+            log.info("stock in {} replayed from journal", storeId);
+        } catch (InterruptedException e){
+            throw new LockInterruptedException();
+        } finally {
+            if(lock.isLocked() && lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    public String reserveStocks(List<StockChangeDto> stockChangeDtos) {
+        return cargoService.reserveStocks(stockChangeDtos);
+    }
+
+    public void confirmReservedStocks(String reservationId) {
+        Set<Long> inSufficientStores = cargoService.confirmReservedStocks(reservationId);
+        inSufficientStores.forEach(outOfStockSQSPublisher::publish);
+    }
+
+    public void releaseReservedStocks(String reservationId) {
+        cargoService.releaseReservedStocks(reservationId);
     }
 
     public RemainingStocksResponse getAllStocks(Long storeId) {
         return cargoService.getAllStocks(storeId);
     }
 
+    // 완료된 요청의 재전송은 무시하고, 아직 처리 중인 요청의 재전송은 결과를 알 수 없으므로 재시도하게 합니다
+    private boolean isDuplicated(String orderId, StockOperation operation) {
+        if(orderId == null) return false;
+        Claim claim = stockChangeDeduplicator.claim(orderId, operation);
+        if(claim == Claim.IN_PROGRESS) {
+            throw new StockChangeInProgressException();
+        }
+        return claim == Claim.COMPLETED;
+    }
+
+    // 재고는 이미 반영되었으므로 완료 표시에 실패해도 요청은 성공으로 처리합니다. 처리 중 표시는 TTL이 지나면 사라집니다
+    private void completeClaim(String orderId, StockOperation operation) {
+        if(orderId == null) return;
+        try {
+            stockChangeDeduplicator.complete(orderId, operation);
+        } catch (Exception e) {
+            log.error("stock change of order {} not marked completed with cause of {}", orderId, e.getMessage());
+        }
+    }
+
+    private void releaseClaim(String orderId, StockOperation operation) {
+        if(orderId != null) {
+            stockChangeDeduplicator.release(orderId, operation);
+        }
+    }
+
+    /*
+     * 재고 변경과 기록을 한 트랜잭션에서 처리해 기록에 실패하면 재고 변경도 함께 되돌립니다.
+     * 샤드, 레디스 원장, 레인은 이 트랜잭션 밖에서 반영되므로 재고 변경 이후 실패하면 직접 되돌립니다.
+     */
+    private Set<Long> changeStocksWithJournal(String orderId, StockOperation operation, List<StockChangeDto> stockChangeDtos) {
+        boolean plus = operation == StockOperation.PLUS;
+        if (stockChangeMode == StockChangeMode.LANE) {
+            return changeStocksThenJournal(orderId, operation, stockChangeDtos);
+        }
+        AtomicBoolean changed = new AtomicBoolean(false);
+        try {
+            return transactionTemplate.execute(status -> {
+                Set<Long> inSufficientStores = plus ? plusStockCounts(stockChangeDtos) : minusStockCounts(stockChangeDtos);
+                changed.set(true);
+                cargoService.appendStockJournals(orderId, operation, stockChangeDtos);
+                return inSufficientStores;
+            });
+        } catch (RuntimeException e) {
+            if (changed.get()) {
+                revertUntransactedStockCounts(orderId, plus, stockChangeDtos);
+            }
+            throw e;
+        }
+    }
+
+    /*
+     * 레인은 레인 스레드가 자기 커넥션으로 커밋하므로, 호출 스레드가 트랜잭션과 커넥션을 잡은 채 레인을 기다리면
+     * 커넥션 풀이 모두 대기 중인 주문에 묶여 레인이 커밋하지 못합니다. 재고를 먼저 반영하고 기록은 따로 저장하며, 기록에 실패하면 되돌립니다.
+     */
+    private Set<Long> changeStocksThenJournal(String orderId, StockOperation operation, List<StockChangeDto> stockChangeDtos) {
+        boolean plus = operation == StockOperation.PLUS;
+        Set<Long> inSufficientStores = plus ? plusStockCounts(stockChangeDtos) : minusStockCounts(stockChangeDtos);
+        try {
+            cargoService.appendStockJournals(orderId, operation, stockChangeDtos);
+        } catch (RuntimeException e) {
+            revertUntransactedStockCounts(orderId, plus, stockChangeDtos);
+            throw e;
+        }
+        return inSufficientStores;
+    }
+
+    private void revertUntransactedStockCounts(String orderId, boolean plus, List<StockChangeDto> stockChangeDtos) {
+        try {
+            if (plus) cargoService.minusShardedStockCounts(stockChangeDtos);
+            else cargoService.plusShardedStockCounts(stockChangeDtos);
+
+            List<StockChangeDto> unshardedStockChangeDtos = cargoService.withoutShardedStocks(stockChangeDtos);
+            if (unshardedStockChangeDtos.isEmpty()) return;
+            if (stockChangeMode == StockChangeMode.REDIS_LEDGER || stockChangeMode == StockChangeMode.LANE) {
+                if (plus) minusUnshardedStockCounts(unshardedStockChangeDtos);
+                else plusUnshardedStockCounts(unshardedStockChangeDtos);
+            }
+        } catch (RuntimeException e) {
+            log.error("stock change of order {} not reverted with cause of {}", orderId, e.getMessage());
+        }
+    }
+
+    // 샤드로 운영하는 꽃을 먼저 변경하고, 나머지 꽃의 변경이 실패하면 샤드 변경을 되돌립니다
+    private Set<Long> plusStockCounts(List<StockChangeDto> stockChangeDtos) {
+        Set<Long> inSufficientStores = new HashSet<>(cargoService.plusShardedStockCounts(stockChangeDtos));
+        List<StockChangeDto> unshardedStockChangeDtos = cargoService.withoutShardedStocks(stockChangeDtos);
+        if(unshardedStockChangeDtos.isEmpty()) return inSufficientStores;
+
+        try {
+            inSufficientStores.addAll(plusUnshardedStockCounts(unshardedStockChangeDtos));
+        } catch (RuntimeException e) {
+            cargoService.minusShardedStockCounts(stockChangeDtos);
+            throw e;
+        }
+        return inSufficientStores;
+    }
+
+    private Set<Long> minusStockCounts(List<StockChangeDto> stockChangeDtos) {
+        Set<Long> inSufficientStores = new HashSet<>(cargoService.minusShardedStockCounts(stockChangeDtos));
+        List<StockChangeDto> unshardedStockChangeDtos = cargoService.withoutShardedStocks(stockChangeDtos);
+        if(unshardedStockChangeDtos.isEmpty()) return inSufficientStores;
+
+        try {
+            inSufficientStores.addAll(minusUnshardedStockCounts(unshardedStockChangeDtos));
+        } catch (RuntimeException e) {
+            cargoService.plusShardedStockCounts(stockChangeDtos);
+            throw e;
+        }
+        return inSufficientStores;
+    }
+
+    private Set<Long> plusUnshardedStockCounts(List<StockChangeDto> stockChangeDtos) {
+        switch (stockChangeMode) {
+            case REDIS_LEDGER:
+                return cargoService.plusStockCountsWithLedger(stockChangeDtos);
+            case CONDITIONAL_UPDATE:
+                return cargoService.plusStockCountsConditionally(stockChangeDtos);
+            case MULTI_LOCK:
+                return cargoService.plusStockCountsWithMultiLock(stockChangeDtos);
+            case LANE:
+                return stockLaneExecutor.plusStocks(stockChangeDtos);
+            default:
+                return cargoService.plusStockCounts(stockChangeDtos);
+        }
+    }
+
+    private Set<Long> minusUnshardedStockCounts(List<StockChangeDto> stockChangeDtos) {
+        switch (stockChangeMode) {
+            case REDIS_LEDGER:
+                return cargoService.minusStockCountsWithLedger(stockChangeDtos);
+            case CONDITIONAL_UPDATE:
+                return cargoService.minusStockCountsConditionally(stockChangeDtos);
+            case MULTI_LOCK:
+                return cargoService.minusStockCountsWithMultiLock(stockChangeDtos);
+            case LANE:
+                return stockLaneExecutor.minusStocks(stockChangeDtos);
+            default:
+                return cargoService.minusStockCounts(stockChangeDtos);
+        }
+    }
+
 }
@@ -0,0 +1,158 @@
+package kr.bb.store.domain.cargo.handler;
+
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.exception.FlowerCargoNotFoundException;
+import kr.bb.store.domain.cargo.exception.StockCannotBeNegativeException;
+import kr.bb.store.domain.cargo.exception.StockChangeFailedException;
+import kr.bb.store.domain.cargo.repository.FlowerCargoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static kr.bb.store.util.RedisUtils.STOCK_SHARD_DIRTY_KEY;
+import static kr.bb.store.util.RedisUtils.makeStockShardKey;
+import static kr.bb.store.util.luascript.RedisScripts.SHARD_CHANGE;
+import static kr.bb.store.util.luascript.RedisScripts.SHARD_DISTRIBUTE;
+import static kr.bb.store.util.luascript.RedisScripts.SHARD_REBALANCE;
+
+/*
+ * 주문이 몰리는 꽃의 재고를 여러 샤드 카운터로 나누어 보관합니다.
+ * 변경은 임의의 샤드 하나에서 처리하고, 해당 샤드가 부족할 때만 모든 샤드를 합쳐 다시 나눕니다.
+ * 샤드로 운영할 꽃은 stock.shard.counts에 {'가게아이디:꽃아이디': 샤드 수} 형태로 지정합니다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShardedStockCounter {
+    private static final long SUCCESS = 1L;
+    private static final long SHARD_MISSING = -1L;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final FlowerCargoRepository flowerCargoRepository;
+
+    @Value("#{${stock.shard.counts:{:}}}")
+    private Map<String, Integer> shardCounts;
+
+    public boolean isSharded(FlowerCargoId id) {
+        return !shardCounts.isEmpty() && shardCounts.containsKey(toMember(id));
+    }
+
+    public boolean hasShardedStocks() {
+        return !shardCounts.isEmpty();
+    }
+
+    /*
+     * 샤드 재고를 변경하고 변경 후 전체 재고의 추정치를 반환합니다.
+     * 임의 샤드에서 처리된 경우 해당 샤드 재고에 샤드 수를 곱한 값이며, 재분배된 경우 정확한 전체 재고입니다.
+     */
+    public long change(FlowerCargoId id, long delta) {
+        return change(id, delta, shardCounts.get(toMember(id)));
+    }
+
+    @SuppressWarnings("unchecked")
+    public long change(FlowerCargoId id, long delta, int shardCount) {
+        String shardKey = makeStockShardKey(id.getStoreId(), id.getFlowerId(),
+                ThreadLocalRandom.current().nextInt(shardCount));
+        List<Long> result = redisTemplate.execute(SHARD_CHANGE, List.of(STOCK_SHARD_DIRTY_KEY, shardKey),
+                String.valueOf(delta), toMember(id));
+        if (result.get(0) == SHARD_MISSING) {
+            distribute(id, shardCount, loadStock(id), false);
+            result = redisTemplate.execute(SHARD_CHANGE, List.of(STOCK_SHARD_DIRTY_KEY, shardKey),
+                    String.valueOf(delta), toMember(id));
+        }
+        if (result.get(0) == SUCCESS) {
+            return result.get(1) * shardCount;
+        }
+        if (result.get(0) == SHARD_MISSING) {
+            throw new StockChangeFailedException();
+        }
+
+        List<String> keys = new ArrayList<>();
+        keys.add(STOCK_SHARD_DIRTY_KEY);
+        keys.addAll(makeShardKeys(id, shardCount));
+        List<Long> rebalanced = redisTemplate.execute(SHARD_REBALANCE, keys, String.valueOf(delta), toMember(id));
+        if (rebalanced.get(0) != SUCCESS) {
+            throw new StockCannotBeNegativeException();
+        }
+        return rebalanced.get(1);
+    }
+
+    public void overwrite(FlowerCargoId id, long stock) {
+        distribute(id, shardCounts.get(toMember(id)), stock, true);
+    }
+
+    public Long getStock(FlowerCargoId id) {
+        return getStock(id, shardCounts.get(toMember(id)));
+    }
+
+    // 샤드가 아직 없다면 null을 반환합니다
+    public Long getStock(FlowerCargoId id, int shardCount) {
+        List<String> shards = redisTemplate.opsForValue().multiGet(makeShardKeys(id, shardCount));
+        if (shards == null || shards.contains(null)) {
+            return null;
+        }
+        return shards.stream()
+                .mapToLong(Long::parseLong)
+                .sum();
+    }
+
+    public Map<FlowerCargoId, Long> popDirtyStocks(long count) {
+        List<String> members = redisTemplate.opsForSet().pop(STOCK_SHARD_DIRTY_KEY, count);
+        if (members == null || members.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<FlowerCargoId, Long> dirtyStocks = new HashMap<>();
+        members.stream()
+                .map(this::toId)
+                .filter(this::isSharded)
+                .forEach(id -> {
+                    Long stock = getStock(id);
+                    if (stock != null) {
+                        dirtyStocks.put(id, stock);
+                    }
+                });
+        return dirtyStocks;
+    }
+
+    public void markDirty(Collection<FlowerCargoId> ids) {
+        if (ids.isEmpty()) return;
+        redisTemplate.opsForSet().add(STOCK_SHARD_DIRTY_KEY, ids.stream().map(this::toMember).toArray(String[]::new));
+    }
+
+    private void distribute(FlowerCargoId id, int shardCount, long stock, boolean overwrite) {
+        redisTemplate.execute(SHARD_DISTRIBUTE, makeShardKeys(id, shardCount),
+                String.valueOf(stock), overwrite ? "1" : "0");
+    }
+
+    private long loadStock(FlowerCargoId id) {
+        Long stock = flowerCargoRepository.findStock(id.getStoreId(), id.getFlowerId());
+        if (stock == null) {
+            throw new FlowerCargoNotFoundException();
+        }
+        return stock;
+    }
+
+    private List<String> makeShardKeys(FlowerCargoId id, int shardCount) {
+        return IntStream.range(0, shardCount)
+                .mapToObj(shardIndex -> makeStockShardKey(id.getStoreId(), id.getFlowerId(), shardIndex))
+                .collect(Collectors.toList());
+    }
+
+    private String toMember(FlowerCargoId id) {
+        return id.getStoreId() + ":" + id.getFlowerId();
+    }
+
+    private FlowerCargoId toId(String member) {
+        String[] tokens = member.split(":");
+        return FlowerCargoId.builder()
+                .storeId(Long.valueOf(tokens[0]))
+                .flowerId(Long.valueOf(tokens[1]))
+                .build();
+    }
+}
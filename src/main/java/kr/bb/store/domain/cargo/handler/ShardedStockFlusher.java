@@ -0,0 +1,39 @@
+package kr.bb.store.domain.cargo.handler;
+
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.service.CargoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShardedStockFlusher {
+    private final ShardedStockCounter shardedStockCounter;
+    private final CargoService cargoService;
+
+    @Value("${stock.shard.flush-size:500}")
+    private Long flushSize;
+
+    // 샤드 합계를 그대로 덮어쓰기 때문에 같은 꽃이 여러번 반영되어도 결과는 동일합니다
+    @Scheduled(fixedDelayString = "${stock.shard.flush-millis:1000}")
+    public void flush() {
+        if (!shardedStockCounter.hasShardedStocks()) return;
+
+        Map<FlowerCargoId, Long> dirtyStocks = shardedStockCounter.popDirtyStocks(flushSize);
+        if (dirtyStocks.isEmpty()) return;
+
+        try {
+            cargoService.syncStocks(dirtyStocks);
+            log.info("{} sharded stocks flushed", dirtyStocks.size());
+        } catch (Exception e) {
+            shardedStockCounter.markDirty(dirtyStocks.keySet());
+            log.error("sharded stock flush failed with cause of {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package kr.bb.store.domain.cargo.handler;
+
+import kr.bb.store.domain.cargo.entity.StockOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+import static kr.bb.store.util.RedisUtils.makeStockJournalKey;
+
+/*
+ * 같은 주문의 같은 재고 변경이 재전송되면 락 없이 SET NX 한 번으로 걸러냅니다.
+ * 처리 중인 요청과 완료된 요청을 구분해, 처리 중에 들어온 재전송은 성공으로 응답하지 않고 다시 시도하게 합니다.
+ * 처리 중 상태는 서버가 도중에 종료되어도 재시도를 오래 막지 않도록 짧은 TTL로 저장합니다.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockChangeDeduplicator {
+    private static final String IN_PROGRESS = "IN_PROGRESS";
+    private static final String COMPLETED = "COMPLETED";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${stock.journal.dedupe-ttl-second:86400}")
+    private Long dedupeTtlSecond;
+
+    @Value("${stock.journal.in-progress-ttl-second:60}")
+    private Long inProgressTtlSecond;
+
+    public enum Claim {
+        CLAIMED, IN_PROGRESS, COMPLETED
+    }
+
+    public Claim claim(String orderId, StockOperation operation) {
+        String key = makeStockJournalKey(orderId, operation);
+        Boolean claimed = redisTemplate.opsForValue()
+                .setIfAbsent(key, IN_PROGRESS, Duration.ofSeconds(inProgressTtlSecond));
+        if (Boolean.TRUE.equals(claimed)) return Claim.CLAIMED;
+        // 확인하는 사이 처리 중이던 요청이 실패해 키가 지워졌다면 다시 시도하게 합니다
+        return COMPLETED.equals(redisTemplate.opsForValue().get(key)) ? Claim.COMPLETED : Claim.IN_PROGRESS;
+    }
+
+    public void complete(String orderId, StockOperation operation) {
+        redisTemplate.opsForValue()
+                .set(makeStockJournalKey(orderId, operation), COMPLETED, Duration.ofSeconds(dedupeTtlSecond));
+    }
+
+    public void release(String orderId, StockOperation operation) {
+        redisTemplate.delete(makeStockJournalKey(orderId, operation));
+    }
+}
@@ -0,0 +1,246 @@
+package kr.bb.store.domain.cargo.handler;
+
+import bloomingblooms.domain.flower.StockChangeDto;
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.exception.FlowerCargoNotFoundException;
+import kr.bb.store.domain.cargo.exception.LockInterruptedException;
+import kr.bb.store.domain.cargo.exception.StockCannotBeNegativeException;
+import kr.bb.store.domain.cargo.exception.StockChangeFailedException;
+import kr.bb.store.domain.cargo.service.CargoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static kr.bb.store.util.RedisUtils.makeStockLaneRedissonKey;
+
+/*
+ * (가게, 꽃) 단위 재고 변경을 키 해시로 정해진 단일 스레드 레인에서 순서대로 처리합니다.
+ * 레인은 flush 주기 동안 쌓인 요청을 모아 키마다 한 번의 UPDATE로 반영하고, 노드 간 정합성은 요청이 아닌 레인 단위 락으로 보장합니다.
+ * 같은 키가 모든 노드에서 같은 레인으로 모이도록 노드마다 레인 수를 동일하게 설정해야 합니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLaneExecutor {
+    private static final Long EMPTY_COUNT = 0L;
+    private static final Long STOCK_ALERT_COUNT = 50L;
+
+    private final CargoService cargoService;
+    private final RedissonClient redissonClient;
+
+    @Value("${stock.lane.count:8}")
+    private Integer laneCount;
+
+    @Value("${stock.lane.flush-millis:5}")
+    private Long flushMillis;
+
+    @Value("${stock.lane.max-batch-size:500}")
+    private Integer maxBatchSize;
+
+    @Value("${redisson.lock.wait-second}")
+    private Integer waitSecond;
+
+    private List<Lane> lanes;
+    private ExecutorService executorService;
+
+    @PostConstruct
+    public void start() {
+        lanes = IntStream.range(0, laneCount)
+                .mapToObj(Lane::new)
+                .collect(Collectors.toList());
+        executorService = Executors.newFixedThreadPool(laneCount);
+        lanes.forEach(executorService::submit);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executorService.shutdownNow();
+    }
+
+    public Set<Long> plusStocks(List<StockChangeDto> stockChangeDtos) {
+        return changeStocks(stockChangeDtos, 1L);
+    }
+
+    public Set<Long> minusStocks(List<StockChangeDto> stockChangeDtos) {
+        return changeStocks(stockChangeDtos, -1L);
+    }
+
+    private Set<Long> changeStocks(List<StockChangeDto> stockChangeDtos, long sign) {
+        Map<FlowerCargoId, Long> deltas = stockChangeDtos.stream()
+                .flatMap(stockChangeDto -> stockChangeDto.getStockDtos().stream()
+                        .map(stockDto -> Map.entry(
+                                makeId(stockChangeDto.getStoreId(), stockDto.getFlowerId()),
+                                sign * stockDto.getStock()
+                        )))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, Long::sum, LinkedHashMap::new));
+
+        Map<FlowerCargoId, CompletableFuture<Long>> futures = new LinkedHashMap<>();
+        deltas.forEach((flowerCargoId, delta) -> futures.put(flowerCargoId, submit(flowerCargoId, delta)));
+
+        Map<FlowerCargoId, Long> afterChangeCounts = new LinkedHashMap<>();
+        RuntimeException failure = null;
+        for (Map.Entry<FlowerCargoId, CompletableFuture<Long>> entry : futures.entrySet()) {
+            try {
+                afterChangeCounts.put(entry.getKey(), entry.getValue().get(waitSecond, TimeUnit.SECONDS));
+            } catch (ExecutionException e) {
+                failure = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new StockChangeFailedException();
+                break;
+            } catch (TimeoutException e) {
+                failure = new StockChangeFailedException();
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new LockInterruptedException();
+                break;
+            }
+        }
+
+        if (failure != null) {
+            compensate(futures, deltas);
+            throw failure;
+        }
+
+        return afterChangeCounts.entrySet().stream()
+                .filter(entry -> entry.getValue() < STOCK_ALERT_COUNT)
+                .map(entry -> entry.getKey().getStoreId())
+                .collect(Collectors.toSet());
+    }
+
+    // 주문의 일부만 반영된 경우 반영된(또는 뒤늦게 반영될) 품목을 되돌립니다
+    private void compensate(Map<FlowerCargoId, CompletableFuture<Long>> futures, Map<FlowerCargoId, Long> deltas) {
+        futures.forEach((flowerCargoId, future) -> future.thenAccept(afterChangeCount ->
+                submit(flowerCargoId, -deltas.get(flowerCargoId))
+                        .exceptionally(e -> {
+                            log.error("stock compensation of {}:{} failed with cause of {}",
+                                    flowerCargoId.getStoreId(), flowerCargoId.getFlowerId(), e.getMessage());
+                            return null;
+                        })
+        ));
+    }
+
+    private CompletableFuture<Long> submit(FlowerCargoId flowerCargoId, long delta) {
+        StockLaneRequest request = new StockLaneRequest(flowerCargoId, delta);
+        lanes.get(Math.floorMod(flowerCargoId.hashCode(), laneCount)).queue.add(request);
+        return request.future;
+    }
+
+    private FlowerCargoId makeId(Long storeId, Long flowerId) {
+        return FlowerCargoId.builder()
+                .storeId(storeId)
+                .flowerId(flowerId)
+                .build();
+    }
+
+    @RequiredArgsConstructor
+    private static class StockLaneRequest {
+        private final FlowerCargoId flowerCargoId;
+        private final long delta;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+    }
+
+    private class Lane implements Runnable {
+        private final int index;
+        private final BlockingQueue<StockLaneRequest> queue = new LinkedBlockingQueue<>();
+
+        private Lane(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<StockLaneRequest> batch = new ArrayList<>();
+                try {
+                    batch.add(queue.take());
+                    collect(batch);
+                } catch (InterruptedException e) {
+                    batch.forEach(request -> request.future.completeExceptionally(new LockInterruptedException()));
+                    return;
+                }
+                commit(batch);
+            }
+        }
+
+        // 배치가 찰 때까지 flush 주기 안에서 도착하는 요청을 더 모으고, 배치가 차면 기다리지 않고 바로 반영합니다
+        private void collect(List<StockLaneRequest> batch) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            while (batch.size() < maxBatchSize) {
+                StockLaneRequest request = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (request == null) return;
+                batch.add(request);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            }
+        }
+
+        private void commit(List<StockLaneRequest> batch) {
+            RLock lock = redissonClient.getLock(makeStockLaneRedissonKey(index));
+            try {
+                // 배치 반영이 길어져도 임대시간이 끝나지 않도록 leaseTime 없이 획득해 watchdog이 연장하게 합니다
+                boolean available = lock.tryLock(waitSecond, TimeUnit.SECONDS);
+                if (!available) {
+                    batch.forEach(request -> request.future.completeExceptionally(new StockChangeFailedException()));
+                    return;
+                }
+
+                Map<FlowerCargoId, Long> stocks = cargoService.getStocks(
+                        batch.stream().map(request -> request.flowerCargoId).collect(Collectors.toSet()));
+
+                // 도착 순서대로 수용 여부를 판단하고 수용된 요청만 키별로 합산합니다
+                Map<FlowerCargoId, Long> acceptedDeltas = new LinkedHashMap<>();
+                Map<StockLaneRequest, Long> acceptedRequests = new LinkedHashMap<>();
+                batch.forEach(request -> {
+                    Long stock = stocks.get(request.flowerCargoId);
+                    if (stock == null) {
+                        request.future.completeExceptionally(new FlowerCargoNotFoundException());
+                        return;
+                    }
+                    long afterChangeCount = stock + request.delta;
+                    if (afterChangeCount < EMPTY_COUNT) {
+                        request.future.completeExceptionally(new StockCannotBeNegativeException());
+                        return;
+                    }
+                    stocks.put(request.flowerCargoId, afterChangeCount);
+                    acceptedDeltas.merge(request.flowerCargoId, request.delta, Long::sum);
+                    acceptedRequests.put(request, afterChangeCount);
+                });
+
+                cargoService.applyStockDeltas(acceptedDeltas);
+                acceptedRequests.forEach((request, afterChangeCount) -> request.future.complete(afterChangeCount));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(request -> request.future.completeExceptionally(new LockInterruptedException()));
+            } catch (Exception e) {
+                log.error("stock lane {} commit failed with cause of {}", index, e.getMessage());
+                batch.forEach(request -> request.future.completeExceptionally(e));
+            } finally {
+                if (lock.isLocked() && lock.isHeldByCurrentThread()) {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package kr.bb.store.domain.cargo.handler;
+
+import kr.bb.store.domain.cargo.dto.StockModifyDto;
+import kr.bb.store.domain.cargo.entity.FlowerCargo;
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.exception.FlowerCargoNotFoundException;
+import kr.bb.store.domain.cargo.exception.StockCannotBeNegativeException;
+import kr.bb.store.domain.cargo.exception.StockChangeFailedException;
+import kr.bb.store.domain.cargo.repository.FlowerCargoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static kr.bb.store.util.RedisUtils.STOCK_DIRTY_KEY;
+import static kr.bb.store.util.RedisUtils.makeStockKey;
+import static kr.bb.store.util.luascript.RedisScripts.STOCK_CHANGE;
+
+/*
+ * 꽃 재고를 레디스에 보관하고 주문 단위로 한번에 변경합니다.
+ * 변경된 키는 dirty set에 기록되며 StockLedgerFlusher가 주기적으로 DB에 반영합니다.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockLedger {
+    private static final long SUCCESS = 1L;
+    private static final long KEY_MISSING = -1L;
+    private static final int MAX_LOAD_COUNT = 2;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final FlowerCargoRepository flowerCargoRepository;
+
+    @Value("${stock.ledger.ttl-second:86400}")
+    private Long ttlSecond;
+
+    @SuppressWarnings("unchecked")
+    public Map<FlowerCargoId, Long> change(Map<FlowerCargoId, Long> deltas) {
+        List<FlowerCargoId> ids = new ArrayList<>(deltas.keySet());
+        List<String> keys = new ArrayList<>();
+        keys.add(STOCK_DIRTY_KEY);
+        ids.forEach(id -> keys.add(toKey(id)));
+
+        Object[] args = new Object[ids.size() + 1];
+        for (int i = 0; i < ids.size(); i++) {
+            args[i] = String.valueOf(deltas.get(ids.get(i)));
+        }
+        args[ids.size()] = String.valueOf(ttlSecond);
+
+        for (int loadCount = 0; loadCount <= MAX_LOAD_COUNT; loadCount++) {
+            List<Long> result = redisTemplate.execute(STOCK_CHANGE, keys, args);
+            long status = result.get(0);
+            if (status == SUCCESS) {
+                Map<FlowerCargoId, Long> remains = new LinkedHashMap<>();
+                for (int i = 0; i < ids.size(); i++) {
+                    remains.put(ids.get(i), result.get(i + 1));
+                }
+                return remains;
+            }
+            if (status != KEY_MISSING) {
+                throw new StockCannotBeNegativeException();
+            }
+            load(result.subList(1, result.size()).stream()
+                    .map(index -> ids.get(index.intValue() - 1))
+                    .collect(Collectors.toList()));
+        }
+        throw new StockChangeFailedException();
+    }
+
+    public void overwrite(Long storeId, List<StockModifyDto> stockModifyDtos) {
+        stockModifyDtos.forEach(stockModifyDto -> {
+            String key = makeStockKey(storeId, stockModifyDto.getFlowerId());
+            redisTemplate.opsForValue().set(key, String.valueOf(stockModifyDto.getStock()), Duration.ofSeconds(ttlSecond));
+            redisTemplate.opsForSet().add(STOCK_DIRTY_KEY, key);
+        });
+    }
+
+    public Map<FlowerCargoId, Long> popDirtyStocks(long count) {
+        List<String> keys = redisTemplate.opsForSet().pop(STOCK_DIRTY_KEY, count);
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<String> stocks = redisTemplate.opsForValue().multiGet(keys);
+        Map<FlowerCargoId, Long> dirtyStocks = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String stock = stocks.get(i);
+            if (stock != null) {
+                dirtyStocks.put(toId(keys.get(i)), Long.valueOf(stock));
+            }
+        }
+        return dirtyStocks;
+    }
+
+    // 장부에 올라와 있는 꽃의 재고만 반환합니다
+    public Map<FlowerCargoId, Long> getStocks(List<FlowerCargoId> ids) {
+        if (ids.isEmpty()) return Collections.emptyMap();
+        List<String> stocks = redisTemplate.opsForValue().multiGet(ids.stream().map(this::toKey).collect(Collectors.toList()));
+        Map<FlowerCargoId, Long> result = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (stocks.get(i) != null) {
+                result.put(ids.get(i), Long.valueOf(stocks.get(i)));
+            }
+        }
+        return result;
+    }
+
+    public void markDirty(Collection<FlowerCargoId> ids) {
+        if (ids.isEmpty()) return;
+        redisTemplate.opsForSet().add(STOCK_DIRTY_KEY, ids.stream().map(this::toKey).toArray(String[]::new));
+    }
+
+    private void load(List<FlowerCargoId> missingIds) {
+        List<FlowerCargo> flowerCargos = flowerCargoRepository.findAllById(missingIds);
+        if (flowerCargos.size() != missingIds.size()) {
+            throw new FlowerCargoNotFoundException();
+        }
+        flowerCargos.forEach(flowerCargo -> redisTemplate.opsForValue().setIfAbsent(
+                toKey(flowerCargo.getId()), String.valueOf(flowerCargo.getStock()), Duration.ofSeconds(ttlSecond))
+        );
+    }
+
+    private String toKey(FlowerCargoId id) {
+        return makeStockKey(id.getStoreId(), id.getFlowerId());
+    }
+
+    private FlowerCargoId toId(String key) {
+        String[] tokens = key.split(":");
+        return FlowerCargoId.builder()
+                .storeId(Long.valueOf(tokens[1]))
+                .flowerId(Long.valueOf(tokens[2]))
+                .build();
+    }
+}
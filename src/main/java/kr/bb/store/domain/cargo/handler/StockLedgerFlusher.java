@@ -0,0 +1,58 @@
+package kr.bb.store.domain.cargo.handler;
+
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.service.CargoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+import static kr.bb.store.util.RedisUtils.STOCK_LEDGER_FLUSH_REDISSON_KEY;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLedgerFlusher {
+    private final StockLedger stockLedger;
+    private final CargoService cargoService;
+    private final RedissonClient redissonClient;
+
+    @Value("${stock.ledger.flush-size:500}")
+    private Long flushSize;
+
+    /*
+     * 레디스 재고의 최신값을 그대로 덮어쓰므로 꺼낸 순서대로 커밋되어야 합니다.
+     * 서버마다 따로 꺼내 반영하면 먼저 꺼낸 오래된 값이 나중에 커밋될 수 있어, 꺼내기부터 커밋까지 한 서버만 실행합니다.
+     * 락은 leaseTime 없이 획득해 반영이 길어져도 watchdog이 연장합니다.
+     */
+    @Scheduled(fixedDelayString = "${stock.ledger.flush-millis:1000}")
+    public void flush() {
+        RLock lock = redissonClient.getLock(STOCK_LEDGER_FLUSH_REDISSON_KEY);
+        if (!lock.tryLock()) return;
+        try {
+            flushDirtyStocks();
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void flushDirtyStocks() {
+        Map<FlowerCargoId, Long> dirtyStocks = stockLedger.popDirtyStocks(flushSize);
+        if (dirtyStocks.isEmpty()) return;
+
+        try {
+            cargoService.syncStocks(dirtyStocks);
+            log.info("{} stocks flushed from ledger", dirtyStocks.size());
+        } catch (Exception e) {
+            stockLedger.markDirty(dirtyStocks.keySet());
+            log.error("stock ledger flush failed with cause of {}", e.getMessage());
+        }
+    }
+}
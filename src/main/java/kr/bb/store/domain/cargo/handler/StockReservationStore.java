@@ -0,0 +1,120 @@
+package kr.bb.store.domain.cargo.handler;
+
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.exception.StockCannotBeNegativeException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static kr.bb.store.util.RedisUtils.STOCK_HELD_PREFIX;
+import static kr.bb.store.util.RedisUtils.STOCK_RESERVATION_EXPIRY_KEY;
+import static kr.bb.store.util.RedisUtils.makeStockHeldKey;
+import static kr.bb.store.util.RedisUtils.makeStockReservationClaimKey;
+import static kr.bb.store.util.RedisUtils.makeStockReservationKey;
+import static kr.bb.store.util.luascript.RedisScripts.RESERVATION_CLAIM;
+import static kr.bb.store.util.luascript.RedisScripts.RESERVATION_HOLD;
+import static kr.bb.store.util.luascript.RedisScripts.RESERVATION_RELEASE;
+
+/*
+ * 결제 전 재고 예약을 레디스에 보관합니다.
+ * 예약 해시에는 꽃별 예약 수량을, 만료 인덱스에는 예약의 만료 시각을 기록하며 꽃별 예약 수량 합계는 별도 카운터로 유지합니다.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockReservationStore {
+    private static final long SUCCESS = 1L;
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${stock.reservation.ttl-second:600}")
+    private Long ttlSecond;
+
+    @Value("${stock.reservation.confirm-second:60}")
+    private Long confirmSecond;
+
+    @SuppressWarnings("unchecked")
+    public String hold(Map<FlowerCargoId, Long> quantities, Map<FlowerCargoId, Long> stocks) {
+        String reservationId = UUID.randomUUID().toString();
+        List<FlowerCargoId> ids = new ArrayList<>(quantities.keySet());
+
+        List<String> keys = new ArrayList<>();
+        keys.add(makeStockReservationKey(reservationId));
+        keys.add(STOCK_RESERVATION_EXPIRY_KEY);
+        ids.forEach(id -> keys.add(makeStockHeldKey(id.getStoreId(), id.getFlowerId())));
+
+        List<String> args = new ArrayList<>();
+        args.add(reservationId);
+        args.add(String.valueOf(System.currentTimeMillis() + ttlSecond * 1000));
+        ids.forEach(id -> args.add(String.valueOf(quantities.get(id))));
+        ids.forEach(id -> args.add(String.valueOf(stocks.get(id))));
+
+        List<Long> result = redisTemplate.execute(RESERVATION_HOLD, keys, args.toArray());
+        if (result.get(0) != SUCCESS) {
+            throw new StockCannotBeNegativeException();
+        }
+        return reservationId;
+    }
+
+    // 예약을 지우지 않고 확정 중으로 표시해 같은 예약을 두 번 확정하지 않게 합니다. 예약은 DB 반영이 커밋된 뒤 release로 지웁니다
+    @SuppressWarnings("unchecked")
+    public Map<FlowerCargoId, Long> claim(String reservationId) {
+        List<String> keys = List.of(makeStockReservationKey(reservationId), STOCK_RESERVATION_EXPIRY_KEY,
+                makeStockReservationClaimKey(reservationId));
+        List<String> items = redisTemplate.execute(RESERVATION_CLAIM, keys, reservationId,
+                String.valueOf(System.currentTimeMillis() + confirmSecond * 1000), String.valueOf(confirmSecond * 1000));
+        return toQuantities(items);
+    }
+
+    // 확정이 롤백되면 표시를 지워 다시 확정할 수 있게 합니다
+    public void unclaim(String reservationId) {
+        redisTemplate.delete(makeStockReservationClaimKey(reservationId));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<FlowerCargoId, Long> release(String reservationId) {
+        // 예약 해시의 필드는 예약한 뒤 바뀌지 않으므로 먼저 읽은 꽃별 예약 수량 키를 스크립트의 KEYS로 넘깁니다
+        String reservationKey = makeStockReservationKey(reservationId);
+        List<String> keys = new ArrayList<>(List.of(reservationKey, STOCK_RESERVATION_EXPIRY_KEY));
+        redisTemplate.<String, String>opsForHash().keys(reservationKey).forEach(keys::add);
+        List<String> items = redisTemplate.execute(RESERVATION_RELEASE, keys, reservationId);
+        return toQuantities(items);
+    }
+
+    public Map<FlowerCargoId, Long> getHeldCounts(List<FlowerCargoId> ids) {
+        List<String> heldCounts = redisTemplate.opsForValue().multiGet(ids.stream()
+                .map(id -> makeStockHeldKey(id.getStoreId(), id.getFlowerId()))
+                .collect(Collectors.toList()));
+
+        Map<FlowerCargoId, Long> result = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String heldCount = heldCounts.get(i);
+            result.put(ids.get(i), heldCount == null ? 0L : Long.parseLong(heldCount));
+        }
+        return result;
+    }
+
+    public Set<String> findExpiredReservations(long count) {
+        return redisTemplate.opsForZSet()
+                .rangeByScore(STOCK_RESERVATION_EXPIRY_KEY, 0, System.currentTimeMillis(), 0, count);
+    }
+
+    private Map<FlowerCargoId, Long> toQuantities(List<String> items) {
+        Map<FlowerCargoId, Long> quantities = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i += 2) {
+            quantities.put(toId(items.get(i)), Long.valueOf(items.get(i + 1)));
+        }
+        return quantities;
+    }
+
+    private FlowerCargoId toId(String stockHeldKey) {
+        String[] ids = stockHeldKey.substring(STOCK_HELD_PREFIX.length()).split(":");
+        return FlowerCargoId.builder()
+                .storeId(Long.valueOf(ids[0]))
+                .flowerId(Long.valueOf(ids[1]))
+                .build();
+    }
+}
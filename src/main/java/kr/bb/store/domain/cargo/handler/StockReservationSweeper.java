@@ -0,0 +1,29 @@
+package kr.bb.store.domain.cargo.handler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockReservationSweeper {
+    private final StockReservationStore stockReservationStore;
+
+    @Value("${stock.reservation.sweep-size:500}")
+    private Long sweepSize;
+
+    // 해제는 예약이 없으면 아무것도 하지 않기 때문에 확정, 취소와 동시에 실행되어도 안전합니다
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-millis:1000}")
+    public void sweep() {
+        Set<String> expiredReservations = stockReservationStore.findExpiredReservations(sweepSize);
+        if (expiredReservations == null || expiredReservations.isEmpty()) return;
+
+        expiredReservations.forEach(stockReservationStore::release);
+        log.info("{} stock reservations expired", expiredReservations.size());
+    }
+}
@@ -0,0 +1,134 @@
+package kr.bb.store.domain.cargo.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.bb.store.domain.cargo.dto.StockInfoDto;
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static kr.bb.store.util.RedisUtils.makeStockSnapshotKey;
+import static kr.bb.store.util.RedisUtils.makeStockSnapshotVersionKey;
+import static kr.bb.store.util.luascript.RedisScripts.SNAPSHOT_APPLY;
+import static kr.bb.store.util.luascript.RedisScripts.SNAPSHOT_PUT;
+
+/*
+ * 가게별 재고 스냅샷을 레디스 해시에 보관합니다. 필드는 '{꽃아이디}:stock', '{꽃아이디}:name' 입니다.
+ * 재고가 바뀌는 모든 경로에서 스냅샷을 직접 갱신하고, 스냅샷이 없을 때만 DB에서 읽어 채웁니다.
+ */
+@Slf4j
+@Component
+public class StockSnapshotCache {
+    private static final String STOCK_FIELD_SUFFIX = ":stock";
+    private static final String NAME_FIELD_SUFFIX = ":name";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter updateCounter;
+    private final Counter rejectedCounter;
+
+    @Value("${stock.snapshot.ttl-second:3600}")
+    private Long ttlSecond;
+
+    public StockSnapshotCache(RedisTemplate<String, String> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.hitCounter = meterRegistry.counter("stock.snapshot.hit");
+        this.missCounter = meterRegistry.counter("stock.snapshot.miss");
+        this.updateCounter = meterRegistry.counter("stock.snapshot.update");
+        this.rejectedCounter = meterRegistry.counter("stock.snapshot.rejected");
+    }
+
+    // 스냅샷이 없다면 null을 반환합니다
+    public List<StockInfoDto> get(Long storeId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(makeStockSnapshotKey(storeId));
+        if (fields.isEmpty()) {
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+
+        return fields.keySet().stream()
+                .map(String::valueOf)
+                .filter(field -> field.endsWith(STOCK_FIELD_SUFFIX))
+                .map(field -> {
+                    String flowerId = field.substring(0, field.length() - STOCK_FIELD_SUFFIX.length());
+                    return StockInfoDto.of(
+                            Long.valueOf(flowerId),
+                            (String) fields.get(flowerId + NAME_FIELD_SUFFIX),
+                            Long.valueOf((String) fields.get(field))
+                    );
+                })
+                .sorted(Comparator.comparing(StockInfoDto::getFlowerId))
+                .collect(Collectors.toList());
+    }
+
+    public String getVersion(Long storeId) {
+        String version = redisTemplate.opsForValue().get(makeStockSnapshotVersionKey(storeId));
+        return version == null ? "0" : version;
+    }
+
+    public void put(Long storeId, String version, List<StockInfoDto> stockInfoDtos) {
+        if (stockInfoDtos.isEmpty()) return;
+
+        List<String> args = new ArrayList<>();
+        args.add(version);
+        args.add(String.valueOf(ttlSecond));
+        stockInfoDtos.forEach(stockInfoDto -> {
+            args.add(stockInfoDto.getFlowerId() + STOCK_FIELD_SUFFIX);
+            args.add(String.valueOf(stockInfoDto.getData().get(0)));
+            args.add(stockInfoDto.getFlowerId() + NAME_FIELD_SUFFIX);
+            args.add(stockInfoDto.getName());
+        });
+        Long stored = redisTemplate.execute(SNAPSHOT_PUT, makeKeys(storeId), args.toArray());
+        if (stored == null || stored == 0L) {
+            rejectedCounter.increment();
+        }
+    }
+
+    public void applyDeltas(Map<FlowerCargoId, Long> deltas) {
+        apply("INCR", deltas);
+    }
+
+    public void overwrite(Map<FlowerCargoId, Long> stocks) {
+        apply("SET", stocks);
+    }
+
+    public void evict(Long storeId) {
+        redisTemplate.opsForValue().increment(makeStockSnapshotVersionKey(storeId));
+        redisTemplate.delete(makeStockSnapshotKey(storeId));
+    }
+
+    // 재고 변경은 이미 끝났으므로 예외를 전파하지 않고, 스냅샷을 지워 다음 조회에서 DB로 다시 채웁니다
+    private void apply(String operation, Map<FlowerCargoId, Long> values) {
+        values.entrySet().stream()
+                .collect(Collectors.groupingBy(entry -> entry.getKey().getStoreId(),
+                        Collectors.toMap(entry -> entry.getKey().getFlowerId(), Map.Entry::getValue)))
+                .forEach((storeId, flowerValues) -> apply(storeId, operation, flowerValues));
+    }
+
+    private void apply(Long storeId, String operation, Map<Long, Long> flowerValues) {
+        List<String> args = new ArrayList<>();
+        args.add(operation);
+        flowerValues.forEach((flowerId, value) -> {
+            args.add(flowerId + STOCK_FIELD_SUFFIX);
+            args.add(String.valueOf(value));
+        });
+        try {
+            redisTemplate.execute(SNAPSHOT_APPLY, makeKeys(storeId), args.toArray());
+            updateCounter.increment();
+        } catch (Exception e) {
+            redisTemplate.delete(makeStockSnapshotKey(storeId));
+            log.error("stock snapshot of store {} not updated with cause of {}", storeId, e.getMessage());
+        }
+    }
+
+    private List<String> makeKeys(Long storeId) {
+        return List.of(makeStockSnapshotKey(storeId), makeStockSnapshotVersionKey(storeId));
+    }
+}
@@ -7,11 +7,16 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface FlowerCargoRepository extends JpaRepository<FlowerCargo, FlowerCargoId> {
+public interface FlowerCargoRepository extends JpaRepository<FlowerCargo, FlowerCargoId>, FlowerCargoRepositoryCustom {
     List<FlowerCargo> findAllByStoreId(Long storeId);
 
+    // 복합 키는 findAllById가 키마다 조회하므로 한 번의 IN 쿼리로 읽습니다
+    @Query("select f from FlowerCargo f where f.id in :ids")
+    List<FlowerCargo> findAllByIdIn(@Param("ids") Collection<FlowerCargoId> ids);
+
     @Modifying
     @Query("update FlowerCargo f set f.stock = :stock " +
             "where f.id.storeId = :storeId and f.id.flowerId = :flowerId")
@@ -27,5 +32,17 @@ public interface FlowerCargoRepository extends JpaRepository<FlowerCargo, Flower
             "where f.id.storeId = :storeId and f.id.flowerId = :flowerId")
     void minusStock(@Param("storeId") Long storeId, @Param("flowerId") Long flowerId, @Param("stock") long stock);
 
+    @Modifying
+    @Query("update FlowerCargo f set f.stock = f.stock + :stock " +
+            "where f.id.storeId = :storeId and f.id.flowerId = :flowerId and f.stock + :stock >= 0")
+    int plusStockIfNotNegative(@Param("storeId") Long storeId, @Param("flowerId") Long flowerId, @Param("stock") long stock);
+
+    @Modifying
+    @Query("update FlowerCargo f set f.stock = f.stock - :stock " +
+            "where f.id.storeId = :storeId and f.id.flowerId = :flowerId and f.stock >= :stock")
+    int minusStockIfSufficient(@Param("storeId") Long storeId, @Param("flowerId") Long flowerId, @Param("stock") long stock);
+
+    @Query("select f.stock from FlowerCargo f where f.id.storeId = :storeId and f.id.flowerId = :flowerId")
+    Long findStock(@Param("storeId") Long storeId, @Param("flowerId") Long flowerId);
 
 }
@@ -0,0 +1,12 @@
+package kr.bb.store.domain.cargo.repository;
+
+import kr.bb.store.domain.cargo.dto.StockModifyDto;
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+
+import java.util.List;
+import java.util.Map;
+
+public interface FlowerCargoRepositoryCustom {
+    int[] modifyStocksInBatch(Long storeId, List<StockModifyDto> stockModifyDtos);
+    int[] minusStocksInBatch(Map<FlowerCargoId, Long> quantities);
+}
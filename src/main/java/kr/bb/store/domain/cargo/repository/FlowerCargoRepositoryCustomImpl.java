@@ -0,0 +1,79 @@
+package kr.bb.store.domain.cargo.repository;
+
+import kr.bb.store.domain.cargo.dto.StockModifyDto;
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class FlowerCargoRepositoryCustomImpl implements FlowerCargoRepositoryCustom {
+    private static final String MODIFY_STOCK_SQL =
+            "update flower_cargo set stock = ? where store_id = ? and flower_id = ?";
+    private static final String MINUS_STOCK_SQL =
+            "update flower_cargo set stock = stock - ? where store_id = ? and flower_id = ?";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    public FlowerCargoRepositoryCustomImpl(EntityManager em, JdbcTemplate jdbcTemplate) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /*
+     * 모든 행을 하나의 JDBC 배치로 전송합니다. MySQL에서 한 번의 왕복으로 보내려면 rewriteBatchedStatements=true 설정이 필요합니다.
+     * 영속성 컨텍스트를 거치지 않으므로 전송 전후로 flush, clear 합니다.
+     */
+    @Override
+    public int[] modifyStocksInBatch(Long storeId, List<StockModifyDto> stockModifyDtos) {
+        em.flush();
+        int[] updatedCounts = jdbcTemplate.batchUpdate(MODIFY_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                StockModifyDto stockModifyDto = stockModifyDtos.get(i);
+                ps.setLong(1, stockModifyDto.getStock());
+                ps.setLong(2, storeId);
+                ps.setLong(3, stockModifyDto.getFlowerId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return stockModifyDtos.size();
+            }
+        });
+        em.clear();
+        return updatedCounts;
+    }
+
+    /*
+     * 드라이버가 배치의 행 수를 알려주지 않을 수 있어(SUCCESS_NO_INFO) 결과 배열로 재고 부족을 판단하지 않습니다.
+     * 재고가 부족해도 차감하므로 호출하는 쪽이 같은 트랜잭션에서 재고를 다시 읽고 음수인 행이 있으면 롤백해야 합니다.
+     */
+    @Override
+    public int[] minusStocksInBatch(Map<FlowerCargoId, Long> quantities) {
+        List<Map.Entry<FlowerCargoId, Long>> entries = new ArrayList<>(quantities.entrySet());
+        em.flush();
+        int[] updatedCounts = jdbcTemplate.batchUpdate(MINUS_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<FlowerCargoId, Long> entry = entries.get(i);
+                ps.setLong(1, entry.getValue());
+                ps.setLong(2, entry.getKey().getStoreId());
+                ps.setLong(3, entry.getKey().getFlowerId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+        em.clear();
+        return updatedCounts;
+    }
+}
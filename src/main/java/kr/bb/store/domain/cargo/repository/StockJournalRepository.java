@@ -0,0 +1,19 @@
+package kr.bb.store.domain.cargo.repository;
+
+import kr.bb.store.domain.cargo.entity.StockJournal;
+import kr.bb.store.domain.cargo.entity.StockOperation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface StockJournalRepository extends JpaRepository<StockJournal, Long> {
+    Optional<StockJournal> findFirstByStoreIdAndFlowerIdAndOperationOrderByIdDesc(Long storeId, Long flowerId,
+                                                                                  StockOperation operation);
+
+    @Query("select coalesce(sum(j.quantity), 0) from StockJournal j " +
+            "where j.storeId = :storeId and j.flowerId = :flowerId " +
+            "and j.operation <> kr.bb.store.domain.cargo.entity.StockOperation.SET and j.id > :id")
+    Long sumQuantityAfter(@Param("storeId") Long storeId, @Param("flowerId") Long flowerId, @Param("id") Long id);
+}
@@ -3,16 +3,27 @@ package kr.bb.store.domain.cargo.service;
 
 import bloomingblooms.domain.flower.FlowerDto;
 import bloomingblooms.domain.flower.StockChangeDto;
+import bloomingblooms.domain.flower.StockDto;
 import kr.bb.store.domain.cargo.controller.response.RemainingStocksResponse;
+import kr.bb.store.domain.cargo.controller.response.StockModifyResponse;
 import kr.bb.store.domain.cargo.dto.StockInfoDto;
 import kr.bb.store.domain.cargo.dto.StockModifyDto;
+import kr.bb.store.domain.cargo.dto.StockModifyResultDto;
 import kr.bb.store.domain.cargo.entity.FlowerCargo;
 import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.entity.StockJournal;
+import kr.bb.store.domain.cargo.entity.StockOperation;
 import kr.bb.store.domain.cargo.exception.FlowerCargoNotFoundException;
 import kr.bb.store.domain.cargo.exception.LockInterruptedException;
 import kr.bb.store.domain.cargo.exception.StockCannotBeNegativeException;
 import kr.bb.store.domain.cargo.exception.StockChangeFailedException;
+import kr.bb.store.domain.cargo.exception.StockReservationNotFoundException;
+import kr.bb.store.domain.cargo.handler.ShardedStockCounter;
+import kr.bb.store.domain.cargo.handler.StockLedger;
+import kr.bb.store.domain.cargo.handler.StockReservationStore;
+import kr.bb.store.domain.cargo.handler.StockSnapshotCache;
 import kr.bb.store.domain.cargo.repository.FlowerCargoRepository;
+import kr.bb.store.domain.cargo.repository.StockJournalRepository;
 import kr.bb.store.domain.store.entity.Store;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,14 +32,25 @@ import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static kr.bb.store.util.RedisUtils.makeRedissonKey;
+import static kr.bb.store.util.TransactionUtils.afterCommit;
+import static kr.bb.store.util.TransactionUtils.afterCompletion;
 
 @Slf4j
 @Service
@@ -36,6 +58,11 @@ import static kr.bb.store.util.RedisUtils.makeRedissonKey;
 public class CargoService {
     private final RedissonClient redissonClient;
     private final FlowerCargoRepository flowerCargoRepository;
+    private final StockLedger stockLedger;
+    private final StockReservationStore stockReservationStore;
+    private final StockJournalRepository stockJournalRepository;
+    private final ShardedStockCounter shardedStockCounter;
+    private final StockSnapshotCache stockSnapshotCache;
     private static final Long EMPTY_COUNT = 0L;
     private static final Long STOCK_ALERT_COUNT = 50L;
 
@@ -45,6 +72,9 @@ public class CargoService {
     @Value("${redisson.lock.lease-second}")
     private Integer leaseSecond;
 
+    @Value("${stock.change-mode:REDISSON_LOCK}")
+    private StockChangeMode stockChangeMode;
+
     @Transactional
     public void modifyAllStocks(Long storeId, List<StockModifyDto> stockModifyDtos) {
         stockModifyDtos.forEach(stockModifyDto -> {
@@ -53,6 +83,32 @@ public class CargoService {
             }
             flowerCargoRepository.modifyStock(storeId, stockModifyDto.getFlowerId(), stockModifyDto.getStock());
         });
+        afterCommit(() -> stockSnapshotCache.overwrite(toStocks(storeId, stockModifyDtos)));
+    }
+
+    // 음수 재고를 먼저 모두 검증한 뒤 한 번의 배치로 반영하고, 가게에 없는 꽃은 변경되지 않은 행으로 응답합니다
+    @Transactional
+    public StockModifyResponse modifyAllStocksInBatch(Long storeId, List<StockModifyDto> stockModifyDtos) {
+        boolean hasNegativeStock = stockModifyDtos.stream()
+                .anyMatch(stockModifyDto -> stockModifyDto.getStock() < EMPTY_COUNT);
+        if(hasNegativeStock) {
+            throw new StockCannotBeNegativeException();
+        }
+
+        int[] updatedCounts = flowerCargoRepository.modifyStocksInBatch(storeId, stockModifyDtos);
+        afterCommit(() -> stockSnapshotCache.overwrite(toStocks(storeId, stockModifyDtos)));
+        stockJournalRepository.saveAll(stockModifyDtos.stream()
+                .map(stockModifyDto -> createJournal(null, StockOperation.SET,
+                        makeId(storeId, stockModifyDto.getFlowerId()), stockModifyDto.getStock()))
+                .collect(Collectors.toList()));
+        Set<FlowerCargoId> existingIds = findExistingIfUnknown(storeId, stockModifyDtos, updatedCounts);
+        List<StockModifyResultDto> stockModifyResultDtos = IntStream.range(0, stockModifyDtos.size())
+                .mapToObj(idx -> StockModifyResultDto.of(stockModifyDtos.get(idx), isModified(updatedCounts[idx])
+                        || (isUnknown(updatedCounts[idx])
+                        && existingIds.contains(makeId(storeId, stockModifyDtos.get(idx).getFlowerId())))))
+                .collect(Collectors.toList());
+
+        return StockModifyResponse.from(stockModifyResultDtos);
     }
 
     @Transactional
@@ -132,6 +188,249 @@ public class CargoService {
                 .collect(Collectors.toSet());
     }
 
+    /*
+     * 주문에 포함된 모든 (가게, 꽃) 락을 정렬된 순서로 한번에 획득하고 커밋 이후에 일괄 해제합니다.
+     * 모든 주문이 같은 순서로 락을 잡기 때문에 서로 다른 순서로 같은 꽃을 주문해도 교착되지 않습니다.
+     */
+    @Transactional
+    public Set<Long> plusStockCountsWithMultiLock(List<StockChangeDto> stockChangeDtos) {
+        lockUntilTransactionEnds(stockChangeDtos);
+        return stockChangeDtos.stream()
+                .flatMap(stockChangeDto -> stockChangeDto.getStockDtos().stream()
+                        .map(stockDto -> {
+                            long storeId = stockChangeDto.getStoreId();
+                            long flowerId = stockDto.getFlowerId();
+                            long stockCount = stockDto.getStock();
+                            FlowerCargo flowerCargo = getFlowerCargo(storeId, flowerId);
+
+                            long afterPlusCount = flowerCargo.getStock() + stockCount;
+                            if (isOutOfStock(afterPlusCount)) {
+                                throw new StockCannotBeNegativeException();
+                            }
+
+                            flowerCargoRepository.plusStock(storeId, flowerId, stockCount);
+                            return isInsufficientCondition(afterPlusCount) ? storeId : null;
+                        })
+                )
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    @Transactional
+    public Set<Long> minusStockCountsWithMultiLock(List<StockChangeDto> stockChangeDtos) {
+        lockUntilTransactionEnds(stockChangeDtos);
+        return stockChangeDtos.stream()
+                .flatMap(stockChangeDto -> stockChangeDto.getStockDtos().stream()
+                        .map(stockDto -> {
+                            long storeId = stockChangeDto.getStoreId();
+                            long flowerId = stockDto.getFlowerId();
+                            long stockCount = stockDto.getStock();
+                            FlowerCargo flowerCargo = getFlowerCargo(storeId, flowerId);
+
+                            long afterMinusCount = flowerCargo.getStock() - stockCount;
+                            if (isOutOfStock(afterMinusCount)) {
+                                throw new StockCannotBeNegativeException();
+                            }
+
+                            flowerCargoRepository.minusStock(storeId, flowerId, stockCount);
+                            return isInsufficientCondition(afterMinusCount) ? storeId : null;
+                        })
+                )
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    /*
+     * 락과 사전 조회 없이 조건부 UPDATE로 재고를 변경합니다.
+     * 변경된 행이 없다면 재고가 음수가 되는 요청으로 판단합니다.
+     * MySQL은 UPDATE 결과로 값을 돌려주지 않기 때문에 변경 직후 재고를 조회하며, 이 시점에는 트랜잭션이 행 락을 잡고 있어 다른 요청의 값이 섞이지 않습니다.
+     */
+    @Transactional
+    public Set<Long> plusStockCountsConditionally(List<StockChangeDto> stockChangeDtos) {
+        return stockChangeDtos.stream()
+                .flatMap(stockChangeDto -> stockChangeDto.getStockDtos().stream()
+                        .map(stockDto -> {
+                            long storeId = stockChangeDto.getStoreId();
+                            long flowerId = stockDto.getFlowerId();
+                            int updatedCount = flowerCargoRepository.plusStockIfNotNegative(storeId, flowerId, stockDto.getStock());
+                            return getInsufficientStoreAfterUpdate(storeId, flowerId, updatedCount);
+                        })
+                )
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    @Transactional
+    public Set<Long> minusStockCountsConditionally(List<StockChangeDto> stockChangeDtos) {
+        return stockChangeDtos.stream()
+                .flatMap(stockChangeDto -> stockChangeDto.getStockDtos().stream()
+                        .map(stockDto -> {
+                            long storeId = stockChangeDto.getStoreId();
+                            long flowerId = stockDto.getFlowerId();
+                            int updatedCount = flowerCargoRepository.minusStockIfSufficient(storeId, flowerId, stockDto.getStock());
+                            return getInsufficientStoreAfterUpdate(storeId, flowerId, updatedCount);
+                        })
+                )
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    public Set<Long> plusStockCountsWithLedger(List<StockChangeDto> stockChangeDtos) {
+        return changeStockCountsWithLedger(stockChangeDtos, 1L);
+    }
+
+    public Set<Long> minusStockCountsWithLedger(List<StockChangeDto> stockChangeDtos) {
+        return changeStockCountsWithLedger(stockChangeDtos, -1L);
+    }
+
+    public Set<Long> plusShardedStockCounts(List<StockChangeDto> stockChangeDtos) {
+        return changeShardedStockCounts(stockChangeDtos, 1L);
+    }
+
+    public Set<Long> minusShardedStockCounts(List<StockChangeDto> stockChangeDtos) {
+        return changeShardedStockCounts(stockChangeDtos, -1L);
+    }
+
+    // 샤드로 운영하는 꽃을 제외한 주문 내역을 반환합니다
+    public List<StockChangeDto> withoutShardedStocks(List<StockChangeDto> stockChangeDtos) {
+        if (!shardedStockCounter.hasShardedStocks()) {
+            return stockChangeDtos;
+        }
+        return stockChangeDtos.stream()
+                .map(stockChangeDto -> {
+                    List<StockDto> stockDtos = stockChangeDto.getStockDtos().stream()
+                            .filter(stockDto -> !shardedStockCounter.isSharded(
+                                    makeId(stockChangeDto.getStoreId(), stockDto.getFlowerId())))
+                            .collect(Collectors.toList());
+                    return StockChangeDto.builder()
+                            .storeId(stockChangeDto.getStoreId())
+                            .userId(stockChangeDto.getUserId())
+                            .phoneNumber(stockChangeDto.getPhoneNumber())
+                            .stockDtos(stockDtos)
+                            .build();
+                })
+                .filter(stockChangeDto -> !stockChangeDto.getStockDtos().isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    public void overwriteShardedStocks(Long storeId, List<StockModifyDto> stockModifyDtos) {
+        stockModifyDtos.stream()
+                .filter(stockModifyDto -> shardedStockCounter.isSharded(makeId(storeId, stockModifyDto.getFlowerId())))
+                .forEach(stockModifyDto -> shardedStockCounter.overwrite(
+                        makeId(storeId, stockModifyDto.getFlowerId()), stockModifyDto.getStock()));
+    }
+
+    public void overwriteLedgerStocks(Long storeId, List<StockModifyDto> stockModifyDtos) {
+        stockLedger.overwrite(storeId, stockModifyDtos);
+    }
+
+    @Transactional
+    public void syncStocks(Map<FlowerCargoId, Long> stocks) {
+        stocks.forEach((flowerCargoId, stock) ->
+                flowerCargoRepository.modifyStock(flowerCargoId.getStoreId(), flowerCargoId.getFlowerId(), stock));
+    }
+
+    public Map<FlowerCargoId, Long> getStocks(Collection<FlowerCargoId> flowerCargoIds) {
+        if (flowerCargoIds.isEmpty()) return Map.of();
+        return flowerCargoRepository.findAllByIdIn(flowerCargoIds).stream()
+                .collect(Collectors.toMap(FlowerCargo::getId, FlowerCargo::getStock));
+    }
+
+    // 레인에서 합산한 변경량을 키마다 한 번의 UPDATE로 반영합니다
+    @Transactional
+    public void applyStockDeltas(Map<FlowerCargoId, Long> deltas) {
+        deltas.forEach((flowerCargoId, delta) -> {
+            int updatedCount = flowerCargoRepository.plusStockIfNotNegative(
+                    flowerCargoId.getStoreId(), flowerCargoId.getFlowerId(), delta);
+            if (updatedCount == 0) {
+                throw new StockCannotBeNegativeException();
+            }
+        });
+    }
+
+    /*
+     * 재고를 차감하지 않고 예약 수량만 레디스에 기록합니다.
+     * 결제가 실패하거나 예약이 만료되면 flower_cargo에 쓰기 없이 예약만 사라집니다.
+     */
+    public String reserveStocks(List<StockChangeDto> stockChangeDtos) {
+        Map<FlowerCargoId, Long> quantities = toDeltas(stockChangeDtos, 1L);
+        Map<FlowerCargoId, Long> stocks = getStocks(quantities.keySet());
+        if (stocks.size() != quantities.size()) {
+            throw new FlowerCargoNotFoundException();
+        }
+        return stockReservationStore.hold(quantities, stocks);
+    }
+
+    // 예약은 DB 차감이 커밋된 뒤에 지우고, 차감이 실패하거나 롤백되면 그대로 남겨 다시 확정할 수 있게 합니다
+    @Transactional
+    public Set<Long> confirmReservedStocks(String reservationId) {
+        Map<FlowerCargoId, Long> quantities = stockReservationStore.claim(reservationId);
+        if (quantities.isEmpty()) {
+            throw new StockReservationNotFoundException();
+        }
+        afterCompletion(() -> stockReservationStore.release(reservationId),
+                () -> stockReservationStore.unclaim(reservationId));
+
+        // 차감한 행은 커밋까지 잠겨 있으므로 다시 읽은 재고가 음수이거나 없는 행이 있으면 롤백합니다
+        flowerCargoRepository.minusStocksInBatch(quantities);
+        Map<FlowerCargoId, Long> stocks = getStocks(quantities.keySet());
+        boolean hasInsufficientStock = quantities.keySet().stream()
+                .anyMatch(flowerCargoId -> !stocks.containsKey(flowerCargoId) || isOutOfStock(stocks.get(flowerCargoId)));
+        if (hasInsufficientStock) {
+            throw new StockCannotBeNegativeException();
+        }
+        Map<FlowerCargoId, Long> deltas = toDeltas(quantities, -1L);
+        appendJournals(reservationId, StockOperation.MINUS, deltas);
+        afterCommit(() -> stockSnapshotCache.applyDeltas(deltas));
+
+        return stocks.entrySet().stream()
+                .filter(entry -> isInsufficientCondition(entry.getValue()))
+                .map(entry -> entry.getKey().getStoreId())
+                .collect(Collectors.toSet());
+    }
+
+    public void releaseReservedStocks(String reservationId) {
+        stockReservationStore.release(reservationId);
+    }
+
+    @Transactional
+    public void appendStockJournals(String orderId, StockOperation operation, List<StockChangeDto> stockChangeDtos) {
+        long sign = operation == StockOperation.MINUS ? -1L : 1L;
+        appendJournals(orderId, operation, toDeltas(stockChangeDtos, sign));
+    }
+
+    /*
+     * 꽃마다 마지막 SET 기록에 이후 변경량을 더해 재고를 다시 계산하고 DB에 덮어씁니다.
+     * 기록을 시작하기 전부터 있던 꽃은 SET 기록이 없어 기준 재고를 알 수 없으므로 덮어쓰지 않고 건너뜁니다.
+     */
+    @Transactional
+    public List<StockModifyDto> replayStocks(Long storeId) {
+        List<StockModifyDto> replayedStocks = flowerCargoRepository.findAllByStoreId(storeId).stream()
+                .map(flowerCargo -> {
+                    Long flowerId = flowerCargo.getId().getFlowerId();
+                    Optional<StockJournal> lastSet = stockJournalRepository
+                            .findFirstByStoreIdAndFlowerIdAndOperationOrderByIdDesc(storeId, flowerId, StockOperation.SET);
+                    if (lastSet.isEmpty()) {
+                        log.warn("stock of {}:{} not replayed without SET journal", storeId, flowerId);
+                        return null;
+                    }
+                    long stock = lastSet.get().getQuantity()
+                            + stockJournalRepository.sumQuantityAfter(storeId, flowerId, lastSet.get().getId());
+
+                    return StockModifyDto.builder()
+                            .flowerId(flowerId)
+                            .stock(stock)
+                            .build();
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        replayedStocks.forEach(stockModifyDto ->
+                flowerCargoRepository.modifyStock(storeId, stockModifyDto.getFlowerId(), stockModifyDto.getStock()));
+        afterCommit(() -> stockSnapshotCache.overwrite(toStocks(storeId, replayedStocks)));
+        return replayedStocks;
+    }
+
     @Transactional
     public void createBasicCargo(Store store, List<FlowerDto> flowers) {
         List<FlowerCargo> flowerCargos = flowers.stream()
@@ -143,17 +442,181 @@ public class CargoService {
                 )
                 .collect(Collectors.toList());
         flowerCargoRepository.saveAll(flowerCargos);
+        // 새 재고는 0에서 시작하므로 이를 SET 기록으로 남겨 이후 변경량만으로 다시 계산할 수 있게 합니다
+        stockJournalRepository.saveAll(flowerCargos.stream()
+                .map(flowerCargo -> createJournal(null, StockOperation.SET, flowerCargo.getId(), EMPTY_COUNT))
+                .collect(Collectors.toList()));
+        afterCommit(() -> stockSnapshotCache.evict(store.getId()));
+    }
+
+    public void applySnapshotChanges(List<StockChangeDto> stockChangeDtos, long sign) {
+        stockSnapshotCache.applyDeltas(toDeltas(stockChangeDtos, sign));
     }
 
+    // 결제 대기중인 예약 수량을 제외한 재고를 보여줍니다
     public RemainingStocksResponse getAllStocks(Long storeId) {
-        List<FlowerCargo> flowerCargos = flowerCargoRepository.findAllByStoreId(storeId);
-        List<StockInfoDto> stockInfoDtos = flowerCargos.stream()
-                .map(StockInfoDto::fromEntity)
+        List<StockInfoDto> snapshot = getStockSnapshot(storeId);
+        Map<FlowerCargoId, Long> heldCounts = stockReservationStore.getHeldCounts(snapshot.stream()
+                .map(stockInfoDto -> makeId(storeId, stockInfoDto.getFlowerId()))
+                .collect(Collectors.toList()));
+        List<StockInfoDto> stockInfoDtos = snapshot.stream()
+                .map(stockInfoDto -> {
+                    FlowerCargoId flowerCargoId = makeId(storeId, stockInfoDto.getFlowerId());
+                    long stock = getStock(flowerCargoId, stockInfoDto.getData().get(0));
+                    return StockInfoDto.of(stockInfoDto.getFlowerId(), stockInfoDto.getName(), stock - heldCounts.get(flowerCargoId));
+                })
                 .collect(Collectors.toList());
 
         return RemainingStocksResponse.from(stockInfoDtos);
     }
 
+    /*
+     * DB를 읽기 전의 스냅샷 버전을 함께 저장해, 그 사이 재고가 바뀌었다면 오래된 값이 캐시되지 않게 합니다.
+     * 레디스 장부 모드에서는 DB가 flush 주기만큼 늦을 수 있으므로 장부에 올라와 있는 꽃은 장부 값으로 채웁니다.
+     */
+    private List<StockInfoDto> getStockSnapshot(Long storeId) {
+        List<StockInfoDto> snapshot = stockSnapshotCache.get(storeId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        String version = stockSnapshotCache.getVersion(storeId);
+        List<StockInfoDto> stockInfoDtos = flowerCargoRepository.findAllByStoreId(storeId).stream()
+                .map(StockInfoDto::fromEntity)
+                .collect(Collectors.toList());
+        if (stockChangeMode == StockChangeMode.REDIS_LEDGER) {
+            stockInfoDtos = withLedgerStocks(storeId, stockInfoDtos);
+        }
+        stockSnapshotCache.put(storeId, version, stockInfoDtos);
+        return stockInfoDtos;
+    }
+
+    private List<StockInfoDto> withLedgerStocks(Long storeId, List<StockInfoDto> stockInfoDtos) {
+        Map<FlowerCargoId, Long> ledgerStocks = stockLedger.getStocks(stockInfoDtos.stream()
+                .map(stockInfoDto -> makeId(storeId, stockInfoDto.getFlowerId()))
+                .collect(Collectors.toList()));
+        return stockInfoDtos.stream()
+                .map(stockInfoDto -> {
+                    Long ledgerStock = ledgerStocks.get(makeId(storeId, stockInfoDto.getFlowerId()));
+                    return ledgerStock == null ? stockInfoDto
+                            : StockInfoDto.of(stockInfoDto.getFlowerId(), stockInfoDto.getName(), ledgerStock);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Map<FlowerCargoId, Long> toStocks(Long storeId, List<StockModifyDto> stockModifyDtos) {
+        return stockModifyDtos.stream()
+                .collect(Collectors.toMap(stockModifyDto -> makeId(storeId, stockModifyDto.getFlowerId()),
+                        StockModifyDto::getStock, (before, after) -> after, LinkedHashMap::new));
+    }
+
+    private void lockUntilTransactionEnds(List<StockChangeDto> stockChangeDtos) {
+        RLock[] locks = stockChangeDtos.stream()
+                .flatMap(stockChangeDto -> stockChangeDto.getStockDtos().stream()
+                        .map(stockDto -> makeRedissonKey(stockChangeDto.getStoreId(), stockDto.getFlowerId())))
+                .distinct()
+                .sorted()
+                .map(redissonClient::getLock)
+                .toArray(RLock[]::new);
+        RLock multiLock = redissonClient.getMultiLock(locks);
+
+        try {
+            // 커밋 전에 임대시간이 끝나지 않도록 leaseTime 없이 획득해 watchdog이 연장하게 합니다
+            boolean available = multiLock.tryLock(waitSecond, TimeUnit.SECONDS);
+            if (!available) {
+                throw new StockChangeFailedException();
+            }
+        } catch (InterruptedException e) {
+            throw new LockInterruptedException();
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                multiLock.unlock();
+            }
+        });
+    }
+
+    private Long getInsufficientStoreAfterUpdate(long storeId, long flowerId, int updatedCount) {
+        if (updatedCount == 0) {
+            throw new StockCannotBeNegativeException();
+        }
+        Long afterChangeCount = flowerCargoRepository.findStock(storeId, flowerId);
+        return isInsufficientCondition(afterChangeCount) ? storeId : null;
+    }
+
+    private Set<Long> changeStockCountsWithLedger(List<StockChangeDto> stockChangeDtos, long sign) {
+        return stockLedger.change(toDeltas(stockChangeDtos, sign)).entrySet().stream()
+                .filter(entry -> isInsufficientCondition(entry.getValue()))
+                .map(entry -> entry.getKey().getStoreId())
+                .collect(Collectors.toSet());
+    }
+
+    private Set<Long> changeShardedStockCounts(List<StockChangeDto> stockChangeDtos, long sign) {
+        if (!shardedStockCounter.hasShardedStocks()) {
+            return Set.of();
+        }
+
+        Map<FlowerCargoId, Long> applied = new LinkedHashMap<>();
+        Set<Long> insufficientStores = new HashSet<>();
+        try {
+            toDeltas(stockChangeDtos, sign).forEach((flowerCargoId, delta) -> {
+                if (!shardedStockCounter.isSharded(flowerCargoId)) return;
+
+                long afterChangeCount = shardedStockCounter.change(flowerCargoId, delta);
+                applied.put(flowerCargoId, delta);
+                if (isInsufficientCondition(afterChangeCount)) {
+                    insufficientStores.add(flowerCargoId.getStoreId());
+                }
+            });
+        } catch (RuntimeException e) {
+            applied.forEach((flowerCargoId, delta) -> shardedStockCounter.change(flowerCargoId, -delta));
+            throw e;
+        }
+        return insufficientStores;
+    }
+
+    private void appendJournals(String orderId, StockOperation operation, Map<FlowerCargoId, Long> deltas) {
+        stockJournalRepository.saveAll(deltas.entrySet().stream()
+                .map(entry -> createJournal(orderId, operation, entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList()));
+    }
+
+    private StockJournal createJournal(String orderId, StockOperation operation, FlowerCargoId flowerCargoId, Long quantity) {
+        return StockJournal.builder()
+                .orderId(orderId)
+                .operation(operation)
+                .storeId(flowerCargoId.getStoreId())
+                .flowerId(flowerCargoId.getFlowerId())
+                .quantity(quantity)
+                .build();
+    }
+
+    private Map<FlowerCargoId, Long> toDeltas(Map<FlowerCargoId, Long> quantities, long sign) {
+        return quantities.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> sign * entry.getValue(), Long::sum, LinkedHashMap::new));
+    }
+
+    private Map<FlowerCargoId, Long> toDeltas(List<StockChangeDto> stockChangeDtos, long sign) {
+        return stockChangeDtos.stream()
+                .flatMap(stockChangeDto -> stockChangeDto.getStockDtos().stream()
+                        .map(stockDto -> Map.entry(
+                                makeId(stockChangeDto.getStoreId(), stockDto.getFlowerId()),
+                                sign * stockDto.getStock()
+                        )))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, Long::sum, LinkedHashMap::new));
+    }
+
+    // 샤드로 운영하는 꽃은 DB 반영이 늦을 수 있어 샤드 합계를 우선합니다
+    private Long getStock(FlowerCargoId flowerCargoId, Long stock) {
+        if (!shardedStockCounter.isSharded(flowerCargoId)) {
+            return stock;
+        }
+        Long shardedStock = shardedStockCounter.getStock(flowerCargoId);
+        return shardedStock == null ? stock : shardedStock;
+    }
+
     private FlowerCargo getFlowerCargo(Long storeId, Long flowerId) {
         FlowerCargoId flowerCargoId = makeId(storeId, flowerId);
         return flowerCargoRepository.findById(flowerCargoId)
@@ -168,6 +631,24 @@ public class CargoService {
     }
 
 
+    private boolean isModified(int updatedCount) {
+        return updatedCount > 0;
+    }
+
+    // 드라이버가 배치의 행 수를 알려주지 않은 결과로, 변경되었는지 알 수 없습니다
+    private boolean isUnknown(int updatedCount) {
+        return updatedCount == Statement.SUCCESS_NO_INFO;
+    }
+
+    // 재고를 덮어쓰는 배치는 행이 있으면 변경되므로 결과를 알 수 없는 행만 한 번의 IN 쿼리로 존재를 확인합니다
+    private Set<FlowerCargoId> findExistingIfUnknown(Long storeId, List<StockModifyDto> stockModifyDtos, int[] updatedCounts) {
+        Set<FlowerCargoId> unknownIds = IntStream.range(0, stockModifyDtos.size())
+                .filter(idx -> isUnknown(updatedCounts[idx]))
+                .mapToObj(idx -> makeId(storeId, stockModifyDtos.get(idx).getFlowerId()))
+                .collect(Collectors.toSet());
+        return getStocks(unknownIds).keySet();
+    }
+
     private boolean isOutOfStock(long afterChangeCount) {
         return afterChangeCount < EMPTY_COUNT;
     }
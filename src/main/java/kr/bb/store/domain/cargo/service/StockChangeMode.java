@@ -0,0 +1,9 @@
+package kr.bb.store.domain.cargo.service;
+
+public enum StockChangeMode {
+    REDISSON_LOCK,
+    REDIS_LEDGER,
+    CONDITIONAL_UPDATE,
+    MULTI_LOCK,
+    LANE;
+}
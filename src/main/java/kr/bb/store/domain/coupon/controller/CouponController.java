@@ -6,6 +6,7 @@ import kr.bb.store.domain.coupon.controller.request.CouponEditRequest;
 import kr.bb.store.domain.coupon.controller.request.TotalAmountRequest;
 import kr.bb.store.domain.coupon.controller.request.UserInfoRequest;
 import kr.bb.store.domain.coupon.controller.response.CouponIssuerResponse;
+import kr.bb.store.domain.coupon.controller.response.CouponQueueResponse;
 import kr.bb.store.domain.coupon.controller.response.CouponsForOwnerResponse;
 import kr.bb.store.domain.coupon.controller.response.CouponsForUserResponse;
 import kr.bb.store.domain.coupon.facade.CouponFacade;
@@ -49,6 +50,20 @@ public class CouponController {
         couponFacade.downloadCoupon(userId, couponId, userInfoRequest.getNickname(), userInfoRequest.getPhoneNumber(), LocalDate.now());
     }
 
+    @PostMapping("/coupons/{couponId}/queue")
+    public CommonResponse<CouponQueueResponse> enterCouponQueue(@PathVariable Long couponId,
+            @RequestHeader(value = "userId") Long userId,
+            @RequestBody UserInfoRequest userInfoRequest) {
+        return CommonResponse.success(couponFacade.enterCouponQueue(userId, couponId,
+                userInfoRequest.getNickname(), userInfoRequest.getPhoneNumber()));
+    }
+
+    @GetMapping("/coupons/{couponId}/queue")
+    public CommonResponse<CouponQueueResponse> couponQueueStatus(@PathVariable Long couponId,
+            @RequestHeader(value = "userId") Long userId) {
+        return CommonResponse.success(couponFacade.getCouponQueueStatus(userId, couponId));
+    }
+
     @PostMapping("/{storeId}/coupons/all")
     public void downloadAllCoupons(@PathVariable Long storeId,
                                    @RequestHeader(value = "userId") Long userId,
@@ -79,4 +94,11 @@ public class CouponController {
             @PathVariable Long couponId, Pageable pageable) {
         return CommonResponse.success(couponFacade.getCouponMembers(userId, couponId, pageable));
     }
+
+    @GetMapping("/coupons/{couponId}/members/cursor")
+    public CommonResponse<CouponIssuerResponse> couponMembersByCursor(@RequestHeader(value = "userId") Long userId,
+            @PathVariable Long couponId, @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return CommonResponse.success(couponFacade.getCouponMembersByCursor(userId, couponId, cursor, size));
+    }
 }
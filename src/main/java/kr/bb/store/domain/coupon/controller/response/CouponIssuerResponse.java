@@ -15,6 +15,7 @@ import java.util.List;
 public class CouponIssuerResponse {
     private List<IssuedCouponDto> data;
     private Long totalCnt;
+    private String nextCursor;
 
     public static CouponIssuerResponse of(List<IssuedCouponDto> data, Long totalCnt) {
         return CouponIssuerResponse.builder()
@@ -22,4 +23,12 @@ public class CouponIssuerResponse {
                 .totalCnt(totalCnt)
                 .build();
     }
+
+    public static CouponIssuerResponse of(List<IssuedCouponDto> data, Long totalCnt, String nextCursor) {
+        return CouponIssuerResponse.builder()
+                .data(data)
+                .totalCnt(totalCnt)
+                .nextCursor(nextCursor)
+                .build();
+    }
 }
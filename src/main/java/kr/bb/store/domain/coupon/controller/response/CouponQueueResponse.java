@@ -0,0 +1,29 @@
+package kr.bb.store.domain.coupon.controller.response;
+
+import kr.bb.store.domain.coupon.dto.CouponQueueStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponQueueResponse {
+    private CouponQueueStatus status;
+    private Long position;
+
+    public static CouponQueueResponse waiting(Long position) {
+        return CouponQueueResponse.builder()
+                .status(CouponQueueStatus.WAITING)
+                .position(position)
+                .build();
+    }
+
+    public static CouponQueueResponse of(CouponQueueStatus status) {
+        return CouponQueueResponse.builder()
+                .status(status)
+                .build();
+    }
+}
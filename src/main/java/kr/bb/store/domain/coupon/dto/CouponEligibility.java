@@ -0,0 +1,61 @@
+package kr.bb.store.domain.coupon.dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * 유저가 가진 미사용 쿠폰을 최소사용금액 순으로 정렬해 둔 구조입니다.
+ * 주문금액이 바뀔 때마다 이진 탐색으로 사용 가능한 쿠폰의 경계만 다시 찾고 DB는 거치지 않습니다.
+ */
+public class CouponEligibility {
+    private static final Comparator<CouponDto> BY_MIN_PRICE = Comparator.comparing(CouponDto::getMinPrice)
+            .thenComparing(CouponDto::getCouponId);
+    private static final Comparator<CouponDto> BY_DISCOUNT = Comparator.comparing(CouponDto::getDiscountPrice).reversed()
+            .thenComparing(BY_MIN_PRICE);
+
+    private final CouponDto[] byMinPrice;
+    private final long[] minPrices;
+    private final CouponDto[] byDiscount;
+
+    private CouponEligibility(CouponDto[] byMinPrice, CouponDto[] byDiscount) {
+        this.byMinPrice = byMinPrice;
+        this.byDiscount = byDiscount;
+        this.minPrices = Arrays.stream(byMinPrice).mapToLong(CouponDto::getMinPrice).toArray();
+    }
+
+    public static CouponEligibility of(List<? extends CouponDto> coupons) {
+        CouponDto[] byMinPrice = coupons.toArray(CouponDto[]::new);
+        CouponDto[] byDiscount = byMinPrice.clone();
+        Arrays.sort(byMinPrice, BY_MIN_PRICE);
+        Arrays.sort(byDiscount, BY_DISCOUNT);
+        return new CouponEligibility(byMinPrice, byDiscount);
+    }
+
+    // 최소사용금액이 주문금액 이하인 쿠폰 수입니다
+    public int countAvailable(long totalAmount) {
+        int low = 0;
+        int high = minPrices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (minPrices[mid] <= totalAmount) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // 사용 가능한 쿠폰을 할인금액이 큰 순으로 먼저 두고, 사용할 수 없는 쿠폰은 최소사용금액 순으로 뒤에 둡니다
+    public List<CouponWithAvailabilityDto> rank(long totalAmount) {
+        int available = countAvailable(totalAmount);
+        List<CouponWithAvailabilityDto> ranked = new ArrayList<>(byMinPrice.length);
+        for (CouponDto coupon : byDiscount) {
+            if (coupon.getMinPrice() <= totalAmount) ranked.add(CouponWithAvailabilityDto.of(coupon, totalAmount));
+            if (ranked.size() == available) break;
+        }
+        for (int i = available; i < byMinPrice.length; i++) {
+            ranked.add(CouponWithAvailabilityDto.of(byMinPrice[i], totalAmount));
+        }
+        return ranked;
+    }
+}
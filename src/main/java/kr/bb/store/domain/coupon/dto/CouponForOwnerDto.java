@@ -33,4 +33,8 @@ public class CouponForOwnerDto {
         this.startDate = startDate;
         this.endDate = endDate;
     }
+
+    public void applyIssuedCount(long issuedCount) {
+        this.unusedCount = limitCount - Math.toIntExact(issuedCount);
+    }
 }
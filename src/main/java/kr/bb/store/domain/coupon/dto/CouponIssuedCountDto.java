@@ -0,0 +1,6 @@
+package kr.bb.store.domain.coupon.dto;
+
+public interface CouponIssuedCountDto {
+    Long getCouponId();
+    Long getIssuedCount();
+}
@@ -0,0 +1,42 @@
+package kr.bb.store.domain.coupon.dto;
+
+import kr.bb.store.domain.coupon.entity.IssuedCoupon;
+import kr.bb.store.domain.coupon.exception.InvalidCouponCursorException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/*
+ * 쿠폰 발급자 목록에서 마지막으로 읽은 (발급 시각, 유저 id)입니다.
+ * 클라이언트에는 내용을 알 수 없는 문자열로 전달하고 다음 요청에서 그대로 돌려받습니다.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class CouponMemberCursor {
+    private static final String DELIMITER = "_";
+
+    private final LocalDateTime createdAt;
+    private final Long userId;
+
+    public static CouponMemberCursor from(IssuedCoupon issuedCoupon) {
+        return new CouponMemberCursor(issuedCoupon.getCreatedAt(), issuedCoupon.getId().getUserId());
+    }
+
+    public static CouponMemberCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(DELIMITER);
+            return new CouponMemberCursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new InvalidCouponCursorException();
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + DELIMITER + userId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
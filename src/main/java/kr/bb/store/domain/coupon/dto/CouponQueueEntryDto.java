@@ -0,0 +1,16 @@
+package kr.bb.store.domain.coupon.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponQueueEntryDto {
+    private Long userId;
+    private String nickname;
+    private String phoneNumber;
+}
@@ -0,0 +1,5 @@
+package kr.bb.store.domain.coupon.dto;
+
+public enum CouponQueueStatus {
+    WAITING, ISSUED, ALREADY_ISSUED, SOLD_OUT, UNAVAILABLE, FAILED, NOT_QUEUED
+}
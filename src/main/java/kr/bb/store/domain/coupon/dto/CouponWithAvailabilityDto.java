@@ -16,4 +16,10 @@ public class CouponWithAvailabilityDto extends CouponDto {
         super(couponId, couponName, storeName, discountPrice, endDate, minPrice);
         this.isAvailable = isAvailable;
     }
+
+    public static CouponWithAvailabilityDto of(CouponDto couponDto, Long totalAmount) {
+        return new CouponWithAvailabilityDto(couponDto.getCouponId(), couponDto.getCouponName(), couponDto.getStoreName(),
+                couponDto.getDiscountPrice(), couponDto.getEndDate(), couponDto.getMinPrice(),
+                couponDto.getMinPrice() <= totalAmount);
+    }
 }
@@ -16,4 +16,9 @@ public class CouponWithIssueStatusDto extends CouponDto {
         super(couponId, couponName, storeName, discountPrice, endDate, minPrice);
         this.isIssued = isIssued;
     }
+
+    public static CouponWithIssueStatusDto of(CouponDto couponDto, Boolean isIssued) {
+        return new CouponWithIssueStatusDto(couponDto.getCouponId(), couponDto.getCouponName(), couponDto.getStoreName(),
+                couponDto.getDiscountPrice(), couponDto.getEndDate(), couponDto.getMinPrice(), isIssued);
+    }
 }
@@ -0,0 +1,20 @@
+package kr.bb.store.domain.coupon.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IssuedCouponInsertDto {
+    private Long couponId;
+    private Long userId;
+    private String nickname;
+    private String phoneNumber;
+    private LocalDateTime issuedAt;
+}
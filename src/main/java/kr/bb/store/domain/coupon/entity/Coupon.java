@@ -60,6 +60,21 @@ public class Coupon extends BaseEntity {
         this.endDate = endDate;
     }
 
+    // 드롭 전에 레디스에 올려 둔 메타데이터로 만드는 조회 전용 쿠폰입니다. 이미 시작한 쿠폰도 만들 수 있도록 날짜 검증을 하지 않습니다
+    public static Coupon prepared(Long id, String couponCode, Integer limitCount, String couponName, Long discountPrice,
+                                  Long minPrice, LocalDate startDate, LocalDate endDate) {
+        Coupon coupon = new Coupon();
+        coupon.id = id;
+        coupon.couponCode = couponCode;
+        coupon.limitCount = limitCount;
+        coupon.couponName = couponName;
+        coupon.discountPrice = discountPrice;
+        coupon.minPrice = minPrice;
+        coupon.startDate = startDate;
+        coupon.endDate = endDate;
+        return coupon;
+    }
+
     public void update(Integer limitCount, String couponName, Long discountPrice, Long minPrice,
                        LocalDate startDate, LocalDate endDate) {
         dateValidationCheck(startDate, endDate);
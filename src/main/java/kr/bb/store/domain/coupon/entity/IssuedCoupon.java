@@ -12,6 +12,7 @@ import java.time.LocalDate;
 
 @Entity
 @Getter
+@Table(indexes = @Index(name = "idx_issued_coupon_created", columnList = "coupon_id, created_at, user_id"))
 @Builder
 @DynamicInsert
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -34,9 +35,13 @@ public class IssuedCoupon extends BaseEntity {
     private Boolean isUsed = false;
 
     public void use(LocalDate now) {
+        validateUsable(now);
+        isUsed = true;
+    }
+
+    public void validateUsable(LocalDate now) {
         if(isUsed) throw new AlreadyUsedCouponException();
         if(coupon.isExpired(now)) throw new ExpiredCouponException();
-        isUsed = true;
     }
 
     public void unUse() {
@@ -1,11 +1,22 @@
 package kr.bb.store.domain.coupon.exception;
 
 import kr.bb.store.exception.CustomException;
+import lombok.Getter;
 
+import java.util.List;
+
+@Getter
 public class CouponInconsistencyException extends CustomException {
     private static final String MESSAGE = "해당 요청은 실제 쿠폰 정보와 일치하지 않습니다.";
 
+    private final List<Long> couponIds;
+
     public CouponInconsistencyException() {
+        this(List.of());
+    }
+
+    public CouponInconsistencyException(List<Long> couponIds) {
         super(MESSAGE);
+        this.couponIds = couponIds;
     }
 }
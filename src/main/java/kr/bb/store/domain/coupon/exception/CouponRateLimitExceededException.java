@@ -0,0 +1,11 @@
+package kr.bb.store.domain.coupon.exception;
+
+import kr.bb.store.exception.CustomException;
+
+public class CouponRateLimitExceededException extends CustomException {
+    private static final String MESSAGE = "쿠폰 요청이 너무 많습니다. 잠시 후 다시 시도해주세요.";
+
+    public CouponRateLimitExceededException() {
+        super(MESSAGE);
+    }
+}
@@ -0,0 +1,11 @@
+package kr.bb.store.domain.coupon.exception;
+
+import kr.bb.store.exception.CustomException;
+
+public class InvalidCouponCursorException extends CustomException {
+    private static final String MESSAGE = "올바르지 않은 조회 위치입니다.";
+
+    public InvalidCouponCursorException() {
+        super(MESSAGE);
+    }
+}
@@ -6,8 +6,11 @@ import kr.bb.store.domain.coupon.controller.request.CouponCreateRequest;
 import kr.bb.store.domain.coupon.controller.request.CouponEditRequest;
 import kr.bb.store.domain.coupon.controller.request.TotalAmountRequest;
 import kr.bb.store.domain.coupon.controller.response.CouponIssuerResponse;
+import kr.bb.store.domain.coupon.controller.response.CouponQueueResponse;
 import kr.bb.store.domain.coupon.controller.response.CouponsForOwnerResponse;
 import kr.bb.store.domain.coupon.controller.response.CouponsForUserResponse;
+import kr.bb.store.domain.coupon.handler.CouponNegativeCache;
+import kr.bb.store.domain.coupon.handler.CouponRateLimiter;
 import kr.bb.store.domain.coupon.service.CouponService;
 import kr.bb.store.message.OrderStatusSQSPublisher;
 import kr.bb.store.util.KafkaProcessor;
@@ -24,6 +27,8 @@ import java.time.LocalDate;
 @RequiredArgsConstructor
 public class CouponFacade {
     private final CouponService couponService;
+    private final CouponNegativeCache couponNegativeCache;
+    private final CouponRateLimiter couponRateLimiter;
     private final OrderStatusSQSPublisher orderStatusSQSPublisher;
     private final KafkaProcessor<ProcessOrderDto> stockDecreaseKafkaProducer;
 
@@ -52,12 +57,15 @@ public class CouponFacade {
         couponService.createCoupon(storeId, couponCreateRequest);
     }
 
+    // 수량이나 기간이 바뀌면 다시 발급할 수 있으므로 수정이 커밋된 뒤 거절 캐시에서 제거합니다
     public void editCoupon(Long storeId, Long couponId, CouponEditRequest couponEditRequest) {
         couponService.editCoupon(storeId, couponId, couponEditRequest);
+        couponNegativeCache.evict(couponId);
     }
 
     public void softDeleteCoupon(Long storeId, Long couponId) {
         couponService.softDeleteCoupon(storeId, couponId);
+        couponNegativeCache.put(couponId, CouponNegativeCache.Reason.DELETED);
     }
 
     public CouponsForOwnerResponse getAllStoreCoupons(Long storeId) {
@@ -65,14 +73,28 @@ public class CouponFacade {
         return CouponsForOwnerResponse.from(couponService.getAllStoreCoupons(storeId, now));
     }
 
+    // 트랜잭션을 열기 전에 거절 캐시와 요청 한도를 확인해야 소진된 쿠폰 요청과 반복 요청이 커넥션을 잡지 않습니다
+    // 거절 캐시는 서버 메모리만 보므로 레디스를 거치는 요청 한도보다 먼저 확인합니다
     public void downloadCoupon(Long userId, Long couponId, String nickname, String phoneNumber, LocalDate now) {
+        couponNegativeCache.check(couponId);
+        couponRateLimiter.checkCoupon(userId, couponId);
         couponService.downloadCoupon(userId, couponId, nickname, phoneNumber, now);
     }
 
     public void downloadAllCoupons(Long userId, Long storeId, String nickname, String phoneNumber, LocalDate now) {
+        couponRateLimiter.checkStore(userId, storeId);
         couponService.downloadAllCoupons(userId, storeId, nickname, phoneNumber, now);
     }
 
+    public CouponQueueResponse enterCouponQueue(Long userId, Long couponId, String nickname, String phoneNumber) {
+        couponRateLimiter.checkQueue(userId, couponId);
+        return couponService.enterCouponQueue(userId, couponId, nickname, phoneNumber);
+    }
+
+    public CouponQueueResponse getCouponQueueStatus(Long userId, Long couponId) {
+        return couponService.getCouponQueueStatus(userId, couponId);
+    }
+
     public CouponsForUserResponse getAllStoreCouponsForUser(Long userId, Long storeId) {
         LocalDate now = LocalDate.now();
         return CouponsForUserResponse.from(couponService.getAllStoreCouponsForUser(userId, storeId, now));
@@ -93,4 +115,8 @@ public class CouponFacade {
         return couponService.getCouponMembers(userId, couponId, pageable);
     }
 
+    public CouponIssuerResponse getCouponMembersByCursor(Long userId, Long couponId, String cursor, int size) {
+        return couponService.getCouponMembersByCursor(userId, couponId, cursor, size);
+    }
+
 }
\ No newline at end of file
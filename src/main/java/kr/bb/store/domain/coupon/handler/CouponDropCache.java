@@ -0,0 +1,191 @@
+package kr.bb.store.domain.coupon.handler;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static kr.bb.store.util.RedisUtils.COUPON_DROP_CHANNEL;
+import static kr.bb.store.util.RedisUtils.COUPON_DROP_PREPARED_KEY;
+import static kr.bb.store.util.RedisUtils.COUPON_DROP_VERSION_KEY;
+import static kr.bb.store.util.RedisUtils.makeCouponDropKey;
+import static kr.bb.store.util.luascript.RedisScripts.COUPON_DROP_PREPARE;
+
+/*
+ * 시작일이 다가온 쿠폰의 메타데이터를 레디스 hash와 서버 메모리에 미리 올려 두어 드롭 순간의 다운로드가 쿠폰을 DB에서 읽지 않게 합니다.
+ * 레디스 hash는 ready 플래그가 세워진 뒤에만 읽으며, 메모리에 없는 서버는 레디스에서 한 번 읽어 채웁니다.
+ * ready는 메타데이터가 모두 쓰였다는 뜻일 뿐 드롭 시작이 아니며, 시작일 lookahead-day 전부터 세워집니다.
+ * 시작일 전 발급을 막는 것은 DB에서 읽은 쿠폰과 마찬가지로 발급하는 쪽의 몫입니다.
+ * 쿠폰이 수정되거나 삭제되면 드롭 버전을 올리고 레디스 항목을 지운 뒤 pub/sub으로 모든 서버의 메모리 항목을 지웁니다.
+ * 버전을 올리기 전에 읽은 쿠폰은 레디스와 메모리에 쓰지 않으므로 지운 뒤에 늦게 도착한 준비가 이전 값을 되살리지 않습니다.
+ * 지우지 못한 항목은 준비한 쿠폰 id 집합에 남아 CouponDropScheduler가 다음 주기에 다시 지웁니다.
+ */
+@Slf4j
+@Component
+public class CouponDropCache implements ApplicationRunner {
+    private static final String READY = "1";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedissonClient redissonClient;
+    private final CouponMembership couponMembership;
+    private final Cache<Long, Coupon> localCoupons;
+    private final Map<Long, Long> localVersions = new ConcurrentHashMap<>();
+    private final boolean enabled;
+
+    public CouponDropCache(RedisTemplate<String, String> redisTemplate, RedissonClient redissonClient,
+                           CouponMembership couponMembership,
+                           @Value("${coupon.drop.enabled:true}") boolean enabled,
+                           @Value("${coupon.drop.local-ttl-second:600}") long localTtlSecond,
+                           @Value("${coupon.drop.local-max-size:10000}") long localMaxSize) {
+        this.redisTemplate = redisTemplate;
+        this.redissonClient = redissonClient;
+        this.couponMembership = couponMembership;
+        this.enabled = enabled;
+        this.localCoupons = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(localTtlSecond))
+                .maximumSize(localMaxSize)
+                .build();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        try {
+            redissonClient.getTopic(COUPON_DROP_CHANNEL, StringCodec.INSTANCE)
+                    .addListener(String.class, (channel, couponId) -> evictLocally(Long.valueOf(couponId)));
+        } catch (Exception e) {
+            log.warn("coupon drop cache not subscribed with cause of {}", e.getMessage());
+        }
+    }
+
+    // 쿠폰을 읽기 전에 받아 두었다가 prepare에 넘깁니다
+    public String version() {
+        String version = redisTemplate.opsForValue().get(COUPON_DROP_VERSION_KEY);
+        return version == null ? "0" : version;
+    }
+
+    public boolean prepare(Coupon coupon) {
+        return prepare(coupon, version());
+    }
+
+    // 발급 키가 없으면 먼저 만들고, 메타데이터와 ready 플래그는 한 번의 스크립트로 씁니다
+    public boolean prepare(Coupon coupon, String version) {
+        long localVersion = localVersions.getOrDefault(coupon.getId(), 0L);
+        LocalDate expirationDate = coupon.getEndDate().plusDays(1);
+        couponMembership.register(coupon, expirationDate);
+
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(expirationDate.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        args.add(String.valueOf(coupon.getId()));
+        args.add(version);
+        args.addAll(List.of(
+                "couponCode", coupon.getCouponCode(),
+                "limitCount", String.valueOf(coupon.getLimitCount()),
+                "couponName", coupon.getCouponName(),
+                "discountPrice", String.valueOf(coupon.getDiscountPrice()),
+                "minPrice", String.valueOf(coupon.getMinPrice()),
+                "startDate", coupon.getStartDate().toString(),
+                "endDate", coupon.getEndDate().toString()));
+        Long prepared = redisTemplate.execute(COUPON_DROP_PREPARE,
+                List.of(makeCouponDropKey(coupon.getId()), COUPON_DROP_PREPARED_KEY, COUPON_DROP_VERSION_KEY),
+                args.toArray());
+        if (prepared == null || prepared == 0L) return false;
+
+        putLocally(coupon.getId(), toPrepared(coupon), localVersion);
+        return true;
+    }
+
+    // 준비되지 않은 쿠폰이거나 레디스를 읽지 못하면 null을 반환해 DB에서 읽게 합니다
+    public Coupon find(Long couponId) {
+        if (!enabled) return null;
+        Coupon coupon = localCoupons.getIfPresent(couponId);
+        if (coupon != null) return coupon;
+
+        long localVersion = localVersions.getOrDefault(couponId, 0L);
+        try {
+            Map<Object, Object> metadata = redisTemplate.opsForHash().entries(makeCouponDropKey(couponId));
+            if (!READY.equals(metadata.get("ready"))) return null;
+            coupon = toCoupon(couponId, metadata);
+            putLocally(couponId, coupon, localVersion);
+            return coupon;
+        } catch (Exception e) {
+            log.warn("coupon {} not read from drop cache with cause of {}", couponId, e.getMessage());
+            return null;
+        }
+    }
+
+    public void evict(Long couponId) {
+        if (!enabled) return;
+        evictLocally(couponId);
+        try {
+            redisTemplate.opsForValue().increment(COUPON_DROP_VERSION_KEY);
+            redisTemplate.delete(makeCouponDropKey(couponId));
+            redisTemplate.opsForSet().remove(COUPON_DROP_PREPARED_KEY, String.valueOf(couponId));
+            redissonClient.getTopic(COUPON_DROP_CHANNEL, StringCodec.INSTANCE).publish(String.valueOf(couponId));
+        } catch (Exception e) {
+            log.warn("coupon {} not evicted from drop cache with cause of {}", couponId, e.getMessage());
+        }
+    }
+
+    public Set<Long> getPreparedCouponIds() {
+        if (!enabled) return Set.of();
+        Set<String> members = redisTemplate.opsForSet().members(COUPON_DROP_PREPARED_KEY);
+        if (members == null) return Set.of();
+        return members.stream()
+                .map(Long::valueOf)
+                .collect(Collectors.toSet());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 값을 읽은 뒤 이 서버에서 지워졌다면 메모리에 넣지 않습니다
+    private void putLocally(Long couponId, Coupon coupon, long localVersion) {
+        localVersions.compute(couponId, (id, current) -> {
+            if (current == null || current == localVersion) localCoupons.put(id, coupon);
+            return current;
+        });
+    }
+
+    private void evictLocally(Long couponId) {
+        localVersions.compute(couponId, (id, current) -> {
+            localCoupons.invalidate(id);
+            return current == null ? 1L : current + 1;
+        });
+    }
+
+    // 영속성 컨텍스트 밖에서 여러 요청이 함께 읽으므로 엔티티 대신 값만 담은 쿠폰을 저장합니다
+    private Coupon toPrepared(Coupon coupon) {
+        return Coupon.prepared(coupon.getId(), coupon.getCouponCode(), coupon.getLimitCount(), coupon.getCouponName(),
+                coupon.getDiscountPrice(), coupon.getMinPrice(), coupon.getStartDate(), coupon.getEndDate());
+    }
+
+    private Coupon toCoupon(Long couponId, Map<Object, Object> metadata) {
+        return Coupon.prepared(couponId,
+                metadata.get("couponCode").toString(),
+                Integer.valueOf(metadata.get("limitCount").toString()),
+                metadata.get("couponName").toString(),
+                Long.valueOf(metadata.get("discountPrice").toString()),
+                Long.valueOf(metadata.get("minPrice").toString()),
+                LocalDate.parse(metadata.get("startDate").toString()),
+                LocalDate.parse(metadata.get("endDate").toString()));
+    }
+}
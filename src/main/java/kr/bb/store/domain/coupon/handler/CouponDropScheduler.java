@@ -0,0 +1,74 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import kr.bb.store.util.luascript.RedisScriptLoader;
+import kr.bb.store.util.luascript.RedisScripts;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * 주기마다 시작일이 오늘부터 lookahead-day 안에 있는 쿠폰을 CouponDropCache에 미리 올리고 발급 스크립트를 다시 SCRIPT LOAD 합니다.
+ * 모든 서버에서 실행되며, 같은 쿠폰을 여러 번 준비해도 같은 값으로 덮어쓰기 때문에 결과가 같습니다.
+ * 쿠폰을 읽기 전에 드롭 버전을 받아 두어, 읽는 동안 지워진 쿠폰은 이번 주기에 준비하지 않고 다음 주기에 다시 읽습니다.
+ * 이미 준비한 쿠폰 중 삭제되거나 기간이 끝난 쿠폰은 지웁니다. 수정이나 삭제 시 지우지 못한 항목도 이 주기에 지워집니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CouponDropScheduler {
+    private final CouponRepository couponRepository;
+    private final CouponDropCache couponDropCache;
+    private final RedisScriptLoader redisScriptLoader;
+
+    @Value("${coupon.drop.lookahead-day:1}")
+    private Integer lookaheadDay;
+
+    @Scheduled(fixedDelayString = "${coupon.drop.prepare-millis:60000}")
+    public void prepare() {
+        if (!couponDropCache.isEnabled()) return;
+        LocalDate now = LocalDate.now();
+        try {
+            redisScriptLoader.load(RedisScripts.ISSUE);
+        } catch (Exception e) {
+            log.warn("issue scripts not reloaded with cause of {}", e.getMessage());
+        }
+
+        try {
+            sweep(now);
+        } catch (Exception e) {
+            log.error("prepared coupons not swept with cause of {}", e.getMessage());
+        }
+        String version = couponDropCache.version();
+        couponRepository.findAllByIsDeletedFalseAndStartDateBetween(now, now.plusDays(lookaheadDay)).forEach(coupon -> {
+            try {
+                couponDropCache.prepare(coupon, version);
+            } catch (Exception e) {
+                log.error("coupon {} not prepared for drop with cause of {}", coupon.getId(), e.getMessage());
+            }
+        });
+    }
+
+    private void sweep(LocalDate now) {
+        Set<Long> preparedIds = couponDropCache.getPreparedCouponIds();
+        if (preparedIds.isEmpty()) return;
+        Map<Long, Coupon> coupons = couponRepository.findAllById(preparedIds).stream()
+                .collect(Collectors.toMap(Coupon::getId, Function.identity()));
+        preparedIds.stream()
+                .filter(couponId -> isGone(coupons.get(couponId), now))
+                .forEach(couponDropCache::evict);
+    }
+
+    private boolean isGone(Coupon coupon, LocalDate now) {
+        return coupon == null || coupon.getIsDeleted() || coupon.isExpired(now);
+    }
+}
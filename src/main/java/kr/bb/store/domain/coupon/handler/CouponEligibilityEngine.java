@@ -0,0 +1,105 @@
+package kr.bb.store.domain.coupon.handler;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kr.bb.store.domain.coupon.dto.CouponEligibility;
+import kr.bb.store.domain.coupon.dto.CouponWithAvailabilityDto;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static kr.bb.store.util.RedisUtils.COUPON_ELIGIBILITY_CHANNEL;
+
+/*
+ * 결제 단계에서 유저의 가게 쿠폰을 한 번만 읽어 CouponEligibility로 서버 메모리에 두고, 장바구니 금액이 바뀌는 동안 다시 조회하지 않습니다.
+ * 항목은 유저 단위로 묶어 두어 유저가 쿠폰을 발급받거나 사용하면 한 번의 삭제로 지웁니다.
+ * 가게의 쿠폰이 바뀌면 가게의 세대 번호를 올려 이전 세대로 만든 항목을 더 이상 읽지 않습니다.
+ * 쿠폰 사용은 메시지를 받은 서버에서 처리되므로 삭제는 pub/sub으로 모든 서버에 전파합니다.
+ */
+@Slf4j
+@Component
+public class CouponEligibilityEngine implements ApplicationRunner {
+    private static final String DELIMITER = ":";
+    private static final String USER_PREFIX = "user:";
+    private static final String STORE_PREFIX = "store:";
+
+    private final CouponReader couponReader;
+    private final RedissonClient redissonClient;
+    private final Cache<Long, Map<String, CouponEligibility>> sessions;
+    private final Map<Long, Long> storeGenerations = new ConcurrentHashMap<>();
+    private final boolean enabled;
+
+    public CouponEligibilityEngine(CouponReader couponReader, RedissonClient redissonClient,
+                                   @Value("${coupon.eligibility.enabled:true}") boolean enabled,
+                                   @Value("${coupon.eligibility.session-second:600}") long sessionSecond,
+                                   @Value("${coupon.eligibility.max-size:100000}") long maxSize) {
+        this.couponReader = couponReader;
+        this.redissonClient = redissonClient;
+        this.enabled = enabled;
+        this.sessions = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(sessionSecond))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    // 레디스를 쓸 수 없는 환경에서도 서버 안에서는 동작하도록 구독 실패는 시작을 막지 않습니다
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        try {
+            redissonClient.getTopic(COUPON_ELIGIBILITY_CHANNEL, StringCodec.INSTANCE)
+                    .addListener(String.class, (channel, message) -> evictLocally(message));
+        } catch (Exception e) {
+            log.warn("coupon eligibility not subscribed with cause of {}", e.getMessage());
+        }
+    }
+
+    public List<CouponWithAvailabilityDto> findAvailable(Long totalAmount, Long userId, Long storeId, LocalDate now) {
+        if (!enabled) return couponReader.readAvailableCouponsInStore(totalAmount, userId, storeId, now);
+        return sessions.get(userId, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(makeKey(storeId, now), key -> couponReader.readEligibility(userId, storeId, now))
+                .rank(totalAmount);
+    }
+
+    public void evictUser(Long userId) {
+        if (!enabled) return;
+        sessions.invalidate(userId);
+        publish(USER_PREFIX + userId);
+    }
+
+    public void evictStore(Long storeId) {
+        if (!enabled) return;
+        storeGenerations.merge(storeId, 1L, Long::sum);
+        publish(STORE_PREFIX + storeId);
+    }
+
+    private void publish(String message) {
+        try {
+            redissonClient.getTopic(COUPON_ELIGIBILITY_CHANNEL, StringCodec.INSTANCE).publish(message);
+        } catch (Exception e) {
+            log.warn("coupon eligibility eviction {} not published with cause of {}", message, e.getMessage());
+        }
+    }
+
+    private void evictLocally(String message) {
+        if (message.startsWith(USER_PREFIX)) {
+            sessions.invalidate(Long.valueOf(message.substring(USER_PREFIX.length())));
+        } else if (message.startsWith(STORE_PREFIX)) {
+            storeGenerations.merge(Long.valueOf(message.substring(STORE_PREFIX.length())), 1L, Long::sum);
+        }
+    }
+
+    private String makeKey(Long storeId, LocalDate now) {
+        return storeId + DELIMITER + storeGenerations.getOrDefault(storeId, 0L) + DELIMITER + now;
+    }
+}
@@ -0,0 +1,41 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.coupon.dto.CouponIssuedCountDto;
+import kr.bb.store.domain.coupon.repository.IssuedCouponRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+ * 쿠폰의 발급 수량은 발급 스크립트가 원자적으로 갱신하는 레디스 값을 먼저 사용합니다.
+ * 레디스에 쿠폰 키가 없는 쿠폰만 issued_coupon을 쿠폰별로 묶어 한 번의 쿼리로 셉니다.
+ * 레디스 값과 DB 행 수의 차이는 IssuedCouponReconciler가 주기적으로 확인합니다.
+ */
+@Component
+@RequiredArgsConstructor
+public class CouponIssuedCounter {
+    private final CouponMembership couponMembership;
+    private final IssuedCouponRepository issuedCouponRepository;
+
+    public long count(Long couponId, String couponCode) {
+        return countAll(Map.of(couponId, couponCode)).getOrDefault(couponId, 0L);
+    }
+
+    public Map<Long, Long> countAll(Map<Long, String> couponCodes) {
+        Map<Long, Long> issuedCounts = new HashMap<>(couponMembership.countAll(couponCodes));
+
+        Set<Long> missingCouponIds = couponCodes.keySet().stream()
+                .filter(couponId -> !issuedCounts.containsKey(couponId))
+                .collect(Collectors.toSet());
+        if (missingCouponIds.isEmpty()) return issuedCounts;
+
+        List<CouponIssuedCountDto> counts = issuedCouponRepository.countGroupByCouponId(missingCouponIds);
+        counts.forEach(count -> issuedCounts.put(count.getCouponId(), count.getIssuedCount()));
+        return issuedCounts;
+    }
+}
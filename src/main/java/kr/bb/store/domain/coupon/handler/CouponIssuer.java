@@ -1,5 +1,6 @@
 package kr.bb.store.domain.coupon.handler;
 
+import kr.bb.store.domain.coupon.dto.IssuedCouponInsertDto;
 import kr.bb.store.domain.coupon.entity.Coupon;
 import kr.bb.store.domain.coupon.entity.IssuedCoupon;
 import kr.bb.store.domain.coupon.entity.IssuedCouponId;
@@ -7,63 +8,152 @@ import kr.bb.store.domain.coupon.exception.AlreadyIssuedCouponException;
 import kr.bb.store.domain.coupon.exception.CouponOutOfStockException;
 import kr.bb.store.domain.coupon.exception.DeletedCouponException;
 import kr.bb.store.domain.coupon.exception.ExpiredCouponException;
+import kr.bb.store.domain.coupon.handler.CouponNegativeCache.Reason;
 import kr.bb.store.domain.coupon.repository.IssuedCouponRepository;
-import kr.bb.store.util.RedisOperation;
 import kr.bb.store.util.luascript.CouponLockExecutor;
 import kr.bb.store.util.luascript.RedisLuaScriptExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
+import static kr.bb.store.util.RedisUtils.ISSUED_COUPON_STREAM_KEY;
+import static kr.bb.store.util.RedisUtils.ISSUED_COUPON_TRACKING_KEY;
 import static kr.bb.store.util.RedisUtils.makeRedisKey;
-import static kr.bb.store.util.luascript.LockScript.script;
+import static kr.bb.store.util.TransactionUtils.afterCommit;
+import static kr.bb.store.util.luascript.CouponScript.bulkIssueScript;
+import static kr.bb.store.util.luascript.CouponScript.issueScript;
 
 @Component
 public class CouponIssuer {
+    private static final long ISSUED = 1L;
+    private static final long DUPLICATED = -1L;
+    private static final long SOLD_OUT = 0L;
+
     private final IssuedCouponRepository issuedCouponRepository;
     private final RedisLuaScriptExecutor redisLuaScriptExecutor;
-    private final RedisOperation redisOperation;
+    private final IssuedCouponWriteBehind issuedCouponWriteBehind;
+    private final CouponMembership couponMembership;
+    private final CouponNegativeCache couponNegativeCache;
+    private final UserCouponCounter userCouponCounter;
+
+    // 켜져 있으면 발급 내역을 바로 저장하지 않고 스트림에 쌓아 IssuedCouponWriteBehindFlusher가 모아서 저장합니다
+    @Value("${coupon.write-behind.enabled:false}")
+    private boolean writeBehindEnabled;
 
-    public CouponIssuer(IssuedCouponRepository issuedCouponRepository, CouponLockExecutor couponLockExecutor, RedisOperation redisOperation) {
+    public CouponIssuer(IssuedCouponRepository issuedCouponRepository, CouponLockExecutor couponLockExecutor,
+                        IssuedCouponWriteBehind issuedCouponWriteBehind, CouponMembership couponMembership,
+                        CouponNegativeCache couponNegativeCache, UserCouponCounter userCouponCounter) {
         this.issuedCouponRepository = issuedCouponRepository;
         this.redisLuaScriptExecutor = couponLockExecutor;
-        this.redisOperation = redisOperation;
+        this.issuedCouponWriteBehind = issuedCouponWriteBehind;
+        this.couponMembership = couponMembership;
+        this.couponNegativeCache = couponNegativeCache;
+        this.userCouponCounter = userCouponCounter;
     }
 
     public IssuedCoupon issueCoupon(Coupon coupon, Long userId, String nickname, String phoneNumber, LocalDate issueDate) {
-        if(coupon.getIsDeleted()) throw new DeletedCouponException();
-        if(coupon.isExpired(issueDate)) throw new ExpiredCouponException();
+        return issueCoupon(coupon, userId, nickname, phoneNumber, issueDate, couponNegativeCache.version(coupon.getId()));
+    }
 
-        String redisKey = makeRedisKey(coupon);
-        String redisValue = userId.toString();
-        Integer limitCnt = coupon.getLimitCount();
-        if(isDuplicated(redisKey, redisValue)) throw new AlreadyIssuedCouponException();
+    // couponVersion은 쿠폰을 읽기 전에 받은 거절 캐시 버전으로, 그 사이 쿠폰이 수정되었다면 거절 캐시에 남기지 않습니다
+    public IssuedCoupon issueCoupon(Coupon coupon, Long userId, String nickname, String phoneNumber, LocalDate issueDate,
+                                    long couponVersion) {
+        if(coupon.getIsDeleted()) {
+            couponNegativeCache.put(coupon.getId(), Reason.DELETED, couponVersion);
+            throw new DeletedCouponException();
+        }
+        if(coupon.isExpired(issueDate)) {
+            couponNegativeCache.put(coupon.getId(), Reason.EXPIRED, couponVersion);
+            throw new ExpiredCouponException();
+        }
 
-        boolean issuable = (Boolean)redisLuaScriptExecutor.execute(script, redisKey, redisValue, limitCnt);
-        if(issuable) {
-            return issuedCouponRepository.save(makeIssuedCoupon(coupon,userId,nickname,phoneNumber));
+        long result = issueInRedis(coupon, userId, nickname, phoneNumber);
+        if(result == DUPLICATED) throw new AlreadyIssuedCouponException();
+        if(result == ISSUED) {
+            // 발급 내역이 롤백되면 개수도 올리지 않도록 커밋 이후에 반영합니다
+            afterCommit(() -> userCouponCounter.add(userId, List.of(coupon), issueDate));
+            IssuedCoupon issuedCoupon = makeIssuedCoupon(coupon,userId,nickname,phoneNumber);
+            return writeBehindEnabled ? issuedCoupon : issuedCouponRepository.save(issuedCoupon);
         }
+        couponNegativeCache.put(coupon.getId(), Reason.SOLD_OUT, couponVersion);
         throw new CouponOutOfStockException();
     }
 
+    /*
+     * 발급 가능한 모든 쿠폰을 한 번의 스크립트 호출로 발급하고 발급된 쿠폰만 한 번의 배치로 저장합니다.
+     * 쿠폰 개수와 관계없이 레디스와 DB를 각각 한 번씩만 거칩니다.
+     * 소진된 쿠폰은 단건 발급과 같이 거절 캐시에 남겨 이후 요청이 레디스를 거치지 않게 합니다.
+     */
     public void issuePossibleCoupons(List<Coupon> coupons, Long userId, String nickname, String phoneNumber, LocalDate issueDate) {
-        final String redisValue = userId.toString();
-
-        coupons.stream()
+        List<Coupon> issuableCoupons = coupons.stream()
+                .filter(Predicate.not(coupon -> couponNegativeCache.contains(coupon.getId())))
                 .filter(Predicate.not(Coupon::getIsDeleted))
                 .filter(Predicate.not(coupon -> coupon.isExpired(issueDate)))
-                .filter(Predicate.not(coupon -> {
-                    String redisKey = makeRedisKey(coupon);
-                    return isDuplicated(redisKey,redisValue);
-                }))
-                .filter(coupon -> {
-                    String redisKey = makeRedisKey(coupon);
-                    Integer limitCnt = coupon.getLimitCount();
-                    return (Boolean)redisLuaScriptExecutor.execute(script, redisKey, redisValue, limitCnt);
-                })
-                .forEach(coupon -> issuedCouponRepository.save(makeIssuedCoupon(coupon,userId,nickname,phoneNumber)));
+                .collect(Collectors.toList());
+        if(issuableCoupons.isEmpty()) return;
+
+        List<Long> couponVersions = issuableCoupons.stream()
+                .map(coupon -> couponNegativeCache.version(coupon.getId()))
+                .collect(Collectors.toList());
+        LocalDateTime issuedAt = LocalDateTime.now();
+        List<Long> results = couponMembership.isBitmap()
+                ? couponMembership.issue(issuableCoupons, userId, nickname, phoneNumber, issuedAt, writeBehindEnabled)
+                : issueInSet(issuableCoupons, userId, nickname, phoneNumber, issuedAt);
+
+        List<Coupon> issuedCoupons = new ArrayList<>();
+        for(int i = 0; i < issuableCoupons.size(); i++) {
+            Coupon coupon = issuableCoupons.get(i);
+            if(results.get(i) == ISSUED) issuedCoupons.add(coupon);
+            if(results.get(i) == SOLD_OUT) couponNegativeCache.put(coupon.getId(), Reason.SOLD_OUT, couponVersions.get(i));
+        }
+        if(issuedCoupons.isEmpty()) return;
+
+        afterCommit(() -> userCouponCounter.add(userId, issuedCoupons, issueDate));
+        if(writeBehindEnabled) return;
+
+        issuedCouponRepository.insertIfAbsentInBatch(issuedCoupons.stream()
+                .map(coupon -> IssuedCouponInsertDto.builder()
+                        .couponId(coupon.getId())
+                        .userId(userId)
+                        .nickname(nickname)
+                        .phoneNumber(phoneNumber)
+                        .issuedAt(issuedAt)
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    private long issueInRedis(Coupon coupon, Long userId, String nickname, String phoneNumber) {
+        LocalDateTime issuedAt = LocalDateTime.now();
+        if(couponMembership.isBitmap()) {
+            return couponMembership.issue(List.of(coupon), userId, nickname, phoneNumber, issuedAt, writeBehindEnabled).get(0);
+        }
+        if(writeBehindEnabled) {
+            return issuedCouponWriteBehind.issue(coupon, userId, nickname, phoneNumber, issuedAt);
+        }
+        return tryIssue(makeRedisKey(coupon), userId.toString(), coupon.getLimitCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> issueInSet(List<Coupon> coupons, Long userId, String nickname, String phoneNumber, LocalDateTime issuedAt) {
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>(List.of(userId.toString(), writeBehindEnabled ? "1" : "0",
+                Objects.toString(nickname, ""), Objects.toString(phoneNumber, ""), issuedAt.toString()));
+        coupons.forEach(coupon -> {
+            keys.add(makeRedisKey(coupon));
+            args.add(coupon.getId().toString());
+            args.add(String.valueOf(coupon.getLimitCount()));
+        });
+        keys.add(ISSUED_COUPON_STREAM_KEY);
+        keys.add(ISSUED_COUPON_TRACKING_KEY);
+
+        return (List<Long>)redisLuaScriptExecutor.execute(bulkIssueScript, keys, args);
     }
 
     private IssuedCoupon makeIssuedCoupon(Coupon coupon, Long userId, String nickname, String phoneNumber) {
@@ -82,8 +172,9 @@ public class CouponIssuer {
                 .build();
     }
 
-    private boolean isDuplicated(String redisKey, String value) {
-        return redisOperation.contains(redisKey, value);
+    // 중복 확인과 발급을 한 번의 스크립트 호출로 처리합니다
+    private long tryIssue(String redisKey, String value, Integer limitCnt) {
+        return (Long)redisLuaScriptExecutor.execute(issueScript, redisKey, value, limitCnt);
     }
 
 }
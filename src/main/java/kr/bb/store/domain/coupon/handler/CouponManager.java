@@ -2,15 +2,21 @@ package kr.bb.store.domain.coupon.handler;
 
 import kr.bb.store.domain.coupon.entity.Coupon;
 import kr.bb.store.domain.coupon.entity.IssuedCoupon;
+import kr.bb.store.domain.coupon.exception.AlreadyUsedCouponException;
 import kr.bb.store.domain.coupon.handler.dto.CouponDto;
+import kr.bb.store.domain.coupon.repository.IssuedCouponRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class CouponManager {
+    private final IssuedCouponRepository issuedCouponRepository;
 
     public void edit(Coupon coupon, CouponDto couponEditDto) {
         coupon.update(
@@ -31,9 +37,27 @@ public class CouponManager {
         issuedCoupon.unUse();
     }
 
+    // 검증한 뒤 다른 요청이 먼저 사용했다면 바뀐 행 수가 모자라므로 예외로 전체 사용을 되돌립니다
+    public int useAll(List<IssuedCoupon> issuedCoupons, Long userId, LocalDate useDate) {
+        issuedCoupons.forEach(issuedCoupon -> issuedCoupon.validateUsable(useDate));
+        int used = issuedCouponRepository.useAll(userId, toCouponIds(issuedCoupons), LocalDateTime.now());
+        if (used != issuedCoupons.size()) throw new AlreadyUsedCouponException();
+        return used;
+    }
+
+    public int unUseAll(List<IssuedCoupon> issuedCoupons, Long userId) {
+        return issuedCouponRepository.unUseAll(userId, toCouponIds(issuedCoupons), LocalDateTime.now());
+    }
+
     public void softDelete(Coupon coupon) {
         coupon.softDelete();
     }
 
+    private List<Long> toCouponIds(List<IssuedCoupon> issuedCoupons) {
+        return issuedCoupons.stream()
+                .map(issuedCoupon -> issuedCoupon.getId().getCouponId())
+                .collect(Collectors.toList());
+    }
+
 
 }
@@ -0,0 +1,225 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.util.RedisOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static kr.bb.store.util.RedisUtils.DUMMY_DATA;
+import static kr.bb.store.util.RedisUtils.ISSUED_COUPON_STREAM_KEY;
+import static kr.bb.store.util.RedisUtils.ISSUED_COUPON_TRACKING_KEY;
+import static kr.bb.store.util.RedisUtils.makeCouponBitmapKey;
+import static kr.bb.store.util.RedisUtils.makeCouponCountKey;
+import static kr.bb.store.util.RedisUtils.makeRedisKey;
+import static kr.bb.store.util.luascript.RedisScripts.COUPON_BITMAP_ISSUE;
+import static kr.bb.store.util.luascript.RedisScripts.COUPON_BITMAP_RECOUNT;
+
+/*
+ * 쿠폰을 발급받은 사용자를 기록하는 레디스 구조를 관리합니다.
+ * 기본은 userId 문자열을 담는 set이고, coupon.membership.bitmap을 켜면 userId를 offset으로 쓰는 bitmap과 발급 수 카운터를 사용합니다.
+ * bitmap은 발급 인원과 관계없이 발급받은 가장 큰 userId / 8 바이트를 쓰고, set은 발급 인원마다 대략 50~70 바이트를 씁니다.
+ * 따라서 bitmap은 발급 인원이 가장 큰 userId의 약 1/500을 넘는 쿠폰에서만 set보다 작습니다.
+ * 예를 들어 userId가 천만까지 있다면 bitmap은 쿠폰마다 1.25MB이고, 발급 인원이 2만 명보다 적은 쿠폰은 set이 더 작습니다.
+ * 설정은 모든 쿠폰에 함께 적용되므로 대부분 쿠폰의 limitCount가 이 기준을 넘을 때만 켭니다.
+ */
+@Component
+@RequiredArgsConstructor
+public class CouponMembership {
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisOperation redisOperation;
+
+    @Value("${coupon.membership.bitmap:false}")
+    private boolean bitmapEnabled;
+
+    public boolean isBitmap() {
+        return bitmapEnabled;
+    }
+
+    // bitmap은 offset 0을 비워둔 채로 만들어 두어야 첫 발급 전에도 만료 시간을 걸 수 있습니다
+    public void register(Coupon coupon, LocalDate expirationDate) {
+        if (!bitmapEnabled) {
+            redisOperation.addAndSetExpr(makeRedisKey(coupon), expirationDate);
+            return;
+        }
+
+        String bitmapKey = makeCouponBitmapKey(coupon);
+        String countKey = makeCouponCountKey(coupon);
+        redisTemplate.execute(new SessionCallback<>() {
+            @Override
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                operations.multi();
+                operations.opsForValue().setIfAbsent(countKey, "0");
+                operations.opsForValue().setBit(bitmapKey, 0, false);
+                operations.expireAt(countKey, Date.valueOf(expirationDate));
+                operations.expireAt(bitmapKey, Date.valueOf(expirationDate));
+                return operations.exec();
+            }
+        });
+    }
+
+    public void expireAt(Coupon coupon, LocalDate expirationDate) {
+        if (!bitmapEnabled) {
+            redisOperation.setExpr(makeRedisKey(coupon), expirationDate);
+            return;
+        }
+        redisOperation.setExpr(makeCouponBitmapKey(coupon), expirationDate);
+        redisOperation.setExpr(makeCouponCountKey(coupon), expirationDate);
+    }
+
+    // 레디스에 기록된 발급 인원을 반환하며, 쿠폰 키가 없으면 null을 반환합니다
+    public Long count(Coupon coupon) {
+        if (!bitmapEnabled) {
+            Long size = redisOperation.count(makeRedisKey(coupon));
+            return size == null || size == 0 ? null : size - 1;
+        }
+        String count = redisTemplate.opsForValue().get(makeCouponCountKey(coupon));
+        return count == null ? null : Long.valueOf(count);
+    }
+
+    // 여러 쿠폰의 발급 인원을 한 번에 조회하며, 쿠폰 키가 없는 쿠폰은 결과에서 빠집니다
+    @SuppressWarnings("unchecked")
+    public Map<Long, Long> countAll(Map<Long, String> couponCodes) {
+        List<Long> couponIds = new ArrayList<>(couponCodes.keySet());
+        if (couponIds.isEmpty()) return Map.of();
+
+        List<Object> counts;
+        if (bitmapEnabled) {
+            counts = new ArrayList<>(redisTemplate.opsForValue().multiGet(couponIds.stream()
+                    .map(couponId -> makeCouponCountKey(couponCodes.get(couponId), couponId))
+                    .collect(Collectors.toList())));
+        } else {
+            counts = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                couponIds.forEach(couponId -> connection.setCommands()
+                        .sCard(makeRedisKey(couponCodes.get(couponId), couponId).getBytes(StandardCharsets.UTF_8)));
+                return null;
+            });
+        }
+
+        Map<Long, Long> issuedCounts = new HashMap<>();
+        for (int i = 0; i < couponIds.size(); i++) {
+            Object count = counts.get(i);
+            if (count == null) continue;
+            long value = Long.parseLong(count.toString());
+            if (bitmapEnabled) {
+                issuedCounts.put(couponIds.get(i), value);
+            } else if (value > 0) {
+                issuedCounts.put(couponIds.get(i), value - 1);
+            }
+        }
+        return issuedCounts;
+    }
+
+    // 쿠폰 순서대로 이미 발급받았다면 -1, 모두 소진되었다면 0, 발급했다면 1을 반환합니다
+    @SuppressWarnings("unchecked")
+    public List<Long> issue(List<Coupon> coupons, Long userId, String nickname, String phoneNumber,
+                            LocalDateTime issuedAt, boolean enqueue) {
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>(List.of(userId.toString(), enqueue ? "1" : "0",
+                Objects.toString(nickname, ""), Objects.toString(phoneNumber, ""), issuedAt.toString()));
+        coupons.forEach(coupon -> {
+            keys.add(makeCouponBitmapKey(coupon));
+            keys.add(makeCouponCountKey(coupon));
+            args.add(coupon.getId().toString());
+            args.add(String.valueOf(coupon.getLimitCount()));
+        });
+        keys.add(ISSUED_COUPON_STREAM_KEY);
+        keys.add(ISSUED_COUPON_TRACKING_KEY);
+
+        return redisTemplate.execute(COUPON_BITMAP_ISSUE, keys, args.toArray());
+    }
+
+    /*
+     * set에 기록된 발급 인원을 bitmap으로 옮기고 카운터를 bitmap의 비트 수로 맞춥니다.
+     * 여러번 실행해도 결과가 같기 때문에 set 구조로 운영 중에 한 번, bitmap으로 전환한 뒤 한 번 더 실행하면 전환 사이의 발급도 옮겨집니다.
+     * 기존 set은 지우지 않으며 만료 시간이 지나면 함께 사라집니다.
+     */
+    public long migrate(Coupon coupon) {
+        String setKey = makeRedisKey(coupon);
+        List<Long> userIds = scanSet(setKey);
+        Long ttlMillis = redisTemplate.getExpire(setKey, TimeUnit.MILLISECONDS);
+        setBits(coupon, userIds, ttlMillis == null ? -1 : ttlMillis);
+        return userIds.size();
+    }
+
+    // 레디스에 기록된 발급 사용자를 모두 읽습니다. 발급 인원이 DB와 어긋난 쿠폰을 바로잡을 때만 사용합니다
+    public Set<Long> findUserIds(Coupon coupon) {
+        if (!bitmapEnabled) return new HashSet<>(scanSet(makeRedisKey(coupon)));
+
+        byte[] bitmapKey = makeCouponBitmapKey(coupon).getBytes(StandardCharsets.UTF_8);
+        byte[] bitmap = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(bitmapKey));
+        Set<Long> userIds = new HashSet<>();
+        if (bitmap == null) return userIds;
+        for (int i = 0; i < bitmap.length; i++) {
+            for (int bit = 0; bit < Byte.SIZE; bit++) {
+                if ((bitmap[i] & (0x80 >>> bit)) != 0) userIds.add((long) i * Byte.SIZE + bit);
+            }
+        }
+        return userIds;
+    }
+
+    // 발급 내역은 있지만 레디스에 기록되지 않은 사용자를 기록합니다
+    public void addUserIds(Coupon coupon, Collection<Long> userIds) {
+        if (userIds.isEmpty()) return;
+        if (!bitmapEnabled) {
+            redisTemplate.opsForSet().add(makeRedisKey(coupon), userIds.stream()
+                    .map(String::valueOf)
+                    .toArray(String[]::new));
+            return;
+        }
+        Long ttlMillis = redisTemplate.getExpire(makeCouponBitmapKey(coupon), TimeUnit.MILLISECONDS);
+        setBits(coupon, new ArrayList<>(userIds), ttlMillis == null ? -1 : ttlMillis);
+    }
+
+    private List<Long> scanSet(String setKey) {
+        List<Long> userIds = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.opsForSet().scan(setKey,
+                ScanOptions.scanOptions().count(MIGRATION_BATCH_SIZE).build())) {
+            while (cursor.hasNext()) {
+                String member = cursor.next();
+                if (DUMMY_DATA.equals(member)) continue;
+                userIds.add(Long.valueOf(member));
+            }
+        }
+        return userIds;
+    }
+
+    private void setBits(Coupon coupon, List<Long> userIds, long ttlMillis) {
+        byte[] bitmapKey = makeCouponBitmapKey(coupon).getBytes(StandardCharsets.UTF_8);
+        for (int from = 0; from < userIds.size(); from += MIGRATION_BATCH_SIZE) {
+            List<Long> batch = userIds.subList(from, Math.min(from + MIGRATION_BATCH_SIZE, userIds.size()));
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                batch.forEach(userId -> connection.stringCommands().setBit(bitmapKey, userId, true));
+                return null;
+            });
+        }
+
+        redisTemplate.execute(COUPON_BITMAP_RECOUNT,
+                List.of(makeCouponBitmapKey(coupon), makeCouponCountKey(coupon)),
+                String.valueOf(ttlMillis));
+    }
+}
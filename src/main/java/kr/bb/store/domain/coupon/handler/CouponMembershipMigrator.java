@@ -0,0 +1,45 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// coupon.membership.migrate-on-startup을 켜고 띄우면 사용 기간이 남은 쿠폰의 발급 인원을 set에서 bitmap으로 옮깁니다
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CouponMembershipMigrator implements ApplicationRunner {
+    private final CouponRepository couponRepository;
+    private final CouponMembership couponMembership;
+
+    @Value("${coupon.membership.migrate-on-startup:false}")
+    private boolean migrateOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!migrateOnStartup) return;
+        migrateLiveCoupons(LocalDate.now());
+    }
+
+    public long migrateLiveCoupons(LocalDate now) {
+        List<Coupon> coupons = couponRepository.findAllByIsDeletedFalseAndEndDateGreaterThanEqual(now);
+        long migrated = 0;
+        for (Coupon coupon : coupons) {
+            try {
+                migrated += couponMembership.migrate(coupon);
+            } catch (Exception e) {
+                log.error("coupon {} membership migration failed with cause of {}", coupon.getId(), e.getMessage());
+            }
+        }
+        log.info("{} issued users of {} coupons migrated to bitmap", migrated, coupons.size());
+        return migrated;
+    }
+}
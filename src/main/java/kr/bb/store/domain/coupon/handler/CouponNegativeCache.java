@@ -0,0 +1,156 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.coupon.exception.CouponOutOfStockException;
+import kr.bb.store.domain.coupon.exception.DeletedCouponException;
+import kr.bb.store.domain.coupon.exception.ExpiredCouponException;
+import kr.bb.store.exception.CustomException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static kr.bb.store.util.RedisUtils.COUPON_NEGATIVE_CACHE_CHANNEL;
+import static kr.bb.store.util.RedisUtils.makeCouponNegativeVersionKey;
+
+/*
+ * 소진, 삭제, 만료된 쿠폰 id를 서버 메모리에 기억해 이후 발급 요청을 DB와 레디스를 거치지 않고 바로 거절합니다.
+ * 등록과 제거는 레디스 pub/sub으로 다른 서버에도 전파되며, 전파가 유실되어도 설정한 시간이 지나면 항목이 사라집니다.
+ * 쿠폰이 수정되어 제거될 때마다 쿠폰의 버전을 올리고, 수정 전에 읽은 쿠폰으로 만든 항목은 버전이 낮아 등록하지 않습니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CouponNegativeCache implements ApplicationRunner {
+    private static final String EVICT = "EVICT";
+    private static final String DELIMITER = ":";
+
+    private final RedissonClient redissonClient;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    @Value("${coupon.negative-cache.ttl-second:600}")
+    private Long ttlSecond;
+
+    // 레디스를 쓸 수 없는 환경에서도 서버 안에서는 동작하도록 구독 실패는 시작을 막지 않습니다
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            redissonClient.getTopic(COUPON_NEGATIVE_CACHE_CHANNEL, StringCodec.INSTANCE)
+                    .addListener(String.class, (channel, message) -> onMessage(message));
+        } catch (Exception e) {
+            log.warn("coupon negative cache not subscribed with cause of {}", e.getMessage());
+        }
+    }
+
+    public void check(Long couponId) {
+        Entry entry = getValidEntry(couponId);
+        if (entry != null) throw entry.reason.exceptionSupplier.get();
+    }
+
+    public boolean contains(Long couponId) {
+        return getValidEntry(couponId) != null;
+    }
+
+    // 쿠폰을 읽기 전에 받아 두었다가 항목을 등록할 때 넘깁니다
+    public long version(Long couponId) {
+        return versions.getOrDefault(couponId, 0L);
+    }
+
+    public void put(Long couponId, Reason reason) {
+        put(couponId, reason, version(couponId));
+    }
+
+    public void put(Long couponId, Reason reason, long version) {
+        if (!putLocally(couponId, reason, version)) return;
+        publish(reason.name() + DELIMITER + couponId + DELIMITER + version);
+    }
+
+    public void evict(Long couponId) {
+        long version = nextVersion(couponId);
+        evictLocally(couponId, version);
+        publish(EVICT + DELIMITER + couponId + DELIMITER + version);
+    }
+
+    private Entry getValidEntry(Long couponId) {
+        Entry entry = entries.get(couponId);
+        if (entry == null) return null;
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(couponId, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    // 서버마다 버전이 같도록 레디스에서 올리고, 레디스를 쓸 수 없으면 이 서버의 버전만 올립니다
+    private long nextVersion(Long couponId) {
+        try {
+            return redissonClient.getAtomicLong(makeCouponNegativeVersionKey(couponId)).incrementAndGet();
+        } catch (Exception e) {
+            log.warn("coupon {} negative cache version not increased with cause of {}", couponId, e.getMessage());
+            return version(couponId) + 1;
+        }
+    }
+
+    private boolean putLocally(Long couponId, Reason reason, long version) {
+        boolean[] put = {false};
+        versions.compute(couponId, (id, current) -> {
+            if (current != null && current > version) return current;
+            entries.put(id, new Entry(reason, System.currentTimeMillis() + ttlSecond * 1000));
+            put[0] = true;
+            return version == 0 ? current : Long.valueOf(version);
+        });
+        return put[0];
+    }
+
+    private void evictLocally(Long couponId, long version) {
+        versions.compute(couponId, (id, current) -> {
+            entries.remove(id);
+            return current == null ? version : Math.max(current, version);
+        });
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split(DELIMITER);
+        Long couponId = Long.valueOf(parts[1]);
+        long version = parts.length > 2 ? Long.parseLong(parts[2]) : 0L;
+        if (EVICT.equals(parts[0])) {
+            evictLocally(couponId, version);
+            return;
+        }
+        putLocally(couponId, Reason.valueOf(parts[0]), version);
+    }
+
+    private void publish(String message) {
+        try {
+            redissonClient.getTopic(COUPON_NEGATIVE_CACHE_CHANNEL, StringCodec.INSTANCE).publish(message);
+        } catch (Exception e) {
+            log.warn("coupon negative cache message {} not published with cause of {}", message, e.getMessage());
+        }
+    }
+
+    public enum Reason {
+        SOLD_OUT(CouponOutOfStockException::new),
+        DELETED(DeletedCouponException::new),
+        EXPIRED(ExpiredCouponException::new);
+
+        private final Supplier<CustomException> exceptionSupplier;
+
+        Reason(Supplier<CustomException> exceptionSupplier) {
+            this.exceptionSupplier = exceptionSupplier;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final Reason reason;
+        private final long expiresAt;
+    }
+}
@@ -0,0 +1,84 @@
+package kr.bb.store.domain.coupon.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.bb.store.domain.coupon.exception.CouponRateLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+import static kr.bb.store.util.RedisUtils.makeCouponRateLimitKey;
+import static kr.bb.store.util.luascript.RedisScripts.COUPON_RATE_LIMIT;
+
+/*
+ * 유저와 대상(쿠폰 또는 가게)마다 토큰 버킷을 두고, 한 번의 스크립트 호출로 요청을 허용할지 정합니다.
+ * 트랜잭션을 열거나 쿠폰을 조회하기 전에 거절하며, 레디스를 쓸 수 없으면 요청을 막지 않습니다.
+ */
+@Slf4j
+@Component
+public class CouponRateLimiter {
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Counter couponThrottledCounter;
+    private final Counter storeThrottledCounter;
+    private final Counter queueThrottledCounter;
+
+    @Value("${coupon.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${coupon.rate-limit.burst:5}")
+    private Long burst;
+
+    @Value("${coupon.rate-limit.refill-per-second:1}")
+    private Double refillPerSecond;
+
+    public CouponRateLimiter(RedisTemplate<String, String> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.couponThrottledCounter = meterRegistry.counter("coupon.rate-limit.throttled", "target", "coupon");
+        this.storeThrottledCounter = meterRegistry.counter("coupon.rate-limit.throttled", "target", "store");
+        this.queueThrottledCounter = meterRegistry.counter("coupon.rate-limit.throttled", "target", "queue");
+    }
+
+    // 버킷 크기나 충전 속도가 0이면 스크립트의 만료 시간 계산이 실패해 요청을 막지 못하므로 시작할 때 거절합니다
+    @PostConstruct
+    public void validate() {
+        if (!enabled) return;
+        if (burst == null || burst <= 0) {
+            throw new IllegalStateException("coupon.rate-limit.burst must be positive but was " + burst);
+        }
+        if (refillPerSecond == null || refillPerSecond.isNaN() || refillPerSecond <= 0) {
+            throw new IllegalStateException("coupon.rate-limit.refill-per-second must be positive but was " + refillPerSecond);
+        }
+    }
+
+    public void checkCoupon(Long userId, Long couponId) {
+        check(userId, "coupon:" + couponId, couponThrottledCounter);
+    }
+
+    public void checkStore(Long userId, Long storeId) {
+        check(userId, "store:" + storeId, storeThrottledCounter);
+    }
+
+    public void checkQueue(Long userId, Long couponId) {
+        check(userId, "queue:" + couponId, queueThrottledCounter);
+    }
+
+    private void check(Long userId, String target, Counter throttledCounter) {
+        if (!enabled) return;
+        Long allowed;
+        try {
+            allowed = redisTemplate.execute(COUPON_RATE_LIMIT, List.of(makeCouponRateLimitKey(userId, target)),
+                    String.valueOf(burst), String.valueOf(refillPerSecond), String.valueOf(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("coupon rate limit of user {} on {} not checked with cause of {}", userId, target, e.getMessage());
+            return;
+        }
+        if (allowed != null && allowed == 0L) {
+            throttledCounter.increment();
+            throw new CouponRateLimitExceededException();
+        }
+    }
+}
@@ -1,29 +1,49 @@
 package kr.bb.store.domain.coupon.handler;
 
 import kr.bb.store.domain.coupon.dto.CouponDto;
+import kr.bb.store.domain.coupon.dto.CouponEligibility;
 import kr.bb.store.domain.coupon.dto.CouponForOwnerDto;
 import kr.bb.store.domain.coupon.dto.CouponWithAvailabilityDto;
 import kr.bb.store.domain.coupon.dto.CouponWithIssueStatusDto;
 import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.entity.IssuedCoupon;
 import kr.bb.store.domain.coupon.exception.CouponNotFoundException;
 import kr.bb.store.domain.coupon.repository.CouponRepository;
+import kr.bb.store.domain.coupon.repository.IssuedCouponRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class CouponReader {
     private final CouponRepository couponRepository;
+    private final IssuedCouponRepository issuedCouponRepository;
+    private final CouponIssuedCounter couponIssuedCounter;
+    private final StoreCouponCatalog storeCouponCatalog;
 
     public Coupon read(Long couponId) {
         return couponRepository.findById(couponId).orElseThrow(CouponNotFoundException::new);
     }
 
+    public Map<Long, Coupon> readAll(Collection<Long> couponIds) {
+        Map<Long, Coupon> coupons = couponRepository.findAllById(couponIds).stream()
+                .collect(Collectors.toMap(Coupon::getId, coupon -> coupon));
+        if (coupons.size() != couponIds.size()) throw new CouponNotFoundException();
+        return coupons;
+    }
+
     public List<CouponForOwnerDto> readCouponsForOwner(Long storeId, LocalDate now) {
-        return couponRepository.findAllDtoByStoreId(storeId, now);
+        List<CouponForOwnerDto> coupons = couponRepository.findAllDtoByStoreId(storeId, now);
+        Map<Long, Long> issuedCounts = couponIssuedCounter.countAll(coupons.stream()
+                .collect(Collectors.toMap(CouponForOwnerDto::getKey, CouponForOwnerDto::getCouponCode)));
+        coupons.forEach(coupon -> coupon.applyIssuedCount(issuedCounts.getOrDefault(coupon.getKey(), 0L)));
+        return coupons;
     }
 
     public List<Coupon> readStoresAllValidateCoupon(Long storeId, LocalDate now) {
@@ -31,12 +51,25 @@ public class CouponReader {
     }
 
     public List<CouponWithIssueStatusDto> readStoreCouponsForUser(Long userId, Long storeId, LocalDate now) {
-        return couponRepository.findStoreCouponsForUser(userId, storeId, now);
+        List<CouponDto> catalog = storeCouponCatalog.read(storeId, now);
+        Map<Long, Boolean> usages = readUsages(userId, catalog);
+        return catalog.stream()
+                .map(couponDto -> CouponWithIssueStatusDto.of(couponDto, usages.containsKey(couponDto.getCouponId())))
+                .collect(Collectors.toList());
     }
 
     public List<CouponWithAvailabilityDto> readAvailableCouponsInStore(Long totalAmount, Long userId, Long storeId,
                                                                        LocalDate readDate) {
-        return couponRepository.findAvailableCoupons(totalAmount, userId, storeId, readDate);
+        return readEligibility(userId, storeId, readDate).rank(totalAmount);
+    }
+
+    // 가게의 쿠폰 중 유저가 발급받고 아직 사용하지 않은 쿠폰을 최소사용금액 순으로 정렬합니다
+    public CouponEligibility readEligibility(Long userId, Long storeId, LocalDate readDate) {
+        List<CouponDto> catalog = storeCouponCatalog.read(storeId, readDate);
+        Map<Long, Boolean> usages = readUsages(userId, catalog);
+        return CouponEligibility.of(catalog.stream()
+                .filter(couponDto -> Boolean.FALSE.equals(usages.get(couponDto.getCouponId())))
+                .collect(Collectors.toList()));
     }
 
     public List<CouponDto> readMyValidCoupons(Long userId, LocalDate readDate) {
@@ -46,4 +79,12 @@ public class CouponReader {
     public Integer readMyValidCouponCount(Long userId, LocalDate readDate) {
         return couponRepository.findMyValidCouponCount(userId, readDate);
     }
+
+    // 유저가 발급받은 쿠폰 id와 사용 여부를 (쿠폰 id, 유저 id) 기본키로 조회합니다
+    private Map<Long, Boolean> readUsages(Long userId, List<CouponDto> catalog) {
+        if (catalog.isEmpty()) return Map.of();
+        List<Long> couponIds = catalog.stream().map(CouponDto::getCouponId).collect(Collectors.toList());
+        return issuedCouponRepository.findAllByUserIdAndCouponIds(userId, couponIds).stream()
+                .collect(Collectors.toMap(issuedCoupon -> issuedCoupon.getId().getCouponId(), IssuedCoupon::getIsUsed));
+    }
 }
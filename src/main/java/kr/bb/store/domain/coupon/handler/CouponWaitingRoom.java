@@ -0,0 +1,160 @@
+package kr.bb.store.domain.coupon.handler;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kr.bb.store.domain.coupon.controller.response.CouponQueueResponse;
+import kr.bb.store.domain.coupon.dto.CouponQueueEntryDto;
+import kr.bb.store.domain.coupon.dto.CouponQueueStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static kr.bb.store.util.RedisUtils.COUPON_QUEUE_ACTIVE_KEY;
+import static kr.bb.store.util.RedisUtils.makeCouponQueueClosedKey;
+import static kr.bb.store.util.RedisUtils.makeCouponQueueKey;
+import static kr.bb.store.util.RedisUtils.makeCouponQueueResultKey;
+import static kr.bb.store.util.RedisUtils.makeCouponQueueSequenceKey;
+import static kr.bb.store.util.RedisUtils.makeCouponQueueUserKey;
+import static kr.bb.store.util.luascript.RedisScripts.COUPON_QUEUE_DEACTIVATE;
+import static kr.bb.store.util.luascript.RedisScripts.COUPON_QUEUE_ENTER;
+
+/*
+ * 선착순 쿠폰 대기열입니다. 요청은 도착 순서대로 sorted set에 들어가고 순번만 바로 반환합니다.
+ * CouponWaitingRoomAdmitter가 정해진 주기마다 앞에서부터 일정 인원씩 꺼내 발급하고 결과를 남기며, 사용자는 결과를 조회합니다.
+ * 수량이 모두 소진되면 대기열을 닫고 이후 요청은 레디스에서 바로 거절합니다.
+ * 없는 쿠폰의 대기열은 만들지 않도록 서버마다 쿠폰당 한 번만 DB에서 존재를 확인합니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CouponWaitingRoom {
+    private static final long CLOSED = -2L;
+    private static final long ALREADY_PROCESSED = -3L;
+    private static final String NICKNAME_FIELD = ":nickname";
+    private static final String PHONE_NUMBER_FIELD = ":phoneNumber";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final CouponReader couponReader;
+    private final Cache<Long, Boolean> knownCouponIds = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .maximumSize(10_000)
+            .build();
+
+    @Value("${coupon.queue.ttl-second:86400}")
+    private Long ttlSecond;
+
+    public CouponQueueResponse enter(Long couponId, Long userId, String nickname, String phoneNumber) {
+        knownCouponIds.get(couponId, id -> couponReader.read(id) != null);
+        List<String> keys = List.of(makeCouponQueueKey(couponId), makeCouponQueueSequenceKey(couponId),
+                makeCouponQueueUserKey(couponId), makeCouponQueueResultKey(couponId),
+                makeCouponQueueClosedKey(couponId), COUPON_QUEUE_ACTIVE_KEY);
+        Long rank = redisTemplate.execute(COUPON_QUEUE_ENTER, keys, userId.toString(),
+                Objects.toString(nickname, ""), Objects.toString(phoneNumber, ""),
+                ttlSecond.toString(), couponId.toString());
+
+        if (rank == CLOSED) return CouponQueueResponse.of(CouponQueueStatus.SOLD_OUT);
+        if (rank == ALREADY_PROCESSED) return getStatus(couponId, userId);
+        return CouponQueueResponse.waiting(rank + 1);
+    }
+
+    // 처리 결과, 대기 순번, 대기열 닫힘 순서로 확인합니다
+    public CouponQueueResponse getStatus(Long couponId, Long userId) {
+        Object result = redisTemplate.opsForHash().get(makeCouponQueueResultKey(couponId), userId.toString());
+        if (result != null) return CouponQueueResponse.of(CouponQueueStatus.valueOf(result.toString()));
+
+        Long rank = redisTemplate.opsForZSet().rank(makeCouponQueueKey(couponId), userId.toString());
+        if (rank != null) return CouponQueueResponse.waiting(rank + 1);
+
+        if (isClosed(couponId)) return CouponQueueResponse.of(CouponQueueStatus.SOLD_OUT);
+        return CouponQueueResponse.of(CouponQueueStatus.NOT_QUEUED);
+    }
+
+    public Set<Long> getActiveCouponIds() {
+        Set<String> members = redisTemplate.opsForSet().members(COUPON_QUEUE_ACTIVE_KEY);
+        if (members == null) return Set.of();
+        return members.stream()
+                .map(Long::valueOf)
+                .collect(Collectors.toSet());
+    }
+
+    // 여러 서버가 함께 꺼내도 ZPOPMIN으로 한 사용자는 한 번만 꺼내집니다
+    public List<CouponQueueEntryDto> poll(Long couponId, long count) {
+        Set<ZSetOperations.TypedTuple<String>> popped = redisTemplate.opsForZSet().popMin(makeCouponQueueKey(couponId), count);
+        if (popped == null || popped.isEmpty()) return List.of();
+
+        String userKey = makeCouponQueueUserKey(couponId);
+        List<String> userIds = popped.stream()
+                .map(ZSetOperations.TypedTuple::getValue)
+                .collect(Collectors.toList());
+        List<Object> fields = new ArrayList<>();
+        userIds.forEach(userId -> {
+            fields.add(userId + NICKNAME_FIELD);
+            fields.add(userId + PHONE_NUMBER_FIELD);
+        });
+        List<Object> values;
+        try {
+            values = redisTemplate.opsForHash().multiGet(userKey, fields);
+            redisTemplate.opsForHash().delete(userKey, fields.toArray());
+        } catch (RuntimeException e) {
+            recordFailed(couponId, userIds);
+            throw e;
+        }
+
+        List<CouponQueueEntryDto> entries = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            entries.add(CouponQueueEntryDto.builder()
+                    .userId(Long.valueOf(userIds.get(i)))
+                    .nickname(emptyToNull(values.get(i * 2)))
+                    .phoneNumber(emptyToNull(values.get(i * 2 + 1)))
+                    .build());
+        }
+        return entries;
+    }
+
+    public void record(Long couponId, Long userId, CouponQueueStatus status) {
+        String resultKey = makeCouponQueueResultKey(couponId);
+        redisTemplate.opsForHash().put(resultKey, userId.toString(), status.name());
+        redisTemplate.expire(resultKey, Duration.ofSeconds(ttlSecond));
+    }
+
+    // 이미 대기열에서 꺼낸 사용자가 결과 없이 NOT_QUEUED로 보이지 않도록 실패로 남깁니다
+    public void recordFailed(Long couponId, List<String> userIds) {
+        userIds.forEach(userId -> {
+            try {
+                record(couponId, Long.valueOf(userId), CouponQueueStatus.FAILED);
+            } catch (RuntimeException e) {
+                log.error("coupon {} queue result of user {} not recorded with cause of {}", couponId, userId, e.getMessage());
+            }
+        });
+    }
+
+    // 닫힌 뒤에도 대기 중이던 사용자는 조회 시 닫힘 여부로 소진 결과를 받습니다
+    public void close(Long couponId) {
+        redisTemplate.opsForValue().set(makeCouponQueueClosedKey(couponId), "1", Duration.ofSeconds(ttlSecond));
+        redisTemplate.delete(List.of(makeCouponQueueKey(couponId), makeCouponQueueUserKey(couponId)));
+        redisTemplate.opsForSet().remove(COUPON_QUEUE_ACTIVE_KEY, couponId.toString());
+    }
+
+    public boolean isClosed(Long couponId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(makeCouponQueueClosedKey(couponId)));
+    }
+
+    public void deactivateIfEmpty(Long couponId) {
+        redisTemplate.execute(COUPON_QUEUE_DEACTIVATE,
+                List.of(makeCouponQueueKey(couponId), COUPON_QUEUE_ACTIVE_KEY), couponId.toString());
+    }
+
+    private String emptyToNull(Object value) {
+        return value == null || value.toString().isEmpty() ? null : value.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.coupon.dto.CouponQueueEntryDto;
+import kr.bb.store.domain.coupon.dto.CouponQueueStatus;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.exception.AlreadyIssuedCouponException;
+import kr.bb.store.domain.coupon.exception.CouponOutOfStockException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+ * 주기마다 대기열 앞에서부터 정해진 인원만 꺼내 발급합니다. 주기와 인원으로 발급 속도를 조절합니다.
+ * 쿠폰은 묶음마다 한 번만 조회하며, 수량이 소진되면 대기열을 닫습니다.
+ * 쿠폰은 대기열에서 꺼내기 전에 읽고, 꺼낸 뒤 실패하면 결과가 남지 않은 사용자를 모두 실패로 기록합니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CouponWaitingRoomAdmitter {
+    private final CouponWaitingRoom couponWaitingRoom;
+    private final CouponReader couponReader;
+    private final CouponIssuer couponIssuer;
+    private final CouponMembership couponMembership;
+    private final CouponNegativeCache couponNegativeCache;
+
+    @Value("${coupon.queue.admit-size:100}")
+    private Long admitSize;
+
+    @Scheduled(fixedDelayString = "${coupon.queue.admit-millis:100}")
+    public void admit() {
+        LocalDate now = LocalDate.now();
+        couponWaitingRoom.getActiveCouponIds().forEach(couponId -> {
+            try {
+                admit(couponId, now);
+            } catch (Exception e) {
+                log.error("coupon {} queue admission failed with cause of {}", couponId, e.getMessage());
+            }
+        });
+    }
+
+    public void admit(Long couponId, LocalDate now) {
+        long couponVersion = couponNegativeCache.version(couponId);
+        Coupon coupon = couponReader.read(couponId);
+        List<CouponQueueEntryDto> entries = couponWaitingRoom.poll(couponId, admitSize);
+        if (entries.isEmpty()) {
+            couponWaitingRoom.deactivateIfEmpty(couponId);
+            return;
+        }
+
+        Set<Long> recordedUserIds = new HashSet<>();
+        try {
+            admit(coupon, couponVersion, entries, recordedUserIds, now);
+        } catch (RuntimeException e) {
+            couponWaitingRoom.recordFailed(couponId, entries.stream()
+                    .map(CouponQueueEntryDto::getUserId)
+                    .filter(userId -> !recordedUserIds.contains(userId))
+                    .map(String::valueOf)
+                    .collect(Collectors.toList()));
+            throw e;
+        }
+    }
+
+    private void admit(Coupon coupon, long couponVersion, List<CouponQueueEntryDto> entries, Set<Long> recordedUserIds,
+                       LocalDate now) {
+        Long couponId = coupon.getId();
+        if (coupon.getIsDeleted() || coupon.isExpired(now)) {
+            entries.forEach(entry -> {
+                couponWaitingRoom.record(couponId, entry.getUserId(), CouponQueueStatus.UNAVAILABLE);
+                recordedUserIds.add(entry.getUserId());
+            });
+            couponWaitingRoom.close(couponId);
+            return;
+        }
+
+        boolean soldOut = false;
+        for (CouponQueueEntryDto entry : entries) {
+            CouponQueueStatus status = soldOut ? CouponQueueStatus.SOLD_OUT : issue(coupon, couponVersion, entry, now);
+            couponWaitingRoom.record(couponId, entry.getUserId(), status);
+            recordedUserIds.add(entry.getUserId());
+            soldOut = status == CouponQueueStatus.SOLD_OUT;
+        }
+
+        Long issuedCount = couponMembership.count(coupon);
+        if (soldOut || (issuedCount != null && issuedCount >= coupon.getLimitCount())) {
+            couponWaitingRoom.close(couponId);
+        }
+    }
+
+    private CouponQueueStatus issue(Coupon coupon, long couponVersion, CouponQueueEntryDto entry, LocalDate now) {
+        try {
+            couponIssuer.issueCoupon(coupon, entry.getUserId(), entry.getNickname(), entry.getPhoneNumber(), now, couponVersion);
+            return CouponQueueStatus.ISSUED;
+        } catch (AlreadyIssuedCouponException e) {
+            return CouponQueueStatus.ALREADY_ISSUED;
+        } catch (CouponOutOfStockException e) {
+            return CouponQueueStatus.SOLD_OUT;
+        } catch (Exception e) {
+            log.error("coupon {} issue to user {} failed with cause of {}", coupon.getId(), entry.getUserId(), e.getMessage());
+            return CouponQueueStatus.FAILED;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package kr.bb.store.domain.coupon.handler;
 
+import kr.bb.store.domain.coupon.dto.CouponMemberCursor;
 import kr.bb.store.domain.coupon.entity.IssuedCoupon;
 import kr.bb.store.domain.coupon.entity.IssuedCouponId;
 import kr.bb.store.domain.coupon.exception.NotIssuedCouponException;
@@ -8,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -20,12 +22,25 @@ public class IssuedCouponReader {
         return issuedCouponRepository.findById(id).orElseThrow(NotIssuedCouponException::new);
     }
 
+    // 하나라도 발급되지 않은 쿠폰이 있으면 전체 요청을 거절합니다
+    public List<IssuedCoupon> readAllWithCoupon(Collection<Long> couponIds, Long userId) {
+        List<IssuedCoupon> issuedCoupons = issuedCouponRepository.findAllWithCouponByUserIdAndCouponIds(userId, couponIds);
+        if (issuedCoupons.size() != couponIds.size()) throw new NotIssuedCouponException();
+        return issuedCoupons;
+    }
+
     public List<IssuedCoupon> readByCouponId(Long couponId, Pageable pageable) {
         long offset = pageable.getOffset();
         int pageSize = pageable.getPageSize();
         return issuedCouponRepository.findByCouponId(couponId, offset, pageSize);
     }
 
+    // (발급 시각, 유저 id) 인덱스를 따라 커서 다음 행부터 읽으므로 앞 페이지를 건너뛰는 비용이 없습니다
+    public List<IssuedCoupon> readByCouponIdAfter(Long couponId, CouponMemberCursor cursor, int pageSize) {
+        if (cursor == null) return issuedCouponRepository.findFirstPageByCouponId(couponId, pageSize);
+        return issuedCouponRepository.findPageByCouponIdAfter(couponId, cursor.getCreatedAt(), cursor.getUserId(), pageSize);
+    }
+
     public long countByCouponId(Long couponId) {
         return issuedCouponRepository.countByCouponId(couponId);
     }
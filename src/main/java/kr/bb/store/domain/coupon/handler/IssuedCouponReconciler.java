@@ -0,0 +1,152 @@
+package kr.bb.store.domain.coupon.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.bb.store.domain.coupon.dto.CouponIssuedCountDto;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import kr.bb.store.domain.coupon.repository.IssuedCouponRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * 레디스에 기록된 발급 인원과 issued_coupon 행 수를 비교하고 어긋난 쿠폰을 바로잡습니다.
+ * 한 주기에 레디스 발급 인원을 읽은 뒤 스트림의 마지막 항목 id를 watermark로 남기고,
+ * 이후 주기에 watermark까지의 항목이 모두 저장되었으면 DB 행 수와 레디스 발급 인원을 다시 읽어 비교합니다.
+ * 그 사이 발급 인원이 바뀐 쿠폰은 저장을 기다리는 발급이 있을 수 있어 다음 주기로 넘기므로, 발급이 계속되는 중에도 비교합니다.
+ * 레디스에만 있는 발급은 스트림에 다시 쌓아 저장하고, DB에만 있는 발급은 레디스에 기록합니다.
+ */
+@Slf4j
+@Component
+public class IssuedCouponReconciler {
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private final IssuedCouponWriteBehind issuedCouponWriteBehind;
+    private final CouponRepository couponRepository;
+    private final IssuedCouponRepository issuedCouponRepository;
+    private final CouponMembership couponMembership;
+    private final Counter mismatchCounter;
+    private final Counter repairedCounter;
+
+    private Snapshot snapshot;
+
+    public IssuedCouponReconciler(IssuedCouponWriteBehind issuedCouponWriteBehind, CouponRepository couponRepository,
+                                  IssuedCouponRepository issuedCouponRepository,
+                                  CouponMembership couponMembership, MeterRegistry meterRegistry) {
+        this.issuedCouponWriteBehind = issuedCouponWriteBehind;
+        this.couponRepository = couponRepository;
+        this.issuedCouponRepository = issuedCouponRepository;
+        this.couponMembership = couponMembership;
+        this.mismatchCounter = meterRegistry.counter("coupon.write-behind.mismatch");
+        this.repairedCounter = meterRegistry.counter("coupon.write-behind.repaired");
+    }
+
+    // write-behind로 발급된 쿠폰과 사용 기간이 남은 쿠폰을 함께 확인합니다
+    @Scheduled(fixedDelayString = "${coupon.write-behind.reconcile-millis:60000}")
+    public void reconcile() {
+        if (snapshot != null) {
+            if (!issuedCouponWriteBehind.isFlushedUpTo(snapshot.watermark)) return;
+            compare(snapshot);
+        }
+        snapshot = takeSnapshot();
+    }
+
+    // 발급 인원을 먼저 읽어야 읽은 발급이 모두 watermark 안에 들어갑니다
+    private Snapshot takeSnapshot() {
+        Map<Long, Coupon> coupons = new LinkedHashMap<>();
+        couponRepository.findAllById(issuedCouponWriteBehind.getTrackedCouponIds())
+                .forEach(coupon -> coupons.put(coupon.getId(), coupon));
+        couponRepository.findAllByIsDeletedFalseAndEndDateGreaterThanEqual(LocalDate.now())
+                .forEach(coupon -> coupons.putIfAbsent(coupon.getId(), coupon));
+
+        Map<Long, Long> redisCounts = countInRedis(new ArrayList<>(coupons.values()));
+        coupons.keySet().stream()
+                .filter(couponId -> !redisCounts.containsKey(couponId))
+                .forEach(issuedCouponWriteBehind::untrack);
+        coupons.keySet().retainAll(redisCounts.keySet());
+        return new Snapshot(issuedCouponWriteBehind.lastIssuedId(), coupons, redisCounts);
+    }
+
+    private void compare(Snapshot snapshot) {
+        List<Coupon> targets = new ArrayList<>(snapshot.coupons.values());
+        for (int from = 0; from < targets.size(); from += RECONCILE_BATCH_SIZE) {
+            compare(snapshot, targets.subList(from, Math.min(from + RECONCILE_BATCH_SIZE, targets.size())));
+        }
+    }
+
+    // DB를 읽은 뒤 발급 인원을 다시 읽어, 두 번 읽은 발급 인원이 같은 쿠폰만 DB와 비교합니다
+    private void compare(Snapshot snapshot, List<Coupon> coupons) {
+        Map<Long, Coupon> couponsById = coupons.stream()
+                .collect(Collectors.toMap(Coupon::getId, Function.identity()));
+        Map<Long, Long> dbCounts = issuedCouponRepository.countGroupByCouponId(couponsById.keySet()).stream()
+                .collect(Collectors.toMap(CouponIssuedCountDto::getCouponId, CouponIssuedCountDto::getIssuedCount));
+        Map<Long, Long> redisCounts = countInRedis(coupons);
+
+        couponsById.forEach((couponId, coupon) -> {
+            Long redisCount = redisCounts.get(couponId);
+            if (redisCount == null || !redisCount.equals(snapshot.redisCounts.get(couponId))) return;
+            long difference = redisCount - dbCounts.getOrDefault(couponId, 0L);
+            if (difference == 0) return;
+
+            mismatchCounter.increment();
+            log.warn("issued coupon {} differs between redis and db by {}", couponId, difference);
+            try {
+                repair(coupon);
+            } catch (Exception e) {
+                log.error("issued coupon {} not repaired with cause of {}", couponId, e.getMessage());
+            }
+        });
+    }
+
+    // 레디스에만 있는 발급은 이미 발급 성공을 응답한 것이므로 지우지 않고 저장합니다
+    private void repair(Coupon coupon) {
+        Set<Long> redisUserIds = couponMembership.findUserIds(coupon);
+        Set<Long> dbUserIds = new HashSet<>(issuedCouponRepository.findUserIdsByCouponId(coupon.getId()));
+
+        List<Long> missingInDb = redisUserIds.stream()
+                .filter(userId -> !dbUserIds.contains(userId))
+                .collect(Collectors.toList());
+        List<Long> missingInRedis = dbUserIds.stream()
+                .filter(userId -> !redisUserIds.contains(userId))
+                .collect(Collectors.toList());
+        issuedCouponWriteBehind.enqueue(coupon.getId(), missingInDb, LocalDateTime.now());
+        couponMembership.addUserIds(coupon, missingInRedis);
+
+        repairedCounter.increment();
+        log.info("issued coupon {} repaired with {} rows enqueued and {} users recorded",
+                coupon.getId(), missingInDb.size(), missingInRedis.size());
+    }
+
+    private Map<Long, Long> countInRedis(List<Coupon> coupons) {
+        Map<Long, Long> redisCounts = new HashMap<>();
+        for (int from = 0; from < coupons.size(); from += RECONCILE_BATCH_SIZE) {
+            Map<Long, String> couponCodes = coupons.subList(from, Math.min(from + RECONCILE_BATCH_SIZE, coupons.size()))
+                    .stream()
+                    .collect(Collectors.toMap(Coupon::getId, Coupon::getCouponCode));
+            redisCounts.putAll(couponMembership.countAll(couponCodes));
+        }
+        return redisCounts;
+    }
+
+    @RequiredArgsConstructor
+    private static class Snapshot {
+        private final RecordId watermark;
+        private final Map<Long, Coupon> coupons;
+        private final Map<Long, Long> redisCounts;
+    }
+}
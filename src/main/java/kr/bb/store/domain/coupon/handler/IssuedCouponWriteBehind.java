@@ -0,0 +1,221 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.coupon.dto.IssuedCouponInsertDto;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static kr.bb.store.util.RedisUtils.ISSUED_COUPON_DEAD_LETTER_KEY;
+import static kr.bb.store.util.RedisUtils.ISSUED_COUPON_STREAM_KEY;
+import static kr.bb.store.util.RedisUtils.ISSUED_COUPON_TRACKING_KEY;
+import static kr.bb.store.util.RedisUtils.makeRedisKey;
+import static kr.bb.store.util.luascript.RedisScripts.COUPON_ISSUE_AND_ENQUEUE;
+
+/*
+ * 쿠폰 발급 내역을 레디스 스트림에 쌓아두고 IssuedCouponWriteBehindFlusher가 모아서 DB에 저장합니다.
+ * 처리한 항목은 ack 후 스트림에서 삭제하기 때문에 스트림의 길이가 아직 저장되지 않은 발급 건수가 됩니다.
+ * 서버마다 다른 consumer 이름으로 읽고, 내려간 서버가 처리하지 못한 항목은 일정 시간이 지나면 다른 서버가 가져와 처리합니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IssuedCouponWriteBehind {
+    private static final String GROUP = "issued-coupon-writer";
+    private static final String PENDING_OFFSET = "0";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    // 비워 두면 호스트 이름을 쓰고, 호스트 이름을 알 수 없으면 임의의 이름을 씁니다
+    @Value("${coupon.write-behind.consumer:}")
+    private String consumerName;
+
+    @Value("${coupon.write-behind.claim-idle-second:60}")
+    private Long claimIdleSecond;
+
+    private volatile boolean groupCreated;
+
+    @PostConstruct
+    public void resolveConsumerName() {
+        if (!consumerName.isBlank()) return;
+        try {
+            consumerName = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            consumerName = "store-service-" + UUID.randomUUID();
+        }
+        log.info("issued coupon stream consumer is {}", consumerName);
+    }
+
+    public long issue(Coupon coupon, Long userId, String nickname, String phoneNumber, LocalDateTime issuedAt) {
+        List<String> keys = List.of(makeRedisKey(coupon), ISSUED_COUPON_STREAM_KEY, ISSUED_COUPON_TRACKING_KEY);
+        Long result = redisTemplate.execute(COUPON_ISSUE_AND_ENQUEUE, keys, userId.toString(),
+                String.valueOf(coupon.getLimitCount()), coupon.getId().toString(),
+                nullToEmpty(nickname), nullToEmpty(phoneNumber), issuedAt.toString());
+        return result;
+    }
+
+    // 스트림이 지워지면 그룹도 함께 사라지므로 읽기에 실패하면 그룹을 다시 만들고 한 번 더 읽습니다
+    public List<MapRecord<String, String, String>> read(long count) {
+        try {
+            return readPendingOrNew(count);
+        } catch (Exception e) {
+            groupCreated = false;
+            return readPendingOrNew(count);
+        }
+    }
+
+    // 이전에 읽고 처리하지 못한 항목, 다른 서버가 오래 처리하지 못한 항목, 새 항목 순으로 읽습니다
+    private List<MapRecord<String, String, String>> readPendingOrNew(long count) {
+        if (!ensureGroup()) return List.of();
+
+        List<MapRecord<String, String, String>> pending = read(ReadOffset.from(PENDING_OFFSET), count);
+        if (!pending.isEmpty()) return pending;
+        List<MapRecord<String, String, String>> claimed = claimIdle(count);
+        if (!claimed.isEmpty()) return claimed;
+        return read(ReadOffset.lastConsumed(), count);
+    }
+
+    private List<MapRecord<String, String, String>> claimIdle(long count) {
+        Duration minIdleTime = Duration.ofSeconds(claimIdleSecond);
+        StreamOperations<String, String, String> streamOperations = redisTemplate.opsForStream();
+        PendingMessages pendingMessages = streamOperations.pending(ISSUED_COUPON_STREAM_KEY, GROUP, Range.unbounded(), count);
+        RecordId[] idleIds = pendingMessages.stream()
+                .filter(message -> !consumerName.equals(message.getConsumerName()))
+                .filter(message -> message.getElapsedTimeSinceLastDelivery().compareTo(minIdleTime) >= 0)
+                .map(PendingMessage::getId)
+                .toArray(RecordId[]::new);
+        if (idleIds.length == 0) return List.of();
+
+        List<MapRecord<String, String, String>> claimed = streamOperations.claim(ISSUED_COUPON_STREAM_KEY, GROUP,
+                consumerName, minIdleTime, idleIds);
+        return claimed == null ? List.of() : claimed;
+    }
+
+    public void ack(List<RecordId> recordIds) {
+        if (recordIds.isEmpty()) return;
+        RecordId[] ids = recordIds.toArray(RecordId[]::new);
+        StreamOperations<String, String, String> streamOperations = redisTemplate.opsForStream();
+        streamOperations.acknowledge(ISSUED_COUPON_STREAM_KEY, GROUP, ids);
+        streamOperations.delete(ISSUED_COUPON_STREAM_KEY, ids);
+    }
+
+    public void deadLetter(MapRecord<String, String, String> record) {
+        StreamOperations<String, String, String> streamOperations = redisTemplate.opsForStream();
+        streamOperations.add(StreamRecords.newRecord().in(ISSUED_COUPON_DEAD_LETTER_KEY).ofMap(record.getValue()));
+        ack(List.of(record.getId()));
+    }
+
+    // 발급 내역을 다시 쌓습니다. IssuedCouponReconciler가 레디스에만 남은 발급을 저장할 때 사용합니다
+    public void enqueue(Long couponId, Collection<Long> userIds, LocalDateTime issuedAt) {
+        StreamOperations<String, String, String> streamOperations = redisTemplate.opsForStream();
+        userIds.forEach(userId -> streamOperations.add(StreamRecords.newRecord().in(ISSUED_COUPON_STREAM_KEY).ofMap(Map.of(
+                "couponId", couponId.toString(),
+                "userId", userId.toString(),
+                "nickname", "",
+                "phoneNumber", "",
+                "issuedAt", issuedAt.toString()))));
+    }
+
+    // 지금까지 스트림에 쌓인 마지막 항목의 id이며, 스트림이 없으면 null을 반환합니다
+    public RecordId lastIssuedId() {
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(ISSUED_COUPON_STREAM_KEY))) return null;
+        return RecordId.of(redisTemplate.opsForStream().info(ISSUED_COUPON_STREAM_KEY).lastGeneratedId());
+    }
+
+    // 저장한 항목은 스트림에서 지우므로 가장 오래된 항목이 watermark 뒤라면 그때까지 쌓인 항목은 모두 처리된 것입니다
+    public boolean isFlushedUpTo(RecordId watermark) {
+        if (watermark == null) return true;
+        StreamOperations<String, String, String> streamOperations = redisTemplate.opsForStream();
+        List<MapRecord<String, String, String>> oldest = streamOperations.range(ISSUED_COUPON_STREAM_KEY,
+                Range.unbounded(), Limit.limit().count(1));
+        if (oldest == null || oldest.isEmpty()) return true;
+        RecordId oldestId = oldest.get(0).getId();
+        int compared = Long.compare(oldestId.getTimestamp(), watermark.getTimestamp());
+        return compared != 0 ? compared > 0 : oldestId.getSequence() > watermark.getSequence();
+    }
+
+    public long backlog() {
+        Long size = redisTemplate.opsForStream().size(ISSUED_COUPON_STREAM_KEY);
+        return size == null ? 0L : size;
+    }
+
+    public Set<Long> getTrackedCouponIds() {
+        Set<String> members = redisTemplate.opsForSet().members(ISSUED_COUPON_TRACKING_KEY);
+        if (members == null) return Set.of();
+        return members.stream()
+                .map(Long::valueOf)
+                .collect(Collectors.toSet());
+    }
+
+    public void untrack(Long couponId) {
+        redisTemplate.opsForSet().remove(ISSUED_COUPON_TRACKING_KEY, couponId.toString());
+    }
+
+    public IssuedCouponInsertDto toInsertDto(MapRecord<String, String, String> record) {
+        Map<String, String> value = record.getValue();
+        return IssuedCouponInsertDto.builder()
+                .couponId(Long.valueOf(value.get("couponId")))
+                .userId(Long.valueOf(value.get("userId")))
+                .nickname(emptyToNull(value.get("nickname")))
+                .phoneNumber(emptyToNull(value.get("phoneNumber")))
+                .issuedAt(LocalDateTime.parse(value.get("issuedAt")))
+                .build();
+    }
+
+    private List<MapRecord<String, String, String>> read(ReadOffset readOffset, long count) {
+        StreamOperations<String, String, String> streamOperations = redisTemplate.opsForStream();
+        List<MapRecord<String, String, String>> records = streamOperations.read(
+                Consumer.from(GROUP, consumerName),
+                StreamReadOptions.empty().count(count),
+                StreamOffset.create(ISSUED_COUPON_STREAM_KEY, readOffset));
+        return records == null ? List.of() : records;
+    }
+
+    // 스트림은 첫 발급 스크립트가 만들기 때문에 스트림이 생긴 뒤에 그룹을 만듭니다
+    private boolean ensureGroup() {
+        if (groupCreated) return true;
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(ISSUED_COUPON_STREAM_KEY))) return false;
+
+        try {
+            redisTemplate.opsForStream().createGroup(ISSUED_COUPON_STREAM_KEY, ReadOffset.from(PENDING_OFFSET), GROUP);
+        } catch (Exception e) {
+            log.debug("issued coupon consumer group already exists : {}", e.getMessage());
+        }
+        groupCreated = true;
+        return true;
+    }
+
+    private String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,111 @@
+package kr.bb.store.domain.coupon.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.bb.store.domain.coupon.repository.IssuedCouponRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/*
+ * 스트림에 쌓인 발급 내역을 한 번의 배치로 저장합니다.
+ * 배치가 실패하면 한 건씩 다시 저장해 실패한 항목만 남기고, 남은 항목은 다음 주기에 재시도합니다.
+ * 설정한 횟수만큼 실패한 항목은 dead letter 스트림으로 옮깁니다.
+ * 저장 전에 DB로 만든 유저의 결제 쿠폰 항목과 보유 쿠폰 수는 새 발급 내역이 빠져 있으므로 저장한 뒤 다시 지웁니다.
+ */
+@Slf4j
+@Component
+public class IssuedCouponWriteBehindFlusher {
+    private final IssuedCouponWriteBehind issuedCouponWriteBehind;
+    private final IssuedCouponRepository issuedCouponRepository;
+    private final CouponEligibilityEngine couponEligibilityEngine;
+    private final UserCouponCounter userCouponCounter;
+    private final Map<RecordId, Integer> attempts = new ConcurrentHashMap<>();
+    private final Counter writtenCounter;
+    private final Counter retriedCounter;
+    private final Counter deadLetterCounter;
+
+    @Value("${coupon.write-behind.batch-size:500}")
+    private Long batchSize;
+
+    @Value("${coupon.write-behind.max-attempts:5}")
+    private Integer maxAttempts;
+
+    public IssuedCouponWriteBehindFlusher(IssuedCouponWriteBehind issuedCouponWriteBehind,
+                                          IssuedCouponRepository issuedCouponRepository,
+                                          CouponEligibilityEngine couponEligibilityEngine,
+                                          UserCouponCounter userCouponCounter, MeterRegistry meterRegistry) {
+        this.issuedCouponWriteBehind = issuedCouponWriteBehind;
+        this.issuedCouponRepository = issuedCouponRepository;
+        this.couponEligibilityEngine = couponEligibilityEngine;
+        this.userCouponCounter = userCouponCounter;
+        this.writtenCounter = meterRegistry.counter("coupon.write-behind.written");
+        this.retriedCounter = meterRegistry.counter("coupon.write-behind.retried");
+        this.deadLetterCounter = meterRegistry.counter("coupon.write-behind.dead-letter");
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.write-behind.flush-millis:500}")
+    public void flush() {
+        List<MapRecord<String, String, String>> records;
+        try {
+            records = issuedCouponWriteBehind.read(batchSize);
+        } catch (Exception e) {
+            log.error("issued coupon stream read failed with cause of {}", e.getMessage());
+            return;
+        }
+        if (records.isEmpty()) return;
+
+        try {
+            issuedCouponRepository.insertIfAbsentInBatch(records.stream()
+                    .map(issuedCouponWriteBehind::toInsertDto)
+                    .collect(Collectors.toList()));
+            complete(records);
+        } catch (Exception e) {
+            log.error("issued coupon batch insert failed with cause of {}", e.getMessage());
+            records.forEach(this::flushOne);
+        }
+    }
+
+    private void flushOne(MapRecord<String, String, String> record) {
+        try {
+            issuedCouponRepository.insertIfAbsentInBatch(List.of(issuedCouponWriteBehind.toInsertDto(record)));
+            complete(List.of(record));
+        } catch (Exception e) {
+            retriedCounter.increment();
+            int attempt = attempts.merge(record.getId(), 1, Integer::sum);
+            if (attempt < maxAttempts) return;
+
+            log.error("issued coupon {} moved to dead letter with cause of {}", record.getValue(), e.getMessage());
+            issuedCouponWriteBehind.deadLetter(record);
+            attempts.remove(record.getId());
+            deadLetterCounter.increment();
+        }
+    }
+
+    private void complete(List<MapRecord<String, String, String>> records) {
+        List<RecordId> recordIds = records.stream()
+                .map(MapRecord::getId)
+                .collect(Collectors.toList());
+        issuedCouponWriteBehind.ack(recordIds);
+        recordIds.forEach(attempts::remove);
+        writtenCounter.increment(records.size());
+        evictUsers(records);
+    }
+
+    private void evictUsers(List<MapRecord<String, String, String>> records) {
+        Set<Long> userIds = records.stream()
+                .map(record -> Long.valueOf(record.getValue().get("userId")))
+                .collect(Collectors.toSet());
+        userIds.forEach(couponEligibilityEngine::evictUser);
+        userCouponCounter.invalidate(userIds);
+    }
+}
@@ -0,0 +1,130 @@
+package kr.bb.store.domain.coupon.handler;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kr.bb.store.domain.coupon.dto.CouponDto;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static kr.bb.store.util.RedisUtils.COUPON_CATALOG_CHANNEL;
+import static kr.bb.store.util.RedisUtils.makeCouponCatalogKey;
+import static kr.bb.store.util.RedisUtils.makeCouponCatalogVersionKey;
+import static kr.bb.store.util.luascript.RedisScripts.COUPON_CATALOG_PUT;
+
+/*
+ * 가게의 유효한 쿠폰 목록을 서버 메모리(L1)와 레디스(L2)에 가게와 날짜 단위로 저장합니다.
+ * 목록에는 유저별 정보가 없으므로 발급, 사용 여부는 CouponReader가 유저의 발급 내역으로 덧씌웁니다.
+ * 쿠폰이 생성, 수정, 삭제되면 가게의 목록 버전을 올리고 레디스 항목을 지운 뒤 pub/sub으로 모든 서버의 메모리 항목을 지웁니다.
+ * DB를 읽기 전에 버전을 받아 두어, 읽는 동안 지워진 목록은 레디스와 메모리에 다시 쓰지 않습니다.
+ */
+@Slf4j
+@Component
+public class StoreCouponCatalog implements ApplicationRunner {
+    private static final TypeReference<List<CouponDto>> CATALOG_TYPE = new TypeReference<>() {};
+    private static final String DELIMITER = ":";
+
+    private final CouponRepository couponRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, List<CouponDto>> localCatalogs;
+    private final Map<Long, Long> storeGenerations = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Duration ttl;
+
+    public StoreCouponCatalog(CouponRepository couponRepository, RedisTemplate<String, String> redisTemplate,
+                              RedissonClient redissonClient, ObjectMapper objectMapper,
+                              @Value("${coupon.catalog.enabled:true}") boolean enabled,
+                              @Value("${coupon.catalog.ttl-second:600}") long ttlSecond,
+                              @Value("${coupon.catalog.local-ttl-second:10}") long localTtlSecond,
+                              @Value("${coupon.catalog.local-max-size:10000}") long localMaxSize) {
+        this.couponRepository = couponRepository;
+        this.redisTemplate = redisTemplate;
+        this.redissonClient = redissonClient;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttl = Duration.ofSeconds(ttlSecond);
+        this.localCatalogs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(localTtlSecond))
+                .maximumSize(localMaxSize)
+                .build();
+    }
+
+    // 레디스를 쓸 수 없는 환경에서도 서버 안에서는 동작하도록 구독 실패는 시작을 막지 않습니다
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        try {
+            redissonClient.getTopic(COUPON_CATALOG_CHANNEL, StringCodec.INSTANCE)
+                    .addListener(String.class, (channel, storeId) -> evictLocally(Long.valueOf(storeId)));
+        } catch (Exception e) {
+            log.warn("coupon catalog not subscribed with cause of {}", e.getMessage());
+        }
+    }
+
+    public List<CouponDto> read(Long storeId, LocalDate now) {
+        if (!enabled) return couponRepository.findAllValidateCouponDtosByStoreId(storeId, now);
+        return localCatalogs.get(makeLocalKey(storeId, now), key -> readThroughRedis(storeId, now));
+    }
+
+    public void evict(Long storeId) {
+        if (!enabled) return;
+        evictLocally(storeId);
+        try {
+            redisTemplate.opsForValue().increment(makeCouponCatalogVersionKey(storeId));
+            redisTemplate.delete(makeCouponCatalogKey(storeId));
+            redissonClient.getTopic(COUPON_CATALOG_CHANNEL, StringCodec.INSTANCE).publish(String.valueOf(storeId));
+        } catch (Exception e) {
+            log.warn("coupon catalog of store {} not evicted with cause of {}", storeId, e.getMessage());
+        }
+    }
+
+    private List<CouponDto> readThroughRedis(Long storeId, LocalDate now) {
+        String key = makeCouponCatalogKey(storeId);
+        String field = now.toString();
+        String version = "0";
+        try {
+            String current = redisTemplate.opsForValue().get(makeCouponCatalogVersionKey(storeId));
+            if (current != null) version = current;
+            Object cached = redisTemplate.opsForHash().get(key, field);
+            if (cached != null) return objectMapper.readValue(cached.toString(), CATALOG_TYPE);
+        } catch (Exception e) {
+            log.warn("coupon catalog of store {} not read from redis with cause of {}", storeId, e.getMessage());
+        }
+
+        List<CouponDto> catalog = couponRepository.findAllValidateCouponDtosByStoreId(storeId, now);
+        try {
+            redisTemplate.execute(COUPON_CATALOG_PUT, List.of(key, makeCouponCatalogVersionKey(storeId)),
+                    version, field, objectMapper.writeValueAsString(catalog), String.valueOf(ttl.getSeconds()));
+        } catch (Exception e) {
+            log.warn("coupon catalog of store {} not written to redis with cause of {}", storeId, e.getMessage());
+        }
+        return catalog;
+    }
+
+    // 세대를 먼저 올려 읽는 중인 이전 세대의 목록은 다시 조회되지 않게 합니다
+    private void evictLocally(Long storeId) {
+        storeGenerations.merge(storeId, 1L, Long::sum);
+        String prefix = storeId + DELIMITER;
+        localCatalogs.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private String makeLocalKey(Long storeId, LocalDate now) {
+        return storeId + DELIMITER + storeGenerations.getOrDefault(storeId, 0L) + DELIMITER + now;
+    }
+}
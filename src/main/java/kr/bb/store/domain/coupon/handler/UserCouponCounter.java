@@ -0,0 +1,168 @@
+package kr.bb.store.domain.coupon.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.entity.IssuedCoupon;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import kr.bb.store.domain.coupon.repository.IssuedCouponRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static kr.bb.store.util.RedisUtils.DUMMY_DATA;
+import static kr.bb.store.util.RedisUtils.USER_COUPON_USERS_KEY;
+import static kr.bb.store.util.RedisUtils.makeUserCouponEndKey;
+import static kr.bb.store.util.RedisUtils.makeUserCouponStartKey;
+import static kr.bb.store.util.luascript.RedisScripts.USER_COUPON_ADD;
+import static kr.bb.store.util.luascript.RedisScripts.USER_COUPON_COUNT;
+import static kr.bb.store.util.luascript.RedisScripts.USER_COUPON_REBUILD;
+
+/*
+ * 유저가 사용할 수 있는 쿠폰 수를 레디스 sorted set으로 유지해 조회마다 coupon과 issued_coupon을 조인하지 않습니다.
+ * 발급, 사용, 사용 취소 때 바로 반영하고, 쿠폰이 수정되거나 삭제되면 보유자의 키를 지워 다음 조회에서 DB로 다시 만듭니다.
+ * 반영이 어긋나도 UserCouponCounterChecker가 SQL 결과와 비교해 다시 만듭니다.
+ */
+@Slf4j
+@Component
+public class UserCouponCounter {
+    private static final int INVALIDATE_BATCH_SIZE = 500;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final CouponRepository couponRepository;
+    private final IssuedCouponRepository issuedCouponRepository;
+    private final Counter mismatchCounter;
+
+    @Value("${coupon.user-counter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${coupon.user-counter.ttl-second:604800}")
+    private Long ttlSecond;
+
+    public UserCouponCounter(RedisTemplate<String, String> redisTemplate, CouponRepository couponRepository,
+                             IssuedCouponRepository issuedCouponRepository, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.couponRepository = couponRepository;
+        this.issuedCouponRepository = issuedCouponRepository;
+        this.mismatchCounter = meterRegistry.counter("coupon.user-counter.mismatch");
+    }
+
+    public int count(Long userId, LocalDate now) {
+        if (!enabled) return couponRepository.findMyValidCouponCount(userId, now);
+        try {
+            Long count = redisTemplate.execute(USER_COUPON_COUNT, keys(userId), String.valueOf(now.toEpochDay()));
+            if (count != null && count >= 0) return Math.toIntExact(count);
+            return rebuild(userId, now);
+        } catch (Exception e) {
+            log.warn("valid coupon count of user {} not read from redis with cause of {}", userId, e.getMessage());
+            return couponRepository.findMyValidCouponCount(userId, now);
+        }
+    }
+
+    public void add(Long userId, List<Coupon> coupons, LocalDate now) {
+        if (!enabled || coupons.isEmpty()) return;
+        List<String> args = new ArrayList<>(List.of(String.valueOf(now.toEpochDay()), String.valueOf(ttlSecond * 1000)));
+        coupons.forEach(coupon -> args.addAll(toArgs(coupon)));
+        try {
+            redisTemplate.execute(USER_COUPON_ADD, keys(userId), args.toArray());
+        } catch (Exception e) {
+            log.warn("coupons {} not added to user {} with cause of {}", toCouponIds(coupons), userId, e.getMessage());
+        }
+    }
+
+    public void remove(Long userId, Collection<Long> couponIds) {
+        if (!enabled || couponIds.isEmpty()) return;
+        Object[] members = couponIds.stream().map(String::valueOf).toArray();
+        try {
+            redisTemplate.opsForZSet().remove(makeUserCouponEndKey(userId), members);
+            redisTemplate.opsForZSet().remove(makeUserCouponStartKey(userId), members);
+        } catch (Exception e) {
+            log.warn("coupons {} not removed from user {} with cause of {}", couponIds, userId, e.getMessage());
+        }
+    }
+
+    // 보유자 수만큼 점수를 고치는 대신 키를 지우고 각 유저의 다음 조회에서 다시 만듭니다
+    public void invalidateHolders(Long couponId) {
+        if (!enabled) return;
+        List<Long> userIds = issuedCouponRepository.findUnusedUserIdsByCouponId(couponId);
+        for (int from = 0; from < userIds.size(); from += INVALIDATE_BATCH_SIZE) {
+            List<String> keys = new ArrayList<>();
+            userIds.subList(from, Math.min(from + INVALIDATE_BATCH_SIZE, userIds.size())).forEach(userId -> {
+                keys.add(makeUserCouponEndKey(userId));
+                keys.add(makeUserCouponStartKey(userId));
+            });
+            redisTemplate.delete(keys);
+        }
+    }
+
+    // 쓰기 지연으로 나중에 저장된 발급 내역은 키를 지워 다음 조회에서 DB로 다시 만듭니다
+    public void invalidate(Collection<Long> userIds) {
+        if (!enabled || userIds.isEmpty()) return;
+        List<String> keys = new ArrayList<>();
+        userIds.forEach(userId -> keys.addAll(keys(userId)));
+        try {
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            log.warn("valid coupon count of users {} not invalidated with cause of {}", userIds, e.getMessage());
+        }
+    }
+
+    public int rebuild(Long userId, LocalDate now) {
+        List<Coupon> coupons = issuedCouponRepository.findAllUnusedWithCouponByUserId(userId, now).stream()
+                .map(IssuedCoupon::getCoupon)
+                .collect(Collectors.toList());
+        List<String> args = new ArrayList<>(List.of(String.valueOf(ttlSecond * 1000), userId.toString(), DUMMY_DATA));
+        coupons.forEach(coupon -> args.addAll(toArgs(coupon)));
+        List<String> keys = new ArrayList<>(keys(userId));
+        keys.add(USER_COUPON_USERS_KEY);
+        redisTemplate.execute(USER_COUPON_REBUILD, keys, args.toArray());
+
+        return (int) coupons.stream().filter(coupon -> !coupon.getStartDate().isAfter(now)).count();
+    }
+
+    // 레디스 값이 SQL 결과와 다르면 지표를 남기고 다시 만듭니다
+    public boolean check(Long userId, LocalDate now) {
+        Long count = redisTemplate.execute(USER_COUPON_COUNT, keys(userId), String.valueOf(now.toEpochDay()));
+        if (count == null || count < 0) {
+            redisTemplate.opsForSet().remove(USER_COUPON_USERS_KEY, userId.toString());
+            return true;
+        }
+        int expected = couponRepository.findMyValidCouponCount(userId, now);
+        if (count == expected) return true;
+
+        mismatchCounter.increment();
+        log.warn("valid coupon count of user {} differs between redis {} and db {}", userId, count, expected);
+        rebuild(userId, now);
+        return false;
+    }
+
+    public List<Long> sampleUsers(int size) {
+        List<String> userIds = redisTemplate.opsForSet().randomMembers(USER_COUPON_USERS_KEY, size);
+        if (userIds == null) return List.of();
+        return userIds.stream().distinct().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private List<String> keys(Long userId) {
+        return List.of(makeUserCouponEndKey(userId), makeUserCouponStartKey(userId));
+    }
+
+    private List<String> toArgs(Coupon coupon) {
+        return List.of(coupon.getId().toString(), String.valueOf(coupon.getEndDate().toEpochDay()),
+                String.valueOf(coupon.getStartDate().toEpochDay()));
+    }
+
+    private List<Long> toCouponIds(List<Coupon> coupons) {
+        return coupons.stream().map(Coupon::getId).collect(Collectors.toList());
+    }
+}
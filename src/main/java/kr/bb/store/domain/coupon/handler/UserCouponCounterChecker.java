@@ -0,0 +1,35 @@
+package kr.bb.store.domain.coupon.handler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/*
+ * 주기마다 카운터가 있는 유저를 무작위로 골라 SQL 조회 결과와 비교하고, 다르면 다시 만듭니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserCouponCounterChecker {
+    private final UserCouponCounter userCouponCounter;
+
+    @Value("${coupon.user-counter.check-size:100}")
+    private Integer checkSize;
+
+    @Scheduled(fixedDelayString = "${coupon.user-counter.check-millis:300000}")
+    public void check() {
+        if (!userCouponCounter.isEnabled()) return;
+        LocalDate now = LocalDate.now();
+        userCouponCounter.sampleUsers(checkSize).forEach(userId -> {
+            try {
+                userCouponCounter.check(userId, now);
+            } catch (Exception e) {
+                log.error("valid coupon count of user {} not checked with cause of {}", userId, e.getMessage());
+            }
+        });
+    }
+}
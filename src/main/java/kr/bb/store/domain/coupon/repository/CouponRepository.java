@@ -3,5 +3,11 @@ package kr.bb.store.domain.coupon.repository;
 import kr.bb.store.domain.coupon.entity.Coupon;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDate;
+import java.util.List;
+
 public interface CouponRepository extends JpaRepository<Coupon,Long>,CouponRepositoryCustom {
+    List<Coupon> findAllByIsDeletedFalseAndEndDateGreaterThanEqual(LocalDate now);
+
+    List<Coupon> findAllByIsDeletedFalseAndStartDateBetween(LocalDate from, LocalDate to);
 }
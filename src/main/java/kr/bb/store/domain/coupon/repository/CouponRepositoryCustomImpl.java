@@ -20,6 +20,7 @@ public class CouponRepositoryCustomImpl implements CouponRepositoryCustom{
         this.queryFactory = new JPAQueryFactory(em);
     }
 
+    // 남은 수량은 CouponIssuedCounter의 발급 수량으로 채우므로 처음에는 전체 수량을 담습니다
     @Override
     public List<CouponForOwnerDto> findAllDtoByStoreId(Long storeId, LocalDate now) {
         return queryFactory
@@ -30,12 +31,7 @@ public class CouponRepositoryCustomImpl implements CouponRepositoryCustom{
                         coupon.minPrice,
                         coupon.discountPrice,
                         coupon.limitCount,
-                        coupon.limitCount.subtract(
-                                JPAExpressions
-                                        .select(issuedCoupon.count())
-                                        .from(issuedCoupon)
-                                        .where(issuedCoupon.id.couponId.eq(coupon.id))
-                        ),
+                        coupon.limitCount,
                         coupon.startDate,
                         coupon.endDate
                 ))
@@ -60,6 +56,26 @@ public class CouponRepositoryCustomImpl implements CouponRepositoryCustom{
                 .fetch();
     }
 
+    @Override
+    public List<CouponDto> findAllValidateCouponDtosByStoreId(Long storeId, LocalDate now) {
+        return queryFactory
+                .select(new QCouponDto(
+                        coupon.id,
+                        coupon.couponName,
+                        coupon.store.storeName,
+                        coupon.discountPrice,
+                        coupon.endDate,
+                        coupon.minPrice
+                ))
+                .from(coupon)
+                .where(
+                        coupon.store.id.eq(storeId),
+                        isValidDate(now),
+                        coupon.isDeleted.isFalse()
+                )
+                .fetch();
+    }
+
     @Override
     public List<CouponWithIssueStatusDto> findStoreCouponsForUser(Long userId, Long storeId, LocalDate now) {
         return queryFactory
@@ -1,21 +1,70 @@
 package kr.bb.store.domain.coupon.repository;
 
+import kr.bb.store.domain.coupon.dto.CouponIssuedCountDto;
 import kr.bb.store.domain.coupon.entity.IssuedCoupon;
 import kr.bb.store.domain.coupon.entity.IssuedCouponId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface IssuedCouponRepository extends JpaRepository<IssuedCoupon, IssuedCouponId> {
+public interface IssuedCouponRepository extends JpaRepository<IssuedCoupon, IssuedCouponId>, IssuedCouponRepositoryCustom {
     @Query(value = "select * from issued_coupon where user_id = :userId and is_used = false",nativeQuery = true)
     List<IssuedCoupon> findUsableCouponsByUserId(@Param("userId") Long userId);
 
     @Query(value = "SELECT * FROM issued_coupon WHERE coupon_id = :couponId ORDER BY created_at LIMIT :pageSize OFFSET :offset", nativeQuery = true)
     List<IssuedCoupon> findByCouponId(@Param("couponId") Long couponId, @Param("offset") long offset, @Param("pageSize") int pageSize);
 
+    @Query(value = "SELECT * FROM issued_coupon WHERE coupon_id = :couponId " +
+            "ORDER BY created_at, user_id LIMIT :pageSize", nativeQuery = true)
+    List<IssuedCoupon> findFirstPageByCouponId(@Param("couponId") Long couponId, @Param("pageSize") int pageSize);
+
+    @Query(value = "SELECT * FROM issued_coupon WHERE coupon_id = :couponId " +
+            "AND (created_at > :createdAt OR (created_at = :createdAt AND user_id > :userId)) " +
+            "ORDER BY created_at, user_id LIMIT :pageSize", nativeQuery = true)
+    List<IssuedCoupon> findPageByCouponIdAfter(@Param("couponId") Long couponId, @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("userId") Long userId, @Param("pageSize") int pageSize);
+
     long countByCouponId(Long couponId);
+
+    @Query("select ic from IssuedCoupon ic join fetch ic.coupon c " +
+            "where ic.id.userId = :userId and ic.isUsed = false and c.isDeleted = false and c.endDate >= :now")
+    List<IssuedCoupon> findAllUnusedWithCouponByUserId(@Param("userId") Long userId, @Param("now") LocalDate now);
+
+    @Query("select ic.id.userId from IssuedCoupon ic where ic.id.couponId = :couponId")
+    List<Long> findUserIdsByCouponId(@Param("couponId") Long couponId);
+
+    @Query("select ic.id.userId from IssuedCoupon ic where ic.id.couponId = :couponId and ic.isUsed = false")
+    List<Long> findUnusedUserIdsByCouponId(@Param("couponId") Long couponId);
+
+    @Query("select ic from IssuedCoupon ic join fetch ic.coupon " +
+            "where ic.id.userId = :userId and ic.id.couponId in :couponIds")
+    List<IssuedCoupon> findAllWithCouponByUserIdAndCouponIds(@Param("userId") Long userId,
+                                                            @Param("couponIds") Collection<Long> couponIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update IssuedCoupon ic set ic.isUsed = true, ic.updatedAt = :now " +
+            "where ic.id.userId = :userId and ic.id.couponId in :couponIds and ic.isUsed = false")
+    int useAll(@Param("userId") Long userId, @Param("couponIds") Collection<Long> couponIds,
+               @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update IssuedCoupon ic set ic.isUsed = false, ic.updatedAt = :now " +
+            "where ic.id.userId = :userId and ic.id.couponId in :couponIds and ic.isUsed = true")
+    int unUseAll(@Param("userId") Long userId, @Param("couponIds") Collection<Long> couponIds,
+                 @Param("now") LocalDateTime now);
+
+    @Query("select ic from IssuedCoupon ic where ic.id.userId = :userId and ic.id.couponId in :couponIds")
+    List<IssuedCoupon> findAllByUserIdAndCouponIds(@Param("userId") Long userId, @Param("couponIds") Collection<Long> couponIds);
+
+    @Query("select ic.id.couponId as couponId, count(ic) as issuedCount from IssuedCoupon ic " +
+            "where ic.id.couponId in :couponIds group by ic.id.couponId")
+    List<CouponIssuedCountDto> countGroupByCouponId(@Param("couponIds") Collection<Long> couponIds);
 }
@@ -0,0 +1,9 @@
+package kr.bb.store.domain.coupon.repository;
+
+import kr.bb.store.domain.coupon.dto.IssuedCouponInsertDto;
+
+import java.util.List;
+
+public interface IssuedCouponRepositoryCustom {
+    int[] insertIfAbsentInBatch(List<IssuedCouponInsertDto> issuedCouponInsertDtos);
+}
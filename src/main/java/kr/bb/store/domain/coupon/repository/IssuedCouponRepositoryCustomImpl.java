@@ -0,0 +1,56 @@
+package kr.bb.store.domain.coupon.repository;
+
+import kr.bb.store.domain.coupon.dto.IssuedCouponInsertDto;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+public class IssuedCouponRepositoryCustomImpl implements IssuedCouponRepositoryCustom {
+    private static final String INSERT_IF_ABSENT_SQL =
+            "insert into issued_coupon (coupon_id, user_id, nickname, phone_number, is_used, is_deleted, created_at, updated_at) " +
+            "select c.id, ?, ?, ?, false, false, ?, ? from coupon c " +
+            "where c.id = ? and not exists (select 1 from issued_coupon ic where ic.coupon_id = c.id and ic.user_id = ?)";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    public IssuedCouponRepositoryCustomImpl(EntityManager em, JdbcTemplate jdbcTemplate) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /*
+     * 같은 발급 내역이 여러번 전달되어도 한 행만 저장되도록 이미 있는 행은 건너뜁니다.
+     * 쿠폰 테이블에서 값을 골라 넣기 때문에 DB 종류와 관계없이 동작하며, 건너뛴 행은 결과 배열에서 0으로 확인할 수 있습니다.
+     */
+    @Override
+    public int[] insertIfAbsentInBatch(List<IssuedCouponInsertDto> issuedCouponInsertDtos) {
+        // 트랜잭션 안에서 호출되면 아직 반영되지 않은 쿠폰도 조회되도록 먼저 flush 합니다
+        if (TransactionSynchronizationManager.isActualTransactionActive()) em.flush();
+        return jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                IssuedCouponInsertDto issuedCouponInsertDto = issuedCouponInsertDtos.get(i);
+                Timestamp issuedAt = Timestamp.valueOf(issuedCouponInsertDto.getIssuedAt());
+                ps.setLong(1, issuedCouponInsertDto.getUserId());
+                ps.setString(2, issuedCouponInsertDto.getNickname());
+                ps.setString(3, issuedCouponInsertDto.getPhoneNumber());
+                ps.setTimestamp(4, issuedAt);
+                ps.setTimestamp(5, issuedAt);
+                ps.setLong(6, issuedCouponInsertDto.getCouponId());
+                ps.setLong(7, issuedCouponInsertDto.getUserId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return issuedCouponInsertDtos.size();
+            }
+        });
+    }
+}
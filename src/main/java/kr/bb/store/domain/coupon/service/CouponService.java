@@ -5,26 +5,31 @@ import kr.bb.store.domain.coupon.controller.request.CouponCreateRequest;
 import kr.bb.store.domain.coupon.controller.request.CouponEditRequest;
 import kr.bb.store.domain.coupon.controller.request.TotalAmountRequest;
 import kr.bb.store.domain.coupon.controller.response.CouponIssuerResponse;
+import kr.bb.store.domain.coupon.controller.response.CouponQueueResponse;
 import kr.bb.store.domain.coupon.dto.*;
 import kr.bb.store.domain.coupon.entity.Coupon;
 import kr.bb.store.domain.coupon.entity.IssuedCoupon;
+import kr.bb.store.domain.coupon.exception.AlreadyUsedCouponException;
 import kr.bb.store.domain.coupon.exception.CouponInconsistencyException;
 import kr.bb.store.domain.coupon.exception.UnAuthorizedCouponException;
 import kr.bb.store.domain.coupon.handler.*;
 import kr.bb.store.domain.store.entity.Store;
 import kr.bb.store.domain.store.handler.StoreReader;
-import kr.bb.store.util.RedisOperation;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
-import static kr.bb.store.util.RedisUtils.makeRedisKey;
+import static kr.bb.store.util.TransactionUtils.afterCommit;
 
 @Service
 @Transactional(readOnly = true)
@@ -36,15 +41,26 @@ public class CouponService {
     private final IssuedCouponReader issuedCouponReader;
     private final CouponIssuer couponIssuer;
     private final StoreReader storeReader;
-    private final RedisOperation redisOperation;
+    private final CouponMembership couponMembership;
+    private final CouponWaitingRoom couponWaitingRoom;
+    private final CouponIssuedCounter couponIssuedCounter;
+    private final StoreCouponCatalog storeCouponCatalog;
+    private final UserCouponCounter userCouponCounter;
+    private final CouponDropCache couponDropCache;
+    private final CouponEligibilityEngine couponEligibilityEngine;
+    private final CouponNegativeCache couponNegativeCache;
+
+    // 한 번의 커서 조회가 발급 내역을 한꺼번에 읽지 않도록 페이지 크기를 제한합니다
+    @Value("${coupon.members.max-page-size:100}")
+    private int maxMemberPageSize;
 
     @Transactional
     public void createCoupon(Long storeId, CouponCreateRequest couponCreateRequest) {
         Store store = storeReader.findStoreById(storeId);
         Coupon coupon = couponCreator.create(store, couponCreateRequest.toDto());
-
-        String redisKey = makeRedisKey(coupon);
-        redisOperation.addAndSetExpr(redisKey, coupon.getEndDate().plusDays(1));
+        couponMembership.register(coupon, coupon.getEndDate().plusDays(1));
+        afterCommit(() -> storeCouponCatalog.evict(storeId));
+        afterCommit(() -> couponEligibilityEngine.evictStore(storeId));
     }
 
     @Transactional
@@ -52,9 +68,11 @@ public class CouponService {
         Coupon coupon = couponReader.read(couponId);
         validateCouponAuthorization(coupon,storeId);
         couponManager.edit(coupon, couponEditRequest.toDto());
-
-        String redisKey = makeRedisKey(coupon);
-        redisOperation.setExpr(redisKey, couponEditRequest.getEndDate());
+        couponMembership.expireAt(coupon, couponEditRequest.getEndDate());
+        afterCommit(() -> storeCouponCatalog.evict(storeId));
+        afterCommit(() -> couponEligibilityEngine.evictStore(storeId));
+        afterCommit(() -> userCouponCounter.invalidateHolders(couponId));
+        afterCommit(() -> couponDropCache.evict(couponId));
     }
 
     @Transactional
@@ -62,40 +80,67 @@ public class CouponService {
         Coupon coupon = couponReader.read(couponId);
         validateCouponAuthorization(coupon,storeId);
         couponManager.softDelete(coupon);
+        afterCommit(() -> storeCouponCatalog.evict(storeId));
+        afterCommit(() -> couponEligibilityEngine.evictStore(storeId));
+        afterCommit(() -> userCouponCounter.invalidateHolders(couponId));
+        afterCommit(() -> couponDropCache.evict(couponId));
     }
 
+    // 드롭을 위해 미리 올려 둔 쿠폰은 DB에서 읽지 않습니다
     @Transactional
     public void downloadCoupon(Long userId, Long couponId, String nickname, String phoneNumber, LocalDate now) {
-        Coupon coupon = couponReader.read(couponId);
-        couponIssuer.issueCoupon(coupon, userId, nickname, phoneNumber, now);
+        long couponVersion = couponNegativeCache.version(couponId);
+        Coupon coupon = couponDropCache.find(couponId);
+        if (coupon == null) coupon = couponReader.read(couponId);
+        couponIssuer.issueCoupon(coupon, userId, nickname, phoneNumber, now, couponVersion);
+        afterCommit(() -> couponEligibilityEngine.evictUser(userId));
     }
 
     @Transactional
     public void downloadAllCoupons(Long userId, Long storeId, String nickname, String phoneNumber, LocalDate now) {
         List<Coupon> coupons = couponReader.readStoresAllValidateCoupon(storeId, now);
         couponIssuer.issuePossibleCoupons(coupons, userId, nickname, phoneNumber, now);
+        afterCommit(() -> couponEligibilityEngine.evictUser(userId));
+    }
+
+    // 대기열은 쿠폰의 존재만 확인하고 레디스만 거칩니다. 삭제와 기간 검증은 CouponWaitingRoomAdmitter가 발급할 때 합니다
+    public CouponQueueResponse enterCouponQueue(Long userId, Long couponId, String nickname, String phoneNumber) {
+        return couponWaitingRoom.enter(couponId, userId, nickname, phoneNumber);
+    }
+
+    public CouponQueueResponse getCouponQueueStatus(Long userId, Long couponId) {
+        return couponWaitingRoom.getStatus(couponId, userId);
     }
 
     @Transactional
     public void useCoupon(Long couponId, Long userId, LocalDate useDate) {
         IssuedCoupon issuedCoupon = issuedCouponReader.read(couponId,userId);
         couponManager.use(issuedCoupon, useDate);
+        afterCommit(() -> userCouponCounter.remove(userId, List.of(couponId)));
+        afterCommit(() -> couponEligibilityEngine.evictUser(userId));
     }
 
+    // 같은 쿠폰을 두 번 사용하는 요청은 이미 사용한 쿠폰과 같게 거절합니다
     @Transactional
     public void useAllCoupons(List<Long> couponIds, Long userId, LocalDate useDate) {
-        couponIds.forEach(couponId -> {
-            IssuedCoupon issuedCoupon = issuedCouponReader.read(couponId,userId);
-            couponManager.use(issuedCoupon, useDate);
-        });
+        if (couponIds.isEmpty()) return;
+        Set<Long> distinctCouponIds = new LinkedHashSet<>(couponIds);
+        if (distinctCouponIds.size() != couponIds.size()) throw new AlreadyUsedCouponException();
+
+        List<IssuedCoupon> issuedCoupons = issuedCouponReader.readAllWithCoupon(distinctCouponIds, userId);
+        couponManager.useAll(issuedCoupons, userId, useDate);
+        afterCommit(() -> userCouponCounter.remove(userId, distinctCouponIds));
+        afterCommit(() -> couponEligibilityEngine.evictUser(userId));
     }
 
     @Transactional
     public void unUseAllCoupons(List<Long> couponIds, Long userId) {
-        couponIds.forEach(couponId -> {
-            IssuedCoupon issuedCoupon = issuedCouponReader.read(couponId,userId);
-            couponManager.unUse(issuedCoupon);
-        });
+        if (couponIds.isEmpty()) return;
+        List<IssuedCoupon> issuedCoupons = issuedCouponReader.readAllWithCoupon(new LinkedHashSet<>(couponIds), userId);
+        couponManager.unUseAll(issuedCoupons, userId);
+        List<Coupon> coupons = issuedCoupons.stream().map(IssuedCoupon::getCoupon).collect(Collectors.toList());
+        afterCommit(() -> userCouponCounter.add(userId, coupons, LocalDate.now()));
+        afterCommit(() -> couponEligibilityEngine.evictUser(userId));
     }
 
     public List<CouponForOwnerDto> getAllStoreCoupons(Long storeId, LocalDate now) {
@@ -108,7 +153,7 @@ public class CouponService {
 
     public List<CouponWithAvailabilityDto> getAvailableCouponsInPayment(TotalAmountRequest totalAmountRequest,
                                                                Long userId, Long storeId, LocalDate now) {
-        return couponReader.readAvailableCouponsInStore(totalAmountRequest.getTotalAmount(), userId, storeId, now);
+        return couponEligibilityEngine.findAvailable(totalAmountRequest.getTotalAmount(), userId, storeId, now);
     }
 
     public List<CouponDto> getMyValidCoupons(Long userId, LocalDate now) {
@@ -123,26 +168,55 @@ public class CouponService {
 
         List<IssuedCouponDto> issuedCoupons = issuedCouponReader.readByCouponId(couponId, pageable)
                 .stream().map(IssuedCouponDto::fromEntity).collect(Collectors.toList());
-        long count = issuedCouponReader.countByCouponId(couponId);
+        long count = couponIssuedCounter.count(couponId, coupon.getCouponCode());
 
         return CouponIssuerResponse.of(issuedCoupons, count);
     }
 
+    // 다음 페이지가 있는지 알기 위해 한 행을 더 읽고, 전체 수는 레디스의 발급 수량을 사용합니다
+    public CouponIssuerResponse getCouponMembersByCursor(Long userId, Long couponId, String cursor, int size) {
+        Coupon coupon = couponReader.read(couponId);
+        if(!coupon.getStore().getStoreManagerId().equals(userId)) {
+            throw new UnAuthorizedCouponException();
+        }
+
+        int pageSize = Math.min(Math.max(size, 1), maxMemberPageSize);
+        CouponMemberCursor memberCursor = cursor == null ? null : CouponMemberCursor.decode(cursor);
+        List<IssuedCoupon> issuedCoupons = issuedCouponReader.readByCouponIdAfter(couponId, memberCursor, pageSize + 1);
+        String nextCursor = null;
+        if (issuedCoupons.size() > pageSize) {
+            issuedCoupons = issuedCoupons.subList(0, pageSize);
+            nextCursor = CouponMemberCursor.from(issuedCoupons.get(pageSize - 1)).encode();
+        }
+        long count = couponIssuedCounter.count(couponId, coupon.getCouponCode());
+
+        return CouponIssuerResponse.of(issuedCoupons.stream().map(IssuedCouponDto::fromEntity).collect(Collectors.toList()),
+                count, nextCursor);
+    }
+
     public Integer getMyAvailableCouponCount(Long userId, LocalDate now) {
-        return couponReader.readMyValidCouponCount(userId, now);
+        return userCouponCounter.count(userId, now);
     }
 
     public void validateCouponPrice(List<ValidatePriceDto> validatePriceDtos) {
-        validatePriceDtos.stream()
+        List<Long> inconsistentCouponIds = findInconsistentCouponIds(validatePriceDtos);
+        if (!inconsistentCouponIds.isEmpty()) throw new CouponInconsistencyException(inconsistentCouponIds);
+    }
+
+    // 요청의 모든 쿠폰을 한 번에 조회해 첫 번째 위반에서 멈추지 않고 위반한 쿠폰을 모두 반환합니다
+    public List<Long> findInconsistentCouponIds(List<ValidatePriceDto> validatePriceDtos) {
+        List<ValidatePriceDto> couponApplied = validatePriceDtos.stream()
                 .filter(dto -> Objects.nonNull(dto.getCouponId()))
-                .forEach(dto -> {
-                    Coupon coupon = couponReader.read(dto.getCouponId());
-                    Long receivedPaymentPrice = dto.getActualAmount();
-                    Long receivedDiscountPrice = dto.getCouponAmount();
-                    if(!coupon.isRightPrice(receivedPaymentPrice, receivedDiscountPrice)) {
-                        throw new CouponInconsistencyException();
-                    }
-        });
+                .collect(Collectors.toList());
+        if (couponApplied.isEmpty()) return List.of();
+
+        Map<Long, Coupon> coupons = couponReader.readAll(couponApplied.stream()
+                .map(ValidatePriceDto::getCouponId)
+                .collect(Collectors.toSet()));
+        return couponApplied.stream()
+                .filter(dto -> !coupons.get(dto.getCouponId()).isRightPrice(dto.getActualAmount(), dto.getCouponAmount()))
+                .map(ValidatePriceDto::getCouponId)
+                .collect(Collectors.toList());
     }
 
     private void validateCouponAuthorization(Coupon coupon, Long storeId) {
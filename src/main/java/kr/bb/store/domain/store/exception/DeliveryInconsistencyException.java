@@ -1,12 +1,23 @@
 package kr.bb.store.domain.store.exception;
 
 import kr.bb.store.exception.CustomException;
+import lombok.Getter;
 
+import java.util.List;
+
+@Getter
 public class DeliveryInconsistencyException extends CustomException {
 
     private static final String MESSAGE = "주문 요청이 배송 정책을 위반했습니다.";
 
+    private final List<Long> storeIds;
+
     public DeliveryInconsistencyException() {
+        this(List.of());
+    }
+
+    public DeliveryInconsistencyException(List<Long> storeIds) {
         super(MESSAGE);
+        this.storeIds = storeIds;
     }
 }
@@ -13,6 +13,7 @@ import bloomingblooms.dto.response.SettlementStoreInfoResponse;
 import kr.bb.store.client.ProductFeignClient;
 import kr.bb.store.client.StoreLikeFeignClient;
 import kr.bb.store.client.StoreSubscriptionFeignClient;
+import kr.bb.store.domain.coupon.exception.CouponInconsistencyException;
 import kr.bb.store.domain.coupon.service.CouponService;
 import kr.bb.store.domain.store.controller.request.SortType;
 import kr.bb.store.domain.store.controller.request.StoreCreateRequest;
@@ -23,6 +24,7 @@ import kr.bb.store.domain.store.dto.GugunDto;
 import kr.bb.store.domain.store.dto.SidoDto;
 import kr.bb.store.domain.store.dto.StoreForAdminDto;
 import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.exception.DeliveryInconsistencyException;
 import kr.bb.store.domain.store.service.StoreService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -164,11 +166,19 @@ public class StoreFacade {
                 .collect(Collectors.toList());
     }
 
+    // 기존과 같이 쿠폰 위반을 먼저 알립니다. 배송 정책이 없는 가게가 쿠폰 위반을 가리지 않도록 쿠폰을 확인한 뒤에 배송 정책을 읽습니다
     public void validateForOrder(ValidatePolicyDto validatePolicyDto) {
-        couponService.validateCouponPrice(validatePolicyDto.getValidatePriceDtos());
-        if(!validatePolicyDto.getOrderType().equals(OrderType.PICKUP)) {
-            storeService.validateDeliveryPrice(validatePolicyDto.getValidatePriceDtos());
+        List<Long> inconsistentCouponIds = couponService.findInconsistentCouponIds(validatePolicyDto.getValidatePriceDtos());
+        if (!inconsistentCouponIds.isEmpty()) {
+            log.warn("order policy violated by coupons {}", inconsistentCouponIds);
+            throw new CouponInconsistencyException(inconsistentCouponIds);
         }
+        if (validatePolicyDto.getOrderType().equals(OrderType.PICKUP)) return;
+
+        List<Long> inconsistentStoreIds = storeService.findDeliveryInconsistentStoreIds(validatePolicyDto.getValidatePriceDtos());
+        if (inconsistentStoreIds.isEmpty()) return;
+        log.warn("order policy violated by delivery of stores {}", inconsistentStoreIds);
+        throw new DeliveryInconsistencyException(inconsistentStoreIds);
     }
 
     public List<LikedStoreInfoResponse> simpleInfos(List<Long> storeIds){
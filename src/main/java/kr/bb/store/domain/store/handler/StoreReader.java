@@ -18,7 +18,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -53,6 +55,13 @@ public class StoreReader {
                 .orElseThrow(DeliveryPolicyNotFoundException::new);
     }
 
+    public Map<Long, DeliveryPolicy> findDeliveryPoliciesByStoreIds(Collection<Long> storeIds) {
+        Map<Long, DeliveryPolicy> deliveryPolicies = deliveryPolicyRepository.findAllByStoreIdIn(storeIds).stream()
+                .collect(Collectors.toMap(deliveryPolicy -> deliveryPolicy.getStore().getId(), deliveryPolicy -> deliveryPolicy));
+        if (deliveryPolicies.size() != storeIds.size()) throw new DeliveryPolicyNotFoundException();
+        return deliveryPolicies;
+    }
+
     public StoreDetailInfoResponse readDetailInfo(Long storeId) {
         Store store = storeRepository.findById(storeId).orElseThrow(StoreNotFoundException::new);
         DeliveryPolicy deliveryPolicy = deliveryPolicyRepository.findByStoreId(storeId)
@@ -3,8 +3,11 @@ package kr.bb.store.domain.store.repository;
 import kr.bb.store.domain.store.entity.DeliveryPolicy;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface DeliveryPolicyRepository extends JpaRepository<DeliveryPolicy,Long> {
     Optional<DeliveryPolicy> findByStoreId(Long storeId);
+    List<DeliveryPolicy> findAllByStoreIdIn(Collection<Long> storeIds);
 }
@@ -142,14 +142,22 @@ public class StoreService {
     }
 
     public void validateDeliveryPrice(List<ValidatePriceDto> validatePriceDtos) {
-        validatePriceDtos.forEach(dto -> {
-            DeliveryPolicy deliveryPolicy = storeReader.findDeliveryPolicyByStoreId(dto.getStoreId());
-            Long receivedPaymentPrice = dto.getActualAmount();
-            Long receivedDeliveryPrice = dto.getDeliveryCost();
-            if(!deliveryPolicy.isRightDeliveryPrice(receivedPaymentPrice, receivedDeliveryPrice)) {
-                throw new DeliveryInconsistencyException();
-            }
-        });
+        List<Long> inconsistentStoreIds = findDeliveryInconsistentStoreIds(validatePriceDtos);
+        if (!inconsistentStoreIds.isEmpty()) throw new DeliveryInconsistencyException(inconsistentStoreIds);
+    }
+
+    // 주문에 포함된 가게의 배송 정책을 한 번에 조회해 위반한 가게를 모두 반환합니다
+    public List<Long> findDeliveryInconsistentStoreIds(List<ValidatePriceDto> validatePriceDtos) {
+        if (validatePriceDtos.isEmpty()) return List.of();
+
+        Map<Long, DeliveryPolicy> deliveryPolicies = storeReader.findDeliveryPoliciesByStoreIds(validatePriceDtos.stream()
+                .map(ValidatePriceDto::getStoreId)
+                .collect(Collectors.toSet()));
+        return validatePriceDtos.stream()
+                .filter(dto -> !deliveryPolicies.get(dto.getStoreId())
+                        .isRightDeliveryPrice(dto.getActualAmount(), dto.getDeliveryCost()))
+                .map(ValidatePriceDto::getStoreId)
+                .collect(Collectors.toList());
     }
 
     public List<LikedStoreInfoResponse> simpleInfos(List<Long> storeIds) {
@@ -1,10 +1,14 @@
 package kr.bb.store.exception.advice;
 
 import bloomingblooms.response.CommonResponse;
+import kr.bb.store.domain.cargo.exception.StockChangeInProgressException;
+import kr.bb.store.domain.coupon.exception.CouponRateLimitExceededException;
 import kr.bb.store.exception.CustomException;
 import kr.bb.store.exception.NonPropagatingException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 @Slf4j
@@ -16,6 +20,21 @@ public class ControllerAdvice {
         log.warn("this error [{}] will not be thrown to user. rest logic will work well", e.getMessage());
     }
 
+    // 쿠폰 배포 중에는 거절이 매우 많으므로 에러 로그 대신 CouponRateLimiter의 지표로 확인합니다
+    @ExceptionHandler(CouponRateLimitExceededException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public CommonResponse couponRateLimitExceededException(CouponRateLimitExceededException e) {
+        return CommonResponse.fail(e.getMessage(), "CE-02");
+    }
+
+    // 같은 주문의 재고 변경이 처리 중일 때의 재전송입니다. 호출자가 잠시 후 다시 시도해야 합니다
+    @ExceptionHandler(StockChangeInProgressException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public CommonResponse stockChangeInProgressException(StockChangeInProgressException e) {
+        log.warn(e.getMessage());
+        return CommonResponse.fail(e.getMessage(), "CE-03");
+    }
+
     @ExceptionHandler(CustomException.class)
     public CommonResponse customException(CustomException e) {
         log.error(e.getMessage());
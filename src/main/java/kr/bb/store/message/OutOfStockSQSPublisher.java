@@ -6,40 +6,129 @@ import bloomingblooms.domain.notification.NotificationURL;
 import bloomingblooms.domain.notification.PublishNotificationInformation;
 import bloomingblooms.domain.notification.stock.OutOfStockNotification;
 import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * 재고 부족 알림은 요청 쓰레드에서 큐에 넣기만 하고, 스케줄러가 최대 10개씩 SendMessageBatch로 전송합니다.
+ * 같은 가게의 알림은 설정한 시간 동안 한 번만 보내며, 큐가 가득 차면 가장 오래된 알림을 버립니다.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class OutOfStockSQSPublisher {
+    private static final int MAX_BATCH_SIZE = 10;
+
     private final AmazonSQS sqs;
     private final ObjectMapper objectMapper;
+    private final BlockingQueue<Long> pendingStoreIds;
+    private final Map<Long, Long> lastQueuedAt = new ConcurrentHashMap<>();
+    private final Counter sentCounter;
+    private final Counter suppressedCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
 
     @Value("${cloud.aws.sqs.out-of-stock-notification-queue.url}")
     private String queueUrl;
 
+    @Value("${stock.alert.window-second:60}")
+    private Long windowSecond;
+
+    public OutOfStockSQSPublisher(AmazonSQS sqs, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                  @Value("${stock.alert.queue-capacity:1000}") Integer queueCapacity) {
+        this.sqs = sqs;
+        this.objectMapper = objectMapper;
+        this.pendingStoreIds = new ArrayBlockingQueue<>(queueCapacity);
+        this.sentCounter = meterRegistry.counter("stock.alert.sent");
+        this.suppressedCounter = meterRegistry.counter("stock.alert.suppressed");
+        this.droppedCounter = meterRegistry.counter("stock.alert.dropped");
+        this.failedCounter = meterRegistry.counter("stock.alert.failed");
+    }
+
     public void publish(Long storeId) {
+        long now = System.currentTimeMillis();
+        AtomicBoolean queued = new AtomicBoolean(false);
+        lastQueuedAt.compute(storeId, (id, queuedAt) -> {
+            if (queuedAt != null && now - queuedAt < windowSecond * 1000) {
+                return queuedAt;
+            }
+            queued.set(true);
+            return now;
+        });
+        if (!queued.get()) {
+            suppressedCounter.increment();
+            return;
+        }
+
+        while (!pendingStoreIds.offer(storeId)) {
+            if (pendingStoreIds.poll() != null) {
+                droppedCounter.increment();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.alert.flush-millis:500}")
+    public void flush() {
+        List<Long> storeIds = new ArrayList<>();
+        while (pendingStoreIds.drainTo(storeIds, MAX_BATCH_SIZE) > 0) {
+            send(storeIds);
+            storeIds.clear();
+        }
+        evictExpiredWindows();
+    }
+
+    private void send(List<Long> storeIds) {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+        for (int i = 0; i < storeIds.size(); i++) {
+            try {
+                entries.add(new SendMessageBatchRequestEntry(String.valueOf(i), makeMessage(storeIds.get(i))));
+            } catch (JsonProcessingException e) {
+                failedCounter.increment();
+                log.error("outOfStock message of store {} not serialized", storeIds.get(i));
+            }
+        }
+        if (entries.isEmpty()) return;
+
         try {
-            OutOfStockNotification outOfStockNotification = OutOfStockNotification.builder()
-                    .storeId(storeId)
-                    .build();
-            PublishNotificationInformation notificationInformation =
-                    PublishNotificationInformation.getData(NotificationURL.OUT_OF_STOCK, NotificationKind.OUT_OF_STOCK);
-            NotificationData<OutOfStockNotification> outOfStockNotificationData =
-                    NotificationData.notifyData(outOfStockNotification, notificationInformation);
-            SendMessageRequest sendMessageRequest = new SendMessageRequest(
-                    queueUrl, objectMapper.writeValueAsString(outOfStockNotificationData)
-            );
-            sqs.sendMessage(sendMessageRequest);
-            log.info("outOfStock sqs published to store {}. message kind is : {}", storeId, NotificationKind.OUT_OF_STOCK);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
+            SendMessageBatchResult result = sqs.sendMessageBatch(new SendMessageBatchRequest(queueUrl, entries));
+            sentCounter.increment(result.getSuccessful().size());
+            failedCounter.increment(result.getFailed().size());
+            log.info("outOfStock sqs published to stores {}. message kind is : {}", storeIds, NotificationKind.OUT_OF_STOCK);
+        } catch (Exception e) {
+            failedCounter.increment(entries.size());
+            log.error("outOfStock sqs publish to stores {} failed with cause of {}", storeIds, e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private String makeMessage(Long storeId) throws JsonProcessingException {
+        OutOfStockNotification outOfStockNotification = OutOfStockNotification.builder()
+                .storeId(storeId)
+                .build();
+        PublishNotificationInformation notificationInformation =
+                PublishNotificationInformation.getData(NotificationURL.OUT_OF_STOCK, NotificationKind.OUT_OF_STOCK);
+        NotificationData<OutOfStockNotification> outOfStockNotificationData =
+                NotificationData.notifyData(outOfStockNotification, notificationInformation);
+        return objectMapper.writeValueAsString(outOfStockNotificationData);
+    }
+
+    private void evictExpiredWindows() {
+        long now = System.currentTimeMillis();
+        lastQueuedAt.values().removeIf(queuedAt -> now - queuedAt >= windowSecond * 1000);
+    }
+}
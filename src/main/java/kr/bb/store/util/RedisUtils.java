@@ -1,12 +1,93 @@
 package kr.bb.store.util;
 
+import kr.bb.store.domain.cargo.entity.StockOperation;
 import kr.bb.store.domain.coupon.entity.Coupon;
 
 public class RedisUtils {
     public static final String DUMMY_DATA = "DUMMY";
+    public static final String STOCK_DIRTY_KEY = "stock:dirty";
+    public static final String STOCK_SHARD_DIRTY_KEY = "stock:shard:dirty";
+    public static final String STOCK_LEDGER_FLUSH_REDISSON_KEY = "redisson:stock-ledger-flush";
+    public static final String STOCK_RESERVATION_EXPIRY_KEY = "stock:reservation:expiry";
+    public static final String STOCK_HELD_PREFIX = "stock:held:";
+    public static final String ISSUED_COUPON_STREAM_KEY = "coupon:issued:stream";
+    public static final String ISSUED_COUPON_DEAD_LETTER_KEY = "coupon:issued:dead-letter";
+    public static final String ISSUED_COUPON_TRACKING_KEY = "coupon:issued:tracking";
+    public static final String COUPON_QUEUE_ACTIVE_KEY = "coupon-queue-active";
+    public static final String COUPON_NEGATIVE_CACHE_CHANNEL = "coupon:negative-cache";
+    public static final String COUPON_CATALOG_CHANNEL = "coupon:catalog";
+    public static final String COUPON_DROP_CHANNEL = "coupon:drop";
+    public static final String COUPON_DROP_PREPARED_KEY = "coupon-drop-prepared";
+    public static final String COUPON_DROP_VERSION_KEY = "coupon-drop-version";
+    public static final String COUPON_ELIGIBILITY_CHANNEL = "coupon:eligibility";
+    public static final String USER_COUPON_USERS_KEY = "user-coupon-users";
 
     public static String makeRedisKey(Coupon coupon) {
-        return "coupon:" + coupon.getCouponCode() + ":" + coupon.getId();
+        return makeRedisKey(coupon.getCouponCode(), coupon.getId());
+    }
+
+    public static String makeRedisKey(String couponCode, Long couponId) {
+        return "coupon:" + couponCode + ":" + couponId;
+    }
+
+    public static String makeCouponBitmapKey(Coupon coupon) {
+        return "coupon-bitmap:" + coupon.getCouponCode() + ":" + coupon.getId();
+    }
+
+    public static String makeCouponCountKey(Coupon coupon) {
+        return makeCouponCountKey(coupon.getCouponCode(), coupon.getId());
+    }
+
+    public static String makeCouponCountKey(String couponCode, Long couponId) {
+        return "coupon-count:" + couponCode + ":" + couponId;
+    }
+
+    public static String makeCouponQueueKey(Long couponId) {
+        return "coupon-queue:" + couponId;
+    }
+
+    public static String makeCouponQueueSequenceKey(Long couponId) {
+        return "coupon-queue-sequence:" + couponId;
+    }
+
+    public static String makeCouponQueueUserKey(Long couponId) {
+        return "coupon-queue-user:" + couponId;
+    }
+
+    public static String makeCouponQueueResultKey(Long couponId) {
+        return "coupon-queue-result:" + couponId;
+    }
+
+    public static String makeCouponQueueClosedKey(Long couponId) {
+        return "coupon-queue-closed:" + couponId;
+    }
+
+    public static String makeCouponCatalogKey(Long storeId) {
+        return "coupon-catalog:" + storeId;
+    }
+
+    public static String makeCouponCatalogVersionKey(Long storeId) {
+        return "coupon-catalog-version:" + storeId;
+    }
+
+    public static String makeCouponDropKey(Long couponId) {
+        return "coupon-drop:" + couponId;
+    }
+
+    public static String makeCouponNegativeVersionKey(Long couponId) {
+        return "coupon-negative-version:" + couponId;
+    }
+
+    public static String makeUserCouponEndKey(Long userId) {
+        return "user-coupon-end:" + userId;
+    }
+
+    public static String makeUserCouponStartKey(Long userId) {
+        return "user-coupon-start:" + userId;
+    }
+
+    public static String makeCouponRateLimitKey(Long userId, String target) {
+        return "coupon-rate-limit:" + userId + ":" + target;
     }
 
     public static String makeRedissonKey(Long storeId, Long flowerId) {
@@ -16,4 +97,40 @@ public class RedisUtils {
     public static String makeRedissonKey(Long storeId) {
         return "redisson:" + storeId.toString();
     }
+
+    public static String makeStockLaneRedissonKey(int laneIndex) {
+        return "redisson:stock-lane:" + laneIndex;
+    }
+
+    public static String makeStockKey(Long storeId, Long flowerId) {
+        return "stock:" + storeId + ":" + flowerId;
+    }
+
+    public static String makeStockReservationKey(String reservationId) {
+        return "stock:reservation:" + reservationId;
+    }
+
+    public static String makeStockReservationClaimKey(String reservationId) {
+        return "stock:reservation-claim:" + reservationId;
+    }
+
+    public static String makeStockHeldKey(Long storeId, Long flowerId) {
+        return STOCK_HELD_PREFIX + storeId + ":" + flowerId;
+    }
+
+    public static String makeStockJournalKey(String orderId, StockOperation operation) {
+        return "stock:journal:" + orderId + ":" + operation.name();
+    }
+
+    public static String makeStockShardKey(Long storeId, Long flowerId, int shardIndex) {
+        return "stock:shard:" + storeId + ":" + flowerId + ":" + shardIndex;
+    }
+
+    public static String makeStockSnapshotKey(Long storeId) {
+        return "stock:snapshot:" + storeId;
+    }
+
+    public static String makeStockSnapshotVersionKey(Long storeId) {
+        return "stock:snapshot-version:" + storeId;
+    }
 }
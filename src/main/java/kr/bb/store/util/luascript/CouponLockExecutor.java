@@ -2,11 +2,10 @@ package kr.bb.store.util.luascript;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
-import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -15,9 +14,13 @@ public class CouponLockExecutor implements RedisLuaScriptExecutor{
     private final RedisTemplate<String,String> redisTemplate;
 
     @Override
-    public Boolean execute(String script, String key, Object... args) {
-        RedisScript<Boolean> redisScript = new DefaultRedisScript<>(script, Boolean.class);
-        return redisTemplate.execute(redisScript, Collections.singletonList(key), args[0], String.valueOf(args[1]));
+    public Object execute(String script, String key, Object... args) {
+        return redisTemplate.execute(RedisScripts.of(script), Collections.singletonList(key), args[0], String.valueOf(args[1]));
+    }
+
+    @Override
+    public Object execute(String script, List<String> keys, List<String> args) {
+        return redisTemplate.execute(RedisScripts.of(script), keys, args.toArray());
     }
 
 }
@@ -0,0 +1,242 @@
+package kr.bb.store.util.luascript;
+
+public class CouponScript {
+    /*
+     * 중복 발급 확인, 발급 수량 확인, 발급을 한 번에 처리합니다.
+     * 모든 쿠폰 키에는 만료 시간 설정을 위해 생성 시점에 넣은 DUMMY_DATA가 하나 더 들어있기 때문에 '<'가 아닌 '<='로 개수를 비교합니다.
+     * 이미 발급받았다면 -1, 모두 소진되었다면 0, 발급했다면 1을 반환합니다.
+     */
+    public static final String issueScript = "local key = KEYS[1]\n" +
+            "local value = ARGV[1]\n" +
+            "local limitCnt = tonumber(ARGV[2])\n" +
+            "if redis.call('SISMEMBER', key, value) == 1 then\n" +
+            "    return -1\n" +
+            "end\n" +
+            "if redis.call('SCARD', key) <= limitCnt then\n" +
+            "    redis.call('SADD', key, value)\n" +
+            "    return 1\n" +
+            "end\n" +
+            "return 0";
+
+    /*
+     * issueScript와 같은 규칙으로 발급하고, 발급에 성공하면 같은 스크립트 안에서 발급 내역을 스트림에 추가합니다.
+     * 레디스 발급과 큐 적재가 원자적으로 처리되기 때문에 사이에서 장애가 나도 발급 내역이 유실되지 않습니다.
+     */
+    public static final String issueAndEnqueueScript = "local key = KEYS[1]\n" +
+            "local streamKey = KEYS[2]\n" +
+            "local trackingKey = KEYS[3]\n" +
+            "local value = ARGV[1]\n" +
+            "local limitCnt = tonumber(ARGV[2])\n" +
+            "if redis.call('SISMEMBER', key, value) == 1 then\n" +
+            "    return -1\n" +
+            "end\n" +
+            "if redis.call('SCARD', key) > limitCnt then\n" +
+            "    return 0\n" +
+            "end\n" +
+            "redis.call('SADD', key, value)\n" +
+            "redis.call('XADD', streamKey, '*', 'couponId', ARGV[3], 'userId', value, " +
+            "'nickname', ARGV[4], 'phoneNumber', ARGV[5], 'issuedAt', ARGV[6])\n" +
+            "redis.call('SADD', trackingKey, ARGV[3])\n" +
+            "return 1";
+
+    /*
+     * 여러 쿠폰을 issueScript와 같은 규칙으로 한 번에 발급합니다.
+     * KEYS는 쿠폰 키들 뒤에 스트림 키와 추적 키가 붙고, ARGV는 userId, 스트림 적재 여부, nickname, phoneNumber, issuedAt 뒤에
+     * 쿠폰마다 couponId, limitCnt가 순서대로 붙습니다.
+     * 쿠폰 순서대로 이미 발급받았다면 -1, 모두 소진되었다면 0, 발급했다면 1을 담아 반환합니다.
+     */
+    public static final String bulkIssueScript = "local couponCount = #KEYS - 2\n" +
+            "local streamKey = KEYS[couponCount + 1]\n" +
+            "local trackingKey = KEYS[couponCount + 2]\n" +
+            "local value = ARGV[1]\n" +
+            "local enqueue = ARGV[2] == '1'\n" +
+            "local results = {}\n" +
+            "for i = 1, couponCount do\n" +
+            "    local key = KEYS[i]\n" +
+            "    local couponId = ARGV[4 + i * 2]\n" +
+            "    local limitCnt = tonumber(ARGV[5 + i * 2])\n" +
+            "    if redis.call('SISMEMBER', key, value) == 1 then\n" +
+            "        results[i] = -1\n" +
+            "    elseif redis.call('SCARD', key) > limitCnt then\n" +
+            "        results[i] = 0\n" +
+            "    else\n" +
+            "        redis.call('SADD', key, value)\n" +
+            "        if enqueue then\n" +
+            "            redis.call('XADD', streamKey, '*', 'couponId', couponId, 'userId', value, " +
+            "'nickname', ARGV[3], 'phoneNumber', ARGV[4], 'issuedAt', ARGV[5])\n" +
+            "            redis.call('SADD', trackingKey, couponId)\n" +
+            "        end\n" +
+            "        results[i] = 1\n" +
+            "    end\n" +
+            "end\n" +
+            "return results";
+
+    /*
+     * bitmap 구조에서 여러 쿠폰을 한 번에 발급합니다. userId를 offset으로 쓰는 bitmap으로 중복을 확인하고 별도 카운터로 수량을 확인합니다.
+     * KEYS는 쿠폰마다 bitmap 키, 카운터 키가 순서대로 붙고 마지막에 스트림 키와 추적 키가 붙습니다. ARGV는 bulkIssueScript와 같습니다.
+     * 쿠폰 순서대로 이미 발급받았다면 -1, 모두 소진되었다면 0, 발급했다면 1을 담아 반환합니다.
+     */
+    public static final String bitmapIssueScript = "local couponCount = (#KEYS - 2) / 2\n" +
+            "local streamKey = KEYS[#KEYS - 1]\n" +
+            "local trackingKey = KEYS[#KEYS]\n" +
+            "local value = ARGV[1]\n" +
+            "local offset = tonumber(value)\n" +
+            "local enqueue = ARGV[2] == '1'\n" +
+            "local results = {}\n" +
+            "for i = 1, couponCount do\n" +
+            "    local bitmapKey = KEYS[i * 2 - 1]\n" +
+            "    local countKey = KEYS[i * 2]\n" +
+            "    local couponId = ARGV[4 + i * 2]\n" +
+            "    local limitCnt = tonumber(ARGV[5 + i * 2])\n" +
+            "    if redis.call('GETBIT', bitmapKey, offset) == 1 then\n" +
+            "        results[i] = -1\n" +
+            "    elseif tonumber(redis.call('GET', countKey) or '0') >= limitCnt then\n" +
+            "        results[i] = 0\n" +
+            "    else\n" +
+            "        redis.call('SETBIT', bitmapKey, offset, 1)\n" +
+            "        redis.call('INCR', countKey)\n" +
+            "        if enqueue then\n" +
+            "            redis.call('XADD', streamKey, '*', 'couponId', couponId, 'userId', value, " +
+            "'nickname', ARGV[3], 'phoneNumber', ARGV[4], 'issuedAt', ARGV[5])\n" +
+            "            redis.call('SADD', trackingKey, couponId)\n" +
+            "        end\n" +
+            "        results[i] = 1\n" +
+            "    end\n" +
+            "end\n" +
+            "return results";
+
+    // bitmap의 비트 수로 카운터를 다시 맞추고 만료 시간을 설정합니다. 발급과 섞이지 않도록 스크립트 안에서 처리합니다
+    public static final String bitmapRecountScript = "local count = redis.call('BITCOUNT', KEYS[1])\n" +
+            "redis.call('SET', KEYS[2], count)\n" +
+            "local ttl = tonumber(ARGV[1])\n" +
+            "if ttl > 0 then\n" +
+            "    redis.call('PEXPIRE', KEYS[1], ttl)\n" +
+            "    redis.call('PEXPIRE', KEYS[2], ttl)\n" +
+            "end\n" +
+            "return count";
+
+    /*
+     * 대기열에 도착 순서대로 사용자를 넣고 0부터 시작하는 순번을 반환합니다. 이미 대기 중이라면 기존 순번을 반환합니다.
+     * 대기열이 닫혔다면 -2, 이미 처리 결과가 있다면 -3을 반환합니다.
+     * KEYS는 대기열, 순번, 사용자 정보, 결과, 닫힘 여부, 활성 대기열 키이고 ARGV는 userId, nickname, phoneNumber, 만료 초, couponId 입니다.
+     */
+    public static final String queueEnterScript = "local value = ARGV[1]\n" +
+            "if redis.call('EXISTS', KEYS[5]) == 1 then\n" +
+            "    return -2\n" +
+            "end\n" +
+            "if redis.call('HEXISTS', KEYS[4], value) == 1 then\n" +
+            "    return -3\n" +
+            "end\n" +
+            "local rank = redis.call('ZRANK', KEYS[1], value)\n" +
+            "if rank then\n" +
+            "    return rank\n" +
+            "end\n" +
+            "local sequence = redis.call('INCR', KEYS[2])\n" +
+            "redis.call('ZADD', KEYS[1], sequence, value)\n" +
+            "redis.call('HSET', KEYS[3], value .. ':nickname', ARGV[2], value .. ':phoneNumber', ARGV[3])\n" +
+            "for i = 1, 3 do\n" +
+            "    redis.call('EXPIRE', KEYS[i], ARGV[4])\n" +
+            "end\n" +
+            "redis.call('SADD', KEYS[6], ARGV[5])\n" +
+            "return redis.call('ZRANK', KEYS[1], value)";
+
+    // 대기열이 비어있을 때만 활성 대기열에서 제외합니다. 확인과 제외 사이에 들어온 사용자가 누락되지 않도록 스크립트로 처리합니다
+    public static final String queueDeactivateScript = "if redis.call('ZCARD', KEYS[1]) == 0 then\n" +
+            "    redis.call('SREM', KEYS[2], ARGV[1])\n" +
+            "    return 1\n" +
+            "end\n" +
+            "return 0";
+
+    /*
+     * 유저가 가진 사용 가능한 쿠폰을 종료일(KEYS[1])과 시작일(KEYS[2])을 점수로 하는 두 sorted set에 기록합니다.
+     * 키가 없으면 다음 조회에서 DB로 다시 만들도록 아무것도 하지 않으며, 추가하면서 종료일이 지난 쿠폰을 함께 지웁니다.
+     * ARGV는 오늘(epoch day), TTL(ms) 다음에 (쿠폰 id, 종료일, 시작일)이 이어집니다.
+     */
+    public static final String userCouponAddScript = "if redis.call('EXISTS', KEYS[1]) == 0 then\n" +
+            "    return 0\n" +
+            "end\n" +
+            "local expired = redis.call('ZRANGEBYSCORE', KEYS[1], 0, '(' .. ARGV[1])\n" +
+            "for i = 1, #expired do\n" +
+            "    redis.call('ZREM', KEYS[1], expired[i])\n" +
+            "    redis.call('ZREM', KEYS[2], expired[i])\n" +
+            "end\n" +
+            "for i = 3, #ARGV, 3 do\n" +
+            "    redis.call('ZADD', KEYS[1], ARGV[i + 1], ARGV[i])\n" +
+            "    redis.call('ZADD', KEYS[2], ARGV[i + 2], ARGV[i])\n" +
+            "end\n" +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+            "redis.call('PEXPIRE', KEYS[2], ARGV[2])\n" +
+            "return 1";
+
+    /*
+     * 종료일이 오늘 이후인 쿠폰 수에서 아직 시작하지 않은 쿠폰 수를 뺍니다. 키가 없으면 -1을 반환합니다.
+     * 키가 비어 있어도 사라지지 않도록 종료일 set에는 점수가 -1인 DUMMY_DATA가 들어있습니다.
+     */
+    public static final String userCouponCountScript = "if redis.call('EXISTS', KEYS[1]) == 0 then\n" +
+            "    return -1\n" +
+            "end\n" +
+            "return redis.call('ZCOUNT', KEYS[1], ARGV[1], '+inf') - redis.call('ZCOUNT', KEYS[2], '(' .. ARGV[1], '+inf')";
+
+    // ARGV는 TTL(ms), 유저 id, DUMMY_DATA 다음에 (쿠폰 id, 종료일, 시작일)이 이어집니다
+    public static final String userCouponRebuildScript = "redis.call('DEL', KEYS[1], KEYS[2])\n" +
+            "redis.call('ZADD', KEYS[1], -1, ARGV[3])\n" +
+            "for i = 4, #ARGV, 3 do\n" +
+            "    redis.call('ZADD', KEYS[1], ARGV[i + 1], ARGV[i])\n" +
+            "    redis.call('ZADD', KEYS[2], ARGV[i + 2], ARGV[i])\n" +
+            "end\n" +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[1])\n" +
+            "redis.call('PEXPIRE', KEYS[2], ARGV[1])\n" +
+            "redis.call('SADD', KEYS[3], ARGV[2])\n" +
+            "return 1";
+
+    /*
+     * 토큰 버킷입니다. 지난 요청 이후 흐른 시간만큼 토큰을 채우고 토큰이 있으면 하나를 꺼냅니다.
+     * ARGV는 버킷 크기, 초당 채우는 토큰 수, 현재 시각(ms)이며 허용하면 1, 거절하면 0을 반환합니다.
+     */
+    public static final String rateLimitScript = "local capacity = tonumber(ARGV[1])\n" +
+            "local refillPerMillis = tonumber(ARGV[2]) / 1000\n" +
+            "local now = tonumber(ARGV[3])\n" +
+            "local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'timestamp')\n" +
+            "local tokens = tonumber(bucket[1]) or capacity\n" +
+            "local timestamp = tonumber(bucket[2]) or now\n" +
+            "tokens = math.min(capacity, tokens + math.max(0, now - timestamp) * refillPerMillis)\n" +
+            "local allowed = 0\n" +
+            "if tokens >= 1 then\n" +
+            "    tokens = tokens - 1\n" +
+            "    allowed = 1\n" +
+            "end\n" +
+            "redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'timestamp', tostring(now))\n" +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / refillPerMillis))\n" +
+            "return allowed";
+
+    /*
+     * 가게의 쿠폰 목록을 레디스에 씁니다. KEYS[1]은 목록 hash, KEYS[2]는 가게의 목록 버전입니다.
+     * 버전이 DB를 읽기 전에 받은 ARGV[1]과 다르면 그 사이 목록이 지워진 것이므로 쓰지 않고 0을 반환합니다.
+     * ARGV[2]는 날짜 필드, ARGV[3]은 목록, ARGV[4]는 만료 시간(초)입니다.
+     */
+    public static final String catalogPutScript = "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then\n" +
+            "    return 0\n" +
+            "end\n" +
+            "redis.call('HSET', KEYS[1], ARGV[2], ARGV[3])\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[4])\n" +
+            "return 1";
+
+    /*
+     * 드롭할 쿠폰의 메타데이터를 다시 쓰고 마지막에 ready 플래그를 세웁니다.
+     * 한 번의 스크립트로 실행되므로 다른 서버는 플래그와 함께 완성된 메타데이터만 봅니다.
+     * KEYS[3]의 버전이 쿠폰을 읽기 전에 받은 ARGV[3]과 다르면 그 사이 지워진 쿠폰이므로 쓰지 않고 0을 반환합니다.
+     * 준비한 쿠폰 id는 KEYS[2] 집합에 남겨 CouponDropScheduler가 삭제된 쿠폰을 찾아 지울 수 있게 합니다.
+     * ARGV는 만료 시각(ms), 쿠폰 id, 버전 다음에 (필드, 값)이 이어집니다.
+     */
+    public static final String dropPrepareScript = "if (redis.call('GET', KEYS[3]) or '0') ~= ARGV[3] then\n" +
+            "    return 0\n" +
+            "end\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "for i = 4, #ARGV, 2 do\n" +
+            "    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])\n" +
+            "end\n" +
+            "redis.call('HSET', KEYS[1], 'ready', '1')\n" +
+            "redis.call('PEXPIREAT', KEYS[1], ARGV[1])\n" +
+            "redis.call('SADD', KEYS[2], ARGV[2])\n" +
+            "return 1";
+}
@@ -1,5 +1,9 @@
 package kr.bb.store.util.luascript;
 
+import java.util.List;
+
 public interface RedisLuaScriptExecutor {
     Object execute(String script, String key, Object... args);
+
+    Object execute(String script, List<String> keys, List<String> args);
 }
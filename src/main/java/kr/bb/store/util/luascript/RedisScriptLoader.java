@@ -0,0 +1,40 @@
+package kr.bb.store.util.luascript;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisScriptLoader implements ApplicationRunner {
+    private final RedisTemplate<String, String> redisTemplate;
+
+    // 미리 올리지 못해도 첫 실행에서 EVAL로 올라가기 때문에 시작을 막지 않습니다
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            load(RedisScripts.ALL);
+            log.info("{} lua scripts loaded", RedisScripts.ALL.size());
+        } catch (Exception e) {
+            log.warn("lua scripts not preloaded with cause of {}", e.getMessage());
+        }
+    }
+
+    // 레디스가 재시작되거나 장애 조치되면 스크립트 캐시가 비므로 필요한 시점에 다시 호출할 수 있습니다
+    public void load(List<RedisScript<?>> redisScripts) {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            redisScripts.forEach(redisScript -> connection.scriptingCommands()
+                    .scriptLoad(redisScript.getScriptAsString().getBytes(StandardCharsets.UTF_8)));
+            return null;
+        });
+    }
+}
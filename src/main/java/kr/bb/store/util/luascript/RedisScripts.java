@@ -0,0 +1,67 @@
+package kr.bb.store.util.luascript;
+
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * 사용하는 모든 lua 스크립트를 한 곳에서 생성합니다.
+ * 스크립트의 SHA는 생성 시 한 번만 계산되며 RedisTemplate은 EVALSHA로 실행하고 서버에 스크립트가 없을 때만 EVAL로 다시 보냅니다.
+ * RedisScriptLoader가 애플리케이션 시작 시 모든 스크립트를 미리 SCRIPT LOAD 합니다.
+ */
+public class RedisScripts {
+    public static final RedisScript<Long> COUPON_ISSUE = new DefaultRedisScript<>(CouponScript.issueScript, Long.class);
+    public static final RedisScript<Long> COUPON_ISSUE_AND_ENQUEUE = new DefaultRedisScript<>(CouponScript.issueAndEnqueueScript, Long.class);
+    public static final RedisScript<List> COUPON_BULK_ISSUE = new DefaultRedisScript<>(CouponScript.bulkIssueScript, List.class);
+    public static final RedisScript<List> COUPON_BITMAP_ISSUE = new DefaultRedisScript<>(CouponScript.bitmapIssueScript, List.class);
+    public static final RedisScript<Long> COUPON_BITMAP_RECOUNT = new DefaultRedisScript<>(CouponScript.bitmapRecountScript, Long.class);
+    public static final RedisScript<Long> COUPON_QUEUE_ENTER = new DefaultRedisScript<>(CouponScript.queueEnterScript, Long.class);
+    public static final RedisScript<Long> COUPON_QUEUE_DEACTIVATE = new DefaultRedisScript<>(CouponScript.queueDeactivateScript, Long.class);
+    public static final RedisScript<Long> USER_COUPON_ADD = new DefaultRedisScript<>(CouponScript.userCouponAddScript, Long.class);
+    public static final RedisScript<Long> USER_COUPON_COUNT = new DefaultRedisScript<>(CouponScript.userCouponCountScript, Long.class);
+    public static final RedisScript<Long> USER_COUPON_REBUILD = new DefaultRedisScript<>(CouponScript.userCouponRebuildScript, Long.class);
+    public static final RedisScript<Long> COUPON_RATE_LIMIT = new DefaultRedisScript<>(CouponScript.rateLimitScript, Long.class);
+    public static final RedisScript<Long> COUPON_CATALOG_PUT = new DefaultRedisScript<>(CouponScript.catalogPutScript, Long.class);
+    public static final RedisScript<Long> COUPON_DROP_PREPARE = new DefaultRedisScript<>(CouponScript.dropPrepareScript, Long.class);
+    public static final RedisScript<List> STOCK_CHANGE = new DefaultRedisScript<>(StockScript.changeScript, List.class);
+    public static final RedisScript<List> RESERVATION_HOLD = new DefaultRedisScript<>(ReservationScript.holdScript, List.class);
+    public static final RedisScript<List> RESERVATION_CLAIM = new DefaultRedisScript<>(ReservationScript.claimScript, List.class);
+    public static final RedisScript<List> RESERVATION_RELEASE = new DefaultRedisScript<>(ReservationScript.releaseScript, List.class);
+    public static final RedisScript<Long> SHARD_DISTRIBUTE = new DefaultRedisScript<>(ShardScript.distributeScript, Long.class);
+    public static final RedisScript<List> SHARD_CHANGE = new DefaultRedisScript<>(ShardScript.changeScript, List.class);
+    public static final RedisScript<List> SHARD_REBALANCE = new DefaultRedisScript<>(ShardScript.rebalanceScript, List.class);
+    public static final RedisScript<Long> SNAPSHOT_APPLY = new DefaultRedisScript<>(SnapshotScript.applyScript, Long.class);
+    public static final RedisScript<Long> SNAPSHOT_PUT = new DefaultRedisScript<>(SnapshotScript.putScript, Long.class);
+
+    public static final List<RedisScript<?>> ALL = List.of(
+            COUPON_ISSUE, COUPON_ISSUE_AND_ENQUEUE, COUPON_BULK_ISSUE, COUPON_BITMAP_ISSUE, COUPON_BITMAP_RECOUNT,
+            COUPON_QUEUE_ENTER, COUPON_QUEUE_DEACTIVATE, USER_COUPON_ADD, USER_COUPON_COUNT, USER_COUPON_REBUILD,
+            COUPON_RATE_LIMIT, COUPON_CATALOG_PUT, COUPON_DROP_PREPARE,
+            STOCK_CHANGE, RESERVATION_HOLD, RESERVATION_CLAIM, RESERVATION_RELEASE,
+            SHARD_DISTRIBUTE, SHARD_CHANGE, SHARD_REBALANCE, SNAPSHOT_APPLY, SNAPSHOT_PUT
+    );
+
+    // 발급 경로에서 쓰는 스크립트입니다. CouponDropScheduler가 드롭 전에 다시 SCRIPT LOAD 합니다
+    public static final List<RedisScript<?>> ISSUE = List.of(
+            COUPON_ISSUE, COUPON_ISSUE_AND_ENQUEUE, COUPON_BULK_ISSUE, COUPON_BITMAP_ISSUE
+    );
+
+    private static final Map<String, RedisScript<?>> SCRIPTS_BY_BODY = ALL.stream()
+            .collect(Collectors.toMap(RedisScript::getScriptAsString, Function.identity()));
+
+    @SuppressWarnings("unchecked")
+    public static <T> RedisScript<T> of(String script) {
+        RedisScript<?> redisScript = SCRIPTS_BY_BODY.get(script);
+        if (redisScript == null) {
+            throw new IllegalArgumentException("unregistered lua script");
+        }
+        return (RedisScript<T>) redisScript;
+    }
+
+    private RedisScripts() {
+    }
+}
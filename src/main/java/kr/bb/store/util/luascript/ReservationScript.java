@@ -0,0 +1,60 @@
+package kr.bb.store.util.luascript;
+
+public class ReservationScript {
+    /*
+     * KEYS[1]은 예약 해시, KEYS[2]는 만료 인덱스(zset), KEYS[3..]은 꽃별 예약 수량 키입니다.
+     * ARGV[1]은 예약 아이디, ARGV[2]는 만료 시각(ms), ARGV[3..n+2]는 예약 수량, ARGV[n+3..2n+2]는 DB 재고입니다.
+     * 이미 예약된 수량과 합쳐 재고를 넘는 꽃이 있으면 {0, 해당 index}를 반환하고 아무것도 변경하지 않습니다.
+     */
+    public static final String holdScript = "local n = #KEYS - 2\n" +
+            "for i = 1, n do\n" +
+            "    local held = tonumber(redis.call('GET', KEYS[i + 2]) or '0')\n" +
+            "    if held + tonumber(ARGV[i + 2]) > tonumber(ARGV[n + i + 2]) then\n" +
+            "        return {0, i}\n" +
+            "    end\n" +
+            "end\n" +
+            "for i = 1, n do\n" +
+            "    redis.call('INCRBY', KEYS[i + 2], ARGV[i + 2])\n" +
+            "    redis.call('HSET', KEYS[1], KEYS[i + 2], ARGV[i + 2])\n" +
+            "end\n" +
+            "redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])\n" +
+            "return {1}";
+
+    /*
+     * KEYS[1]은 예약 해시, KEYS[2]는 만료 인덱스(zset), KEYS[3]은 확정 중 표시 키입니다.
+     * ARGV[1]은 예약 아이디, ARGV[2]는 확정이 끝나기를 기다릴 만료 시각(ms), ARGV[3]은 확정 중 표시의 TTL(ms)입니다.
+     * 예약을 지우지 않고 확정 중으로 표시한 뒤 {꽃별 예약 수량 키, 수량, ...}을 반환합니다.
+     * 없는 예약이거나 이미 확정 중이면 빈 목록을 반환하며, 확정 중에는 만료 처리되지 않도록 만료 시각을 늦춥니다.
+     */
+    public static final String claimScript = "if redis.call('EXISTS', KEYS[1]) == 0 then\n" +
+            "    return {}\n" +
+            "end\n" +
+            "if not redis.call('SET', KEYS[3], '1', 'NX', 'PX', ARGV[3]) then\n" +
+            "    return {}\n" +
+            "end\n" +
+            "local expireAt = redis.call('ZSCORE', KEYS[2], ARGV[1])\n" +
+            "if expireAt and tonumber(expireAt) < tonumber(ARGV[2]) then\n" +
+            "    redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])\n" +
+            "end\n" +
+            "return redis.call('HGETALL', KEYS[1])";
+
+    /*
+     * KEYS[1]은 예약 해시, KEYS[2]는 만료 인덱스(zset), KEYS[3..]은 예약 해시에 있던 꽃별 예약 수량 키입니다. ARGV[1]은 예약 아이디입니다.
+     * 스크립트가 접근하는 키를 모두 KEYS로 받도록 꽃별 예약 수량 키는 호출하는 쪽이 예약 해시에서 읽어 넘깁니다.
+     * 아직 예약에 남아 있는 수량만큼 꽃별 예약 수량을 되돌리고 {꽃별 예약 수량 키, 수량, ...}을 반환합니다. 없는 예약이면 빈 목록을 반환합니다.
+     */
+    public static final String releaseScript = "local released = {}\n" +
+            "for i = 3, #KEYS do\n" +
+            "    local quantity = redis.call('HGET', KEYS[1], KEYS[i])\n" +
+            "    if quantity then\n" +
+            "        if redis.call('DECRBY', KEYS[i], quantity) <= 0 then\n" +
+            "            redis.call('DEL', KEYS[i])\n" +
+            "        end\n" +
+            "        table.insert(released, KEYS[i])\n" +
+            "        table.insert(released, quantity)\n" +
+            "    end\n" +
+            "end\n" +
+            "redis.call('ZREM', KEYS[2], ARGV[1])\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "return released";
+}
@@ -0,0 +1,67 @@
+package kr.bb.store.util.luascript;
+
+public class ShardScript {
+    /*
+     * KEYS[1..n]은 한 꽃의 재고 샤드 키, ARGV[1]은 전체 재고, ARGV[2]는 덮어쓰기 여부(1이면 덮어쓰기)입니다.
+     * 전체 재고를 샤드에 고르게 나누어 저장하며, 덮어쓰기가 아니고 이미 샤드가 있으면 아무것도 하지 않습니다.
+     */
+    public static final String distributeScript = "if ARGV[2] ~= '1' and redis.call('EXISTS', KEYS[1]) == 1 then\n" +
+            "    return 0\n" +
+            "end\n" +
+            "local total = tonumber(ARGV[1])\n" +
+            "local base = math.floor(total / #KEYS)\n" +
+            "local remain = total % #KEYS\n" +
+            "for i = 1, #KEYS do\n" +
+            "    if i <= remain then\n" +
+            "        redis.call('SET', KEYS[i], base + 1)\n" +
+            "    else\n" +
+            "        redis.call('SET', KEYS[i], base)\n" +
+            "    end\n" +
+            "end\n" +
+            "return 1";
+
+    /*
+     * KEYS[1]은 DB 반영 대기열, KEYS[2]는 변경할 샤드 키입니다. ARGV[1]은 변경량(차감은 음수), ARGV[2]는 대기열에 넣을 꽃 식별자입니다.
+     * 샤드가 없으면 {-1}, 샤드가 음수가 되면 {0}, 변경에 성공하면 {1, 변경 후 샤드 재고}를 반환합니다.
+     */
+    public static final String changeScript = "if redis.call('EXISTS', KEYS[2]) == 0 then\n" +
+            "    return {-1}\n" +
+            "end\n" +
+            "local current = tonumber(redis.call('GET', KEYS[2]))\n" +
+            "if current + tonumber(ARGV[1]) < 0 then\n" +
+            "    return {0}\n" +
+            "end\n" +
+            "local result = redis.call('INCRBY', KEYS[2], ARGV[1])\n" +
+            "redis.call('SADD', KEYS[1], ARGV[2])\n" +
+            "return {1, result}";
+
+    /*
+     * KEYS[1]은 DB 반영 대기열, KEYS[2..n]은 한 꽃의 모든 샤드 키입니다. ARGV는 changeScript와 같습니다.
+     * 모든 샤드의 합으로 변경 가능 여부를 판단하고, 변경 후 전체 재고를 샤드에 다시 고르게 나눕니다.
+     * 반환값은 changeScript와 같으며 성공 시 두 번째 값은 전체 재고입니다.
+     */
+    public static final String rebalanceScript = "local total = 0\n" +
+            "for i = 2, #KEYS do\n" +
+            "    local current = redis.call('GET', KEYS[i])\n" +
+            "    if not current then\n" +
+            "        return {-1}\n" +
+            "    end\n" +
+            "    total = total + tonumber(current)\n" +
+            "end\n" +
+            "total = total + tonumber(ARGV[1])\n" +
+            "if total < 0 then\n" +
+            "    return {0}\n" +
+            "end\n" +
+            "local shardCount = #KEYS - 1\n" +
+            "local base = math.floor(total / shardCount)\n" +
+            "local remain = total % shardCount\n" +
+            "for i = 2, #KEYS do\n" +
+            "    if i - 1 <= remain then\n" +
+            "        redis.call('SET', KEYS[i], base + 1)\n" +
+            "    else\n" +
+            "        redis.call('SET', KEYS[i], base)\n" +
+            "    end\n" +
+            "end\n" +
+            "redis.call('SADD', KEYS[1], ARGV[2])\n" +
+            "return {1, total}";
+}
@@ -0,0 +1,38 @@
+package kr.bb.store.util.luascript;
+
+public class SnapshotScript {
+    /*
+     * KEYS[1]은 가게 재고 스냅샷 해시, KEYS[2]는 스냅샷 버전 키입니다.
+     * ARGV[1]이 'INCR'이면 재고를 변경량만큼 더하고, 'SET'이면 덮어씁니다. ARGV[2..]는 {필드, 값} 쌍입니다.
+     * 버전은 항상 올려 변경 이전에 읽은 DB 값으로 스냅샷이 채워지지 않게 하며, 스냅샷이나 필드가 없으면 값을 변경하지 않습니다.
+     */
+    public static final String applyScript = "redis.call('INCR', KEYS[2])\n" +
+            "if redis.call('EXISTS', KEYS[1]) == 0 then\n" +
+            "    return 0\n" +
+            "end\n" +
+            "for i = 2, #ARGV, 2 do\n" +
+            "    if redis.call('HEXISTS', KEYS[1], ARGV[i]) == 1 then\n" +
+            "        if ARGV[1] == 'INCR' then\n" +
+            "            redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1])\n" +
+            "        else\n" +
+            "            redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])\n" +
+            "        end\n" +
+            "    end\n" +
+            "end\n" +
+            "return 1";
+
+    /*
+     * KEYS[1]은 가게 재고 스냅샷 해시, KEYS[2]는 스냅샷 버전 키입니다.
+     * ARGV[1]은 DB를 읽기 전의 버전, ARGV[2]는 만료시간(초), ARGV[3..]은 {필드, 값} 쌍입니다.
+     * 그 사이 버전이 바뀌었다면 오래된 값이므로 저장하지 않고 0을 반환합니다.
+     */
+    public static final String putScript = "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then\n" +
+            "    return 0\n" +
+            "end\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "for i = 3, #ARGV, 2 do\n" +
+            "    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])\n" +
+            "end\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2])\n" +
+            "return 1";
+}
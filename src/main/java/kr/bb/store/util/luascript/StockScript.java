@@ -0,0 +1,34 @@
+package kr.bb.store.util.luascript;
+
+public class StockScript {
+    /*
+     * KEYS[1]은 DB 반영 대기열(dirty set), KEYS[2..n]은 꽃 재고 키, ARGV[1..n-1]은 각 키의 변경량(차감은 음수)입니다.
+     * ARGV[n]은 재고 키의 만료시간(초)입니다.
+     * 하나의 키라도 레디스에 없으면 {-1, 없는 키의 index...}, 하나라도 음수가 되면 {0, 해당 index}를 반환하고 아무것도 변경하지 않습니다.
+     * 모두 변경 가능하면 {1, 변경 후 재고...}를 반환합니다.
+     */
+    public static final String changeScript = "local dirtyKey = KEYS[1]\n" +
+            "local ttl = tonumber(ARGV[#ARGV])\n" +
+            "local missing = {}\n" +
+            "for i = 2, #KEYS do\n" +
+            "    if redis.call('EXISTS', KEYS[i]) == 0 then\n" +
+            "        missing[#missing + 1] = i - 1\n" +
+            "    end\n" +
+            "end\n" +
+            "if #missing > 0 then\n" +
+            "    return {-1, unpack(missing)}\n" +
+            "end\n" +
+            "for i = 2, #KEYS do\n" +
+            "    local current = tonumber(redis.call('GET', KEYS[i]))\n" +
+            "    if current + tonumber(ARGV[i - 1]) < 0 then\n" +
+            "        return {0, i - 1}\n" +
+            "    end\n" +
+            "end\n" +
+            "local result = {1}\n" +
+            "for i = 2, #KEYS do\n" +
+            "    result[i] = redis.call('INCRBY', KEYS[i], ARGV[i - 1])\n" +
+            "    redis.call('EXPIRE', KEYS[i], ttl)\n" +
+            "    redis.call('SADD', dirtyKey, KEYS[i])\n" +
+            "end\n" +
+            "return result";
+}
@@ -6,6 +6,9 @@ import kr.bb.store.domain.RedisContainerTestEnv;
 import kr.bb.store.domain.cargo.dto.StockModifyDto;
 import kr.bb.store.domain.cargo.entity.FlowerCargo;
 import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.entity.StockOperation;
+import kr.bb.store.domain.cargo.exception.StockChangeInProgressException;
+import kr.bb.store.domain.cargo.handler.StockChangeDeduplicator;
 import kr.bb.store.domain.cargo.repository.FlowerCargoRepository;
 import kr.bb.store.domain.store.entity.Store;
 import kr.bb.store.domain.store.repository.StoreRepository;
@@ -19,10 +22,12 @@ import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CargoFacadeTest extends RedisContainerTestEnv {
     @Autowired
@@ -40,6 +45,9 @@ class CargoFacadeTest extends RedisContainerTestEnv {
     @Autowired
     private PlatformTransactionManager txManager;
 
+    @Autowired
+    private StockChangeDeduplicator stockChangeDeduplicator;
+
 
     @DisplayName("꽃 아이디와 수량을 입력받아 재고를 변경한다")
     @Transactional
@@ -194,6 +202,88 @@ class CargoFacadeTest extends RedisContainerTestEnv {
         assertThat(result2.getStock()).isEqualTo(0);
     }
 
+    @DisplayName("같은 주문의 재고 감소가 다시 요청되면 한 번만 반영되고 기록으로 재고를 복구할 수 있다")
+    @Transactional
+    @Test
+    void minusStocksIdempotentlyAndReplay() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+
+        FlowerCargoId flowerCargoId = createFlowerCargoId(store.getId(), 1L);
+        FlowerCargo fc1 = createFlowerCargo(flowerCargoId, 0L, "장미", store);
+        flowerCargoRepository.save(fc1);
+
+        cargoFacade.modifyAllStocksWithLock(store.getId(), List.of(createStockModifyDto(1L, 100L)));
+
+        StockDto stockDto = StockDto.builder()
+                .flowerId(1L)
+                .stock(10L)
+                .build();
+        StockChangeDto stockChangeDto = StockChangeDto.builder()
+                .storeId(store.getId())
+                .stockDtos(List.of(stockDto))
+                .build();
+        String orderId = UUID.randomUUID().toString();
+
+        // when
+        cargoFacade.minusStocksWithLock(orderId, List.of(stockChangeDto));
+        cargoFacade.minusStocksWithLock(orderId, List.of(stockChangeDto));
+        Long stockAfterRetry = flowerCargoRepository.findStock(store.getId(), 1L);
+
+        flowerCargoRepository.modifyStock(store.getId(), 1L, 0L);
+        cargoFacade.replayStocksWithLock(store.getId());
+
+        // then
+        assertThat(stockAfterRetry).isEqualTo(90L);
+        assertThat(flowerCargoRepository.findStock(store.getId(), 1L)).isEqualTo(90L);
+    }
+
+    @DisplayName("같은 주문의 재고 변경이 처리 중일 때 다시 요청되면 성공으로 응답하지 않고 재시도를 요구한다")
+    @Transactional
+    @Test
+    void minusStocksWhileSameOrderInProgress() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+
+        FlowerCargoId flowerCargoId = createFlowerCargoId(store.getId(), 1L);
+        flowerCargoRepository.save(createFlowerCargo(flowerCargoId, 100L, "장미", store));
+
+        StockChangeDto stockChangeDto = StockChangeDto.builder()
+                .storeId(store.getId())
+                .stockDtos(List.of(StockDto.builder()
+                        .flowerId(1L)
+                        .stock(10L)
+                        .build()))
+                .build();
+        String orderId = UUID.randomUUID().toString();
+        stockChangeDeduplicator.claim(orderId, StockOperation.MINUS);
+
+        // when // then
+        assertThatThrownBy(() -> cargoFacade.minusStocksWithLock(orderId, List.of(stockChangeDto)))
+                .isInstanceOf(StockChangeInProgressException.class);
+        assertThat(flowerCargoRepository.findStock(store.getId(), 1L)).isEqualTo(100L);
+    }
+
+    @DisplayName("SET 기록이 없는 꽃은 기록으로 재고를 복구할 때 덮어쓰지 않는다")
+    @Transactional
+    @Test
+    void replaySkipsStocksWithoutSetJournal() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+
+        FlowerCargoId flowerCargoId = createFlowerCargoId(store.getId(), 1L);
+        flowerCargoRepository.save(createFlowerCargo(flowerCargoId, 100L, "장미", store));
+
+        // when
+        cargoFacade.replayStocksWithLock(store.getId());
+
+        // then
+        assertThat(flowerCargoRepository.findStock(store.getId(), 1L)).isEqualTo(100L);
+    }
+
     private FlowerCargo createFlowerCargo(FlowerCargoId flowerCargoId, Long stock, String name, Store store) {
         return FlowerCargo.builder()
                 .id(flowerCargoId)
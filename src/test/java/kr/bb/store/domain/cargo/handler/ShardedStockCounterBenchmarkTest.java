@@ -0,0 +1,121 @@
+package kr.bb.store.domain.cargo.handler;
+
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.cargo.entity.FlowerCargo;
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.repository.FlowerCargoRepository;
+import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.repository.StoreRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static kr.bb.store.util.RedisUtils.makeStockShardKey;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class ShardedStockCounterBenchmarkTest extends RedisContainerTestEnv {
+    private static final int REQUEST_COUNT = 1000;
+    private static final long INITIAL_STOCK = 900L;
+
+    @Autowired
+    private ShardedStockCounter shardedStockCounter;
+
+    @Autowired
+    private FlowerCargoRepository flowerCargoRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @AfterEach
+    public void teardown() {
+        flowerCargoRepository.deleteAllInBatch();
+        storeRepository.deleteAllInBatch();
+    }
+
+    @DisplayName("샤드 수에 따른 재고 차감 처리량을 비교하고 재고는 음수가 되지 않는다")
+    @Test
+    void compareThroughputByShardCount() throws InterruptedException {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+
+        for (int shardCount : List.of(1, 4, 16)) {
+            FlowerCargoId flowerCargoId = createFlowerCargoId(store.getId(), (long) shardCount);
+            flowerCargoRepository.save(createFlowerCargo(flowerCargoId, store));
+            redisTemplate.delete(IntStream.range(0, shardCount)
+                    .mapToObj(idx -> makeStockShardKey(store.getId(), flowerCargoId.getFlowerId(), idx))
+                    .collect(Collectors.toList()));
+
+            // when
+            ExecutorService executorService = Executors.newFixedThreadPool(32);
+            CountDownLatch latch = new CountDownLatch(REQUEST_COUNT);
+            AtomicInteger succeeded = new AtomicInteger();
+
+            long start = System.currentTimeMillis();
+            IntStream.range(0, REQUEST_COUNT)
+                    .forEach(idx -> executorService.submit(() -> {
+                        try {
+                            shardedStockCounter.change(flowerCargoId, -1L, shardCount);
+                            succeeded.incrementAndGet();
+                        } catch (Exception ignored) {
+                        } finally {
+                            latch.countDown();
+                        }
+                    }));
+            latch.await();
+            long elapsedMillis = Math.max(System.currentTimeMillis() - start, 1L);
+            executorService.shutdown();
+
+            log.info("{} shards : {} requests in {} ms ({} req/s)",
+                    shardCount, REQUEST_COUNT, elapsedMillis, REQUEST_COUNT * 1000L / elapsedMillis);
+
+            // then
+            assertThat(succeeded.get()).isEqualTo((int) INITIAL_STOCK);
+            assertThat(shardedStockCounter.getStock(flowerCargoId, shardCount)).isZero();
+        }
+    }
+
+    private FlowerCargo createFlowerCargo(FlowerCargoId flowerCargoId, Store store) {
+        return FlowerCargo.builder()
+                .id(flowerCargoId)
+                .store(store)
+                .stock(INITIAL_STOCK)
+                .flowerName("장미")
+                .build();
+    }
+
+    private Store createStore() {
+        return Store.builder()
+                .storeManagerId(1L)
+                .storeCode("가게코드")
+                .storeName("가게명")
+                .detailInfo("가게 상세정보")
+                .storeThumbnailImage("가게 썸네일")
+                .phoneNumber("가게 전화번호")
+                .accountNumber("가게 계좌정보")
+                .bank("가게 계좌 은행정보")
+                .build();
+    }
+
+    private FlowerCargoId createFlowerCargoId(Long storeId, Long flowerId) {
+        return FlowerCargoId.builder()
+                .storeId(storeId)
+                .flowerId(flowerId)
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package kr.bb.store.domain.cargo.handler;
+
+import bloomingblooms.domain.flower.StockChangeDto;
+import bloomingblooms.domain.flower.StockDto;
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.cargo.entity.FlowerCargo;
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.exception.StockCannotBeNegativeException;
+import kr.bb.store.domain.cargo.repository.FlowerCargoRepository;
+import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.repository.StoreRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StockLaneExecutorTest extends RedisContainerTestEnv {
+    @Autowired
+    private StockLaneExecutor stockLaneExecutor;
+
+    @Autowired
+    private FlowerCargoRepository flowerCargoRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @AfterEach
+    public void teardown() {
+        flowerCargoRepository.deleteAllInBatch();
+        storeRepository.deleteAllInBatch();
+    }
+
+    @DisplayName("동시에 들어온 주문을 모아 반영하며 재고를 넘어서는 주문만 실패시킨다")
+    @Test
+    void minusStocksConcurrently() throws InterruptedException {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+        flowerCargoRepository.save(createFlowerCargo(createFlowerCargoId(store.getId(), 1L), 30L, "장미", store));
+
+        int orderCount = 50;
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        CountDownLatch latch = new CountDownLatch(orderCount);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // when
+        IntStream.range(0, orderCount)
+                .forEach(idx -> executorService.submit(() -> {
+                    try {
+                        stockLaneExecutor.minusStocks(List.of(createStockChangeDto(store.getId(), 1L, 1L)));
+                        succeeded.incrementAndGet();
+                    } catch (StockCannotBeNegativeException e) {
+                        rejected.incrementAndGet();
+                    } finally {
+                        latch.countDown();
+                    }
+                }));
+        latch.await();
+        executorService.shutdown();
+
+        // then
+        assertThat(succeeded.get()).isEqualTo(30);
+        assertThat(rejected.get()).isEqualTo(20);
+        assertThat(flowerCargoRepository.findStock(store.getId(), 1L)).isZero();
+    }
+
+    @DisplayName("주문의 일부 품목이 실패하면 반영된 다른 품목의 재고를 되돌린다")
+    @Test
+    void minusStocksCompensatesPartialFailure() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+        flowerCargoRepository.saveAll(List.of(
+                createFlowerCargo(createFlowerCargoId(store.getId(), 1L), 100L, "장미", store),
+                createFlowerCargo(createFlowerCargoId(store.getId(), 2L), 1L, "해바라기", store)
+        ));
+
+        StockChangeDto stockChangeDto = StockChangeDto.builder()
+                .storeId(store.getId())
+                .stockDtos(List.of(createStockDto(1L, 10L), createStockDto(2L, 5L)))
+                .build();
+
+        // when // then
+        assertThatThrownBy(() -> stockLaneExecutor.minusStocks(List.of(stockChangeDto)))
+                .isInstanceOf(StockCannotBeNegativeException.class)
+                .hasMessage("재고는 음수가 될 수 없습니다.");
+
+        // 보상 요청은 실패를 던지기 전에 레인에 들어가므로, 같은 레인에 뒤이어 넣은 요청이 끝나면 보상도 반영되어 있습니다
+        stockLaneExecutor.plusStocks(List.of(createStockChangeDto(store.getId(), 1L, 0L)));
+        assertThat(flowerCargoRepository.findStock(store.getId(), 1L)).isEqualTo(100L);
+        assertThat(flowerCargoRepository.findStock(store.getId(), 2L)).isEqualTo(1L);
+    }
+
+    private StockChangeDto createStockChangeDto(Long storeId, Long flowerId, Long stock) {
+        return StockChangeDto.builder()
+                .storeId(storeId)
+                .stockDtos(List.of(createStockDto(flowerId, stock)))
+                .build();
+    }
+
+    private StockDto createStockDto(Long flowerId, Long stock) {
+        return StockDto.builder()
+                .flowerId(flowerId)
+                .stock(stock)
+                .build();
+    }
+
+    private FlowerCargo createFlowerCargo(FlowerCargoId flowerCargoId, Long stock, String name, Store store) {
+        return FlowerCargo.builder()
+                .id(flowerCargoId)
+                .store(store)
+                .stock(stock)
+                .flowerName(name)
+                .build();
+    }
+
+    private Store createStore() {
+        return Store.builder()
+                .storeManagerId(1L)
+                .storeCode("가게코드")
+                .storeName("가게명")
+                .detailInfo("가게 상세정보")
+                .storeThumbnailImage("가게 썸네일")
+                .phoneNumber("가게 전화번호")
+                .accountNumber("가게 계좌정보")
+                .bank("가게 계좌 은행정보")
+                .build();
+    }
+
+    private FlowerCargoId createFlowerCargoId(Long storeId, Long flowerId) {
+        return FlowerCargoId.builder()
+                .storeId(storeId)
+                .flowerId(flowerId)
+                .build();
+    }
+}
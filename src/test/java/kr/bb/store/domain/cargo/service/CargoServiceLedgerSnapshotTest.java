@@ -0,0 +1,84 @@
+package kr.bb.store.domain.cargo.service;
+
+import bloomingblooms.domain.flower.StockChangeDto;
+import bloomingblooms.domain.flower.StockDto;
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.cargo.entity.FlowerCargo;
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.repository.FlowerCargoRepository;
+import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.repository.StoreRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static kr.bb.store.util.RedisUtils.makeStockHeldKey;
+import static kr.bb.store.util.RedisUtils.makeStockKey;
+import static kr.bb.store.util.RedisUtils.makeStockSnapshotKey;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@TestPropertySource(properties = "stock.change-mode=REDIS_LEDGER")
+class CargoServiceLedgerSnapshotTest extends RedisContainerTestEnv {
+    @Autowired
+    private CargoService cargoService;
+    @Autowired
+    private FlowerCargoRepository flowerCargoRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @DisplayName("레디스 장부 모드에서는 DB에 아직 반영되지 않은 장부 재고로 스냅샷을 채운다")
+    @Test
+    void fillSnapshotFromLedger() {
+        // given
+        Store store = storeRepository.save(createStore());
+        FlowerCargoId flowerCargoId = FlowerCargoId.builder()
+                .storeId(store.getId())
+                .flowerId(1L)
+                .build();
+        flowerCargoRepository.save(FlowerCargo.builder()
+                .id(flowerCargoId)
+                .store(store)
+                .stock(100L)
+                .flowerName("장미")
+                .build());
+        redisTemplate.delete(List.of(makeStockKey(store.getId(), 1L), makeStockHeldKey(store.getId(), 1L),
+                makeStockSnapshotKey(store.getId())));
+
+        cargoService.minusStockCountsWithLedger(List.of(StockChangeDto.builder()
+                .storeId(store.getId())
+                .stockDtos(List.of(StockDto.builder()
+                        .flowerId(1L)
+                        .stock(10L)
+                        .build()))
+                .build()));
+
+        // when
+        Long stock = cargoService.getAllStocks(store.getId()).getStockInfoDtos().get(0).getData().get(0);
+
+        // then
+        assertThat(flowerCargoRepository.findStock(store.getId(), 1L)).isEqualTo(100L);
+        assertThat(stock).isEqualTo(90L);
+        assertThat(redisTemplate.opsForHash().get(makeStockSnapshotKey(store.getId()), "1:stock")).isEqualTo("90");
+    }
+
+    private Store createStore() {
+        return Store.builder()
+                .storeManagerId(1L)
+                .storeCode("가게코드")
+                .storeName("가게명")
+                .detailInfo("가게 상세정보")
+                .storeThumbnailImage("가게 썸네일")
+                .phoneNumber("가게 전화번호")
+                .accountNumber("가게 계좌정보")
+                .bank("가게 계좌 은행정보")
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package kr.bb.store.domain.cargo.service;
+
+import bloomingblooms.domain.flower.StockChangeDto;
+import bloomingblooms.domain.flower.StockDto;
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.cargo.entity.FlowerCargo;
+import kr.bb.store.domain.cargo.entity.FlowerCargoId;
+import kr.bb.store.domain.cargo.repository.FlowerCargoRepository;
+import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.repository.StoreRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class CargoServiceLockBenchmarkTest extends RedisContainerTestEnv {
+    private static final int ORDER_COUNT = 100;
+    private static final Long FLOWER_ID1 = 1L;
+    private static final Long FLOWER_ID2 = 2L;
+
+    @Autowired
+    private CargoService cargoService;
+
+    @Autowired
+    private FlowerCargoRepository flowerCargoRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @AfterEach
+    public void teardown() {
+        flowerCargoRepository.deleteAllInBatch();
+        storeRepository.deleteAllInBatch();
+    }
+
+    @DisplayName("주문 단위 멀티락과 품목 단위 락의 처리량을 비교한다")
+    @Test
+    void compareMultiLockWithPerItemLock() throws InterruptedException {
+        // given
+        Long perItemStoreId = createStoreWithStock();
+        Long multiLockStoreId = createStoreWithStock();
+
+        // when
+        BenchmarkResult perItem = run(perItemStoreId, cargoService::minusStockCounts);
+        BenchmarkResult multiLock = run(multiLockStoreId, cargoService::minusStockCountsWithMultiLock);
+
+        log.info("per-item lock : {} orders succeeded in {} ms", perItem.succeeded, perItem.elapsedMillis);
+        log.info("multi lock : {} orders succeeded in {} ms", multiLock.succeeded, multiLock.elapsedMillis);
+
+        // then
+        long remainStock1 = flowerCargoRepository.findStock(multiLockStoreId, FLOWER_ID1);
+        long remainStock2 = flowerCargoRepository.findStock(multiLockStoreId, FLOWER_ID2);
+        assertThat(remainStock1).isEqualTo(ORDER_COUNT - multiLock.succeeded);
+        assertThat(remainStock2).isEqualTo(ORDER_COUNT - multiLock.succeeded);
+    }
+
+    private BenchmarkResult run(Long storeId, Consumer<List<StockChangeDto>> stockChanger) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(ORDER_COUNT);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        long start = System.currentTimeMillis();
+        IntStream.range(0, ORDER_COUNT)
+                .forEach(idx -> executorService.submit(() -> {
+                    try {
+                        // 절반의 주문은 꽃 순서를 뒤집어 요청합니다
+                        List<StockDto> stockDtos = idx % 2 == 0
+                                ? List.of(createStockDto(FLOWER_ID1), createStockDto(FLOWER_ID2))
+                                : List.of(createStockDto(FLOWER_ID2), createStockDto(FLOWER_ID1));
+                        StockChangeDto stockChangeDto = StockChangeDto.builder()
+                                .storeId(storeId)
+                                .stockDtos(stockDtos)
+                                .build();
+                        stockChanger.accept(List.of(stockChangeDto));
+                        succeeded.incrementAndGet();
+                    } catch (Exception ignored) {
+                    } finally {
+                        latch.countDown();
+                    }
+                }));
+        latch.await();
+        executorService.shutdown();
+
+        return new BenchmarkResult(succeeded.get(), System.currentTimeMillis() - start);
+    }
+
+    private Long createStoreWithStock() {
+        Store store = createStore();
+        storeRepository.save(store);
+        flowerCargoRepository.saveAll(List.of(
+                createFlowerCargo(createFlowerCargoId(store.getId(), FLOWER_ID1), "장미", store),
+                createFlowerCargo(createFlowerCargoId(store.getId(), FLOWER_ID2), "해바라기", store)
+        ));
+        return store.getId();
+    }
+
+    private StockDto createStockDto(Long flowerId) {
+        return StockDto.builder()
+                .flowerId(flowerId)
+                .stock(1L)
+                .build();
+    }
+
+    private FlowerCargo createFlowerCargo(FlowerCargoId flowerCargoId, String name, Store store) {
+        return FlowerCargo.builder()
+                .id(flowerCargoId)
+                .store(store)
+                .stock((long) ORDER_COUNT)
+                .flowerName(name)
+                .build();
+    }
+
+    private Store createStore() {
+        return Store.builder()
+                .storeManagerId(1L)
+                .storeCode("가게코드")
+                .storeName("가게명")
+                .detailInfo("가게 상세정보")
+                .storeThumbnailImage("가게 썸네일")
+                .phoneNumber("가게 전화번호")
+                .accountNumber("가게 계좌정보")
+                .bank("가게 계좌 은행정보")
+                .build();
+    }
+
+    private FlowerCargoId createFlowerCargoId(Long storeId, Long flowerId) {
+        return FlowerCargoId.builder()
+                .storeId(storeId)
+                .flowerId(flowerId)
+                .build();
+    }
+
+    private static class BenchmarkResult {
+        private final int succeeded;
+        private final long elapsedMillis;
+
+        private BenchmarkResult(int succeeded, long elapsedMillis) {
+            this.succeeded = succeeded;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+}
@@ -5,10 +5,12 @@ import bloomingblooms.domain.flower.StockChangeDto;
 import bloomingblooms.domain.flower.StockDto;
 import kr.bb.store.domain.RedisContainerTestEnv;
 import kr.bb.store.domain.cargo.controller.response.RemainingStocksResponse;
+import kr.bb.store.domain.cargo.controller.response.StockModifyResponse;
 import kr.bb.store.domain.cargo.dto.StockModifyDto;
 import kr.bb.store.domain.cargo.entity.FlowerCargo;
 import kr.bb.store.domain.cargo.entity.FlowerCargoId;
 import kr.bb.store.domain.cargo.exception.StockCannotBeNegativeException;
+import kr.bb.store.domain.cargo.exception.StockReservationNotFoundException;
 import kr.bb.store.domain.cargo.repository.FlowerCargoRepository;
 import kr.bb.store.domain.store.entity.Store;
 import kr.bb.store.domain.store.repository.StoreRepository;
@@ -16,11 +18,17 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import static kr.bb.store.util.RedisUtils.makeStockHeldKey;
+import static kr.bb.store.util.RedisUtils.makeStockKey;
+import static kr.bb.store.util.RedisUtils.makeStockSnapshotKey;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.groups.Tuple.tuple;
@@ -36,6 +44,9 @@ class CargoServiceTest extends RedisContainerTestEnv {
     @Autowired
     private StoreRepository storeRepository;
 
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
     @Autowired
     private EntityManager em;
 
@@ -187,6 +198,267 @@ class CargoServiceTest extends RedisContainerTestEnv {
 
     }
 
+    @DisplayName("재고 변경을 한 번의 배치로 반영하고 행마다 변경 여부를 응답한다")
+    @Transactional
+    @Test
+    void modifyAllStocksInBatch() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+
+        FlowerCargoId flowerCargoId1 = createFlowerCargoId(store.getId(),1L);
+        FlowerCargoId flowerCargoId2 = createFlowerCargoId(store.getId(),2L);
+        FlowerCargo fc1 = createFlowerCargo(flowerCargoId1, 100L, "장미", store);
+        FlowerCargo fc2 = createFlowerCargo(flowerCargoId2, 100L, "해바라기", store);
+        flowerCargoRepository.saveAll(List.of(fc1, fc2));
+
+        StockModifyDto s1 = createStockModifyDto(1L, 3L);
+        StockModifyDto s2 = createStockModifyDto(2L, 6L);
+        StockModifyDto s3 = createStockModifyDto(3L, 2L);
+
+        // when
+        StockModifyResponse response = cargoService.modifyAllStocksInBatch(store.getId(), List.of(s1, s2, s3));
+
+        List<FlowerCargo> flowerStocks = flowerCargoRepository.findAllByStoreId(store.getId());
+
+        // then
+        assertThat(response.getStockModifyResultDtos())
+                .extracting("flowerId", "modified")
+                .containsExactly(
+                        tuple(1L, true),
+                        tuple(2L, true),
+                        tuple(3L, false)
+                );
+        assertThat(flowerStocks).extracting("stock")
+                .containsExactlyInAnyOrder(3L, 6L);
+    }
+
+    @DisplayName("배치 재고 변경은 음수 재고가 하나라도 있으면 아무 행도 변경하지 않는다")
+    @Transactional
+    @Test
+    void modifyAllStocksInBatchValidatesUpFront() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+
+        FlowerCargoId flowerCargoId1 = createFlowerCargoId(store.getId(),1L);
+        FlowerCargo fc1 = createFlowerCargo(flowerCargoId1, 100L, "장미", store);
+        flowerCargoRepository.save(fc1);
+
+        StockModifyDto s1 = createStockModifyDto(1L, 3L);
+        StockModifyDto s2 = createStockModifyDto(2L, -3L);
+
+        // when // then
+        assertThatThrownBy(() -> cargoService.modifyAllStocksInBatch(store.getId(), List.of(s1, s2)))
+                .isInstanceOf(StockCannotBeNegativeException.class)
+                .hasMessage("재고는 음수가 될 수 없습니다.");
+        assertThat(flowerCargoRepository.findStock(store.getId(), 1L)).isEqualTo(100L);
+    }
+
+    @DisplayName("락 없이 조건부 UPDATE로 재고를 차감한다")
+    @Transactional
+    @Test
+    void minusStockCountsConditionally() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+        FlowerCargoId flowerCargoId = createFlowerCargoId(store.getId(),1L);
+        FlowerCargo flowerCargo = createFlowerCargo(flowerCargoId, 100L, "장미", store);
+        flowerCargoRepository.save(flowerCargo);
+        StockDto stockDto = StockDto.builder()
+                .flowerId(flowerCargoId.getFlowerId())
+                .stock(60L)
+                .build();
+        StockChangeDto stockChangeDto = StockChangeDto.builder()
+                .stockDtos(List.of(stockDto))
+                .phoneNumber("010-1111-2222")
+                .storeId(store.getId())
+                .build();
+
+        // when
+        Set<Long> insufficientStores = cargoService.minusStockCountsConditionally(List.of(stockChangeDto));
+
+        em.flush();
+        em.clear();
+
+        FlowerCargo flowerCargoFromDB = flowerCargoRepository.findById(flowerCargoId).get();
+
+        // then
+        assertThat(flowerCargoFromDB.getStock()).isEqualTo(40L);
+        assertThat(insufficientStores).containsExactly(store.getId());
+    }
+
+    @DisplayName("조건부 UPDATE로 재고를 차감할 때 변경된 행이 없으면 재고 부족으로 처리한다")
+    @Transactional
+    @Test
+    void minusStockCountsConditionallyCannotMakeStockNegative() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+        FlowerCargoId flowerCargoId = createFlowerCargoId(store.getId(),1L);
+        FlowerCargo flowerCargo = createFlowerCargo(flowerCargoId, 10L, "장미", store);
+        flowerCargoRepository.save(flowerCargo);
+        StockDto stockDto = StockDto.builder()
+                .flowerId(flowerCargoId.getFlowerId())
+                .stock(11L)
+                .build();
+        StockChangeDto stockChangeDto = StockChangeDto.builder()
+                .stockDtos(List.of(stockDto))
+                .phoneNumber("010-1111-2222")
+                .storeId(store.getId())
+                .build();
+
+        // when // then
+        assertThatThrownBy(() -> cargoService.minusStockCountsConditionally(List.of(stockChangeDto)))
+                .isInstanceOf(StockCannotBeNegativeException.class)
+                .hasMessage("재고는 음수가 될 수 없습니다.");
+    }
+
+    @DisplayName("레디스 재고 장부에서 주문의 모든 꽃 재고를 한번에 차감한다")
+    @Transactional
+    @Test
+    void minusStockCountsWithLedger() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+        FlowerCargoId flowerCargoId1 = createFlowerCargoId(store.getId(),1L);
+        FlowerCargoId flowerCargoId2 = createFlowerCargoId(store.getId(),2L);
+        flowerCargoRepository.saveAll(List.of(
+                createFlowerCargo(flowerCargoId1, 100L, "장미", store),
+                createFlowerCargo(flowerCargoId2, 60L, "튤립", store)
+        ));
+        redisTemplate.delete(List.of(makeStockKey(store.getId(), 1L), makeStockKey(store.getId(), 2L)));
+
+        StockChangeDto stockChangeDto = StockChangeDto.builder()
+                .stockDtos(List.of(
+                        StockDto.builder().flowerId(1L).stock(10L).build(),
+                        StockDto.builder().flowerId(2L).stock(20L).build()
+                ))
+                .phoneNumber("010-1111-2222")
+                .storeId(store.getId())
+                .build();
+
+        // when
+        Set<Long> insufficientStores = cargoService.minusStockCountsWithLedger(List.of(stockChangeDto));
+
+        // then
+        assertThat(redisTemplate.opsForValue().get(makeStockKey(store.getId(), 1L))).isEqualTo("90");
+        assertThat(redisTemplate.opsForValue().get(makeStockKey(store.getId(), 2L))).isEqualTo("40");
+        assertThat(insufficientStores).containsExactly(store.getId());
+    }
+
+    @DisplayName("레디스 재고 장부에서 하나라도 재고가 부족하면 어떤 재고도 차감하지 않는다")
+    @Transactional
+    @Test
+    void minusStockCountsWithLedgerIsAllOrNothing() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+        FlowerCargoId flowerCargoId1 = createFlowerCargoId(store.getId(),1L);
+        FlowerCargoId flowerCargoId2 = createFlowerCargoId(store.getId(),2L);
+        flowerCargoRepository.saveAll(List.of(
+                createFlowerCargo(flowerCargoId1, 100L, "장미", store),
+                createFlowerCargo(flowerCargoId2, 5L, "튤립", store)
+        ));
+        redisTemplate.delete(List.of(makeStockKey(store.getId(), 1L), makeStockKey(store.getId(), 2L)));
+
+        StockChangeDto stockChangeDto = StockChangeDto.builder()
+                .stockDtos(List.of(
+                        StockDto.builder().flowerId(1L).stock(10L).build(),
+                        StockDto.builder().flowerId(2L).stock(20L).build()
+                ))
+                .phoneNumber("010-1111-2222")
+                .storeId(store.getId())
+                .build();
+
+        // when // then
+        assertThatThrownBy(() -> cargoService.minusStockCountsWithLedger(List.of(stockChangeDto)))
+                .isInstanceOf(StockCannotBeNegativeException.class)
+                .hasMessage("재고는 음수가 될 수 없습니다.");
+        assertThat(redisTemplate.opsForValue().get(makeStockKey(store.getId(), 1L))).isEqualTo("100");
+        assertThat(redisTemplate.opsForValue().get(makeStockKey(store.getId(), 2L))).isEqualTo("5");
+    }
+
+    // 예약은 커밋 이후에 지워지므로 테스트 트랜잭션 없이 실행합니다
+    @DisplayName("예약된 수량은 재고 조회에서 제외되고 확정되면 DB 재고에서 차감된다")
+    @Test
+    void reserveAndConfirmStocks() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+
+        FlowerCargoId flowerCargoId = createFlowerCargoId(store.getId(),1L);
+        FlowerCargo fc1 = createFlowerCargo(flowerCargoId, 100L, "장미", store);
+        flowerCargoRepository.save(fc1);
+        redisTemplate.delete(List.of(makeStockHeldKey(store.getId(), 1L), makeStockSnapshotKey(store.getId())));
+
+        StockChangeDto stockChangeDto = createStockChangeDto(store.getId(), 1L, 30L);
+
+        // when
+        String reservationId = cargoService.reserveStocks(List.of(stockChangeDto));
+        Long availableStock = cargoService.getAllStocks(store.getId()).getStockInfoDtos().get(0).getData().get(0);
+        cargoService.confirmReservedStocks(reservationId);
+
+        // then
+        assertThat(availableStock).isEqualTo(70L);
+        assertThat(flowerCargoRepository.findStock(store.getId(), 1L)).isEqualTo(70L);
+        assertThat(redisTemplate.hasKey(makeStockHeldKey(store.getId(), 1L))).isFalse();
+        assertThatThrownBy(() -> cargoService.confirmReservedStocks(reservationId))
+                .isInstanceOf(StockReservationNotFoundException.class)
+                .hasMessage("존재하지 않거나 만료된 재고 예약입니다.");
+    }
+
+    @DisplayName("확정 중 재고 차감에 실패하면 예약이 남아 다시 확정할 수 있다")
+    @Test
+    void confirmReservedStocksAfterFailure() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+
+        FlowerCargoId flowerCargoId = createFlowerCargoId(store.getId(),1L);
+        flowerCargoRepository.save(createFlowerCargo(flowerCargoId, 100L, "장미", store));
+        redisTemplate.delete(makeStockHeldKey(store.getId(), 1L));
+
+        String reservationId = cargoService.reserveStocks(List.of(createStockChangeDto(store.getId(), 1L, 30L)));
+        cargoService.syncStocks(Map.of(flowerCargoId, 10L));
+
+        // when
+        assertThatThrownBy(() -> cargoService.confirmReservedStocks(reservationId))
+                .isInstanceOf(StockCannotBeNegativeException.class);
+        cargoService.syncStocks(Map.of(flowerCargoId, 100L));
+        cargoService.confirmReservedStocks(reservationId);
+
+        // then
+        assertThat(flowerCargoRepository.findStock(store.getId(), 1L)).isEqualTo(70L);
+        assertThat(redisTemplate.hasKey(makeStockHeldKey(store.getId(), 1L))).isFalse();
+    }
+
+    @DisplayName("예약 가능 수량을 넘는 예약은 실패하고 해제된 예약 수량은 다시 예약할 수 있다")
+    @Transactional
+    @Test
+    void reserveStocksOverAvailableStock() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+
+        FlowerCargoId flowerCargoId = createFlowerCargoId(store.getId(),1L);
+        FlowerCargo fc1 = createFlowerCargo(flowerCargoId, 100L, "장미", store);
+        flowerCargoRepository.save(fc1);
+        redisTemplate.delete(makeStockHeldKey(store.getId(), 1L));
+
+        String reservationId = cargoService.reserveStocks(List.of(createStockChangeDto(store.getId(), 1L, 80L)));
+
+        // when // then
+        assertThatThrownBy(() -> cargoService.reserveStocks(List.of(createStockChangeDto(store.getId(), 1L, 30L))))
+                .isInstanceOf(StockCannotBeNegativeException.class)
+                .hasMessage("재고는 음수가 될 수 없습니다.");
+
+        cargoService.releaseReservedStocks(reservationId);
+        cargoService.reserveStocks(List.of(createStockChangeDto(store.getId(), 1L, 30L)));
+        assertThat(redisTemplate.opsForValue().get(makeStockHeldKey(store.getId(), 1L))).isEqualTo("30");
+        assertThat(flowerCargoRepository.findStock(store.getId(), 1L)).isEqualTo(100L);
+    }
+
     @DisplayName("해당 가게의 모든 재고정보를 가져온다")
     @Transactional
     @Test
@@ -204,6 +476,7 @@ class CargoServiceTest extends RedisContainerTestEnv {
         FlowerCargo fc3 = createFlowerCargo(flowerCargoId3, 100L, "백합", store);
 
         flowerCargoRepository.saveAll(List.of(fc1,fc2,fc3));
+        redisTemplate.delete(makeStockSnapshotKey(store.getId()));
 
         // when
         RemainingStocksResponse stocks = cargoService.getAllStocks(store.getId());
@@ -219,6 +492,35 @@ class CargoServiceTest extends RedisContainerTestEnv {
 
     }
 
+    @DisplayName("재고 조회는 스냅샷을 채운 뒤 DB 대신 스냅샷을 읽고, 재고 변경은 스냅샷에 바로 반영된다")
+    @Transactional
+    @Test
+    void getAllStocksFromSnapshot() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+
+        FlowerCargoId flowerCargoId = createFlowerCargoId(store.getId(),1L);
+        FlowerCargo fc1 = createFlowerCargo(flowerCargoId, 100L, "장미", store);
+        flowerCargoRepository.save(fc1);
+        redisTemplate.delete(List.of(makeStockHeldKey(store.getId(), 1L), makeStockSnapshotKey(store.getId())));
+
+        cargoService.getAllStocks(store.getId());
+
+        // when
+        flowerCargoRepository.modifyStock(store.getId(), 1L, 0L);
+        Long cachedStock = cargoService.getAllStocks(store.getId()).getStockInfoDtos().get(0).getData().get(0);
+
+        cargoService.applySnapshotChanges(List.of(createStockChangeDto(store.getId(), 1L, 10L)), -1L);
+        RemainingStocksResponse stocks = cargoService.getAllStocks(store.getId());
+
+        // then
+        assertThat(cachedStock).isEqualTo(100L);
+        assertThat(stocks.getStockInfoDtos())
+                .extracting("flowerId", "name", "data")
+                .containsExactly(tuple(1L, "장미", List.of(90L)));
+    }
+
     @DisplayName("꽃 종류를 입력받아 수량이 0인 기본 정보를 생성한다")
     @Transactional
     @Test
@@ -278,6 +580,18 @@ class CargoServiceTest extends RedisContainerTestEnv {
                 .build();
     }
 
+    private StockChangeDto createStockChangeDto(Long storeId, Long flowerId, Long stock) {
+        StockDto stockDto = StockDto.builder()
+                .flowerId(flowerId)
+                .stock(stock)
+                .build();
+        return StockChangeDto.builder()
+                .stockDtos(List.of(stockDto))
+                .phoneNumber("010-1111-2222")
+                .storeId(storeId)
+                .build();
+    }
+
     private StockModifyDto createStockModifyDto(Long flowerId, Long stock) {
         return StockModifyDto.builder()
                 .flowerId(flowerId)
@@ -0,0 +1,131 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.repository.StoreRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static kr.bb.store.util.RedisUtils.COUPON_DROP_PREPARED_KEY;
+import static kr.bb.store.util.RedisUtils.makeCouponDropKey;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@TestPropertySource(properties = "coupon.drop.enabled=true")
+class CouponDropCacheTest extends RedisContainerTestEnv {
+    @Autowired
+    private CouponDropCache couponDropCache;
+    @Autowired
+    private CouponDropScheduler couponDropScheduler;
+    @Autowired
+    private CouponRepository couponRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @DisplayName("시작일이 다가온 쿠폰은 메타데이터와 ready 플래그가 레디스에 올라가고 DB 없이 읽힌다")
+    @Test
+    void prepareCouponForDrop() {
+        // given
+        Store store = createStore();
+        Coupon coupon = createCoupon(store, LocalDate.now().plusDays(1));
+        Coupon notYet = createCoupon(store, LocalDate.now().plusDays(10));
+
+        // when
+        couponDropScheduler.prepare();
+        Coupon prepared = couponDropCache.find(coupon.getId());
+
+        // then
+        assertThat(redisTemplate.opsForHash().get(makeCouponDropKey(coupon.getId()), "ready")).isEqualTo("1");
+        assertThat(couponDropCache.find(notYet.getId())).isNull();
+        assertThat(prepared).extracting("id", "couponCode", "limitCount", "minPrice", "startDate")
+                .containsExactly(coupon.getId(), "쿠폰코드", 100, 100000L, coupon.getStartDate());
+    }
+
+    @DisplayName("수정되거나 삭제된 쿠폰을 지우면 더 이상 미리 올린 값으로 읽지 않는다")
+    @Test
+    void evictPreparedCoupon() {
+        // given
+        Coupon coupon = createCoupon(createStore(), LocalDate.now().plusDays(1));
+        couponDropCache.prepare(coupon);
+
+        // when
+        couponDropCache.evict(coupon.getId());
+
+        // then
+        assertThat(couponDropCache.find(coupon.getId())).isNull();
+        assertThat(redisTemplate.hasKey(makeCouponDropKey(coupon.getId()))).isFalse();
+    }
+
+    @DisplayName("지우기 전에 읽은 쿠폰은 지운 뒤에 준비해도 다시 올라가지 않는다")
+    @Test
+    void skipPrepareAfterEvict() {
+        // given
+        Coupon coupon = createCoupon(createStore(), LocalDate.now().plusDays(1));
+        String version = couponDropCache.version();
+        couponDropCache.evict(coupon.getId());
+
+        // when
+        boolean prepared = couponDropCache.prepare(coupon, version);
+
+        // then
+        assertThat(prepared).isFalse();
+        assertThat(couponDropCache.find(coupon.getId())).isNull();
+        assertThat(redisTemplate.hasKey(makeCouponDropKey(coupon.getId()))).isFalse();
+    }
+
+    @DisplayName("삭제된 쿠폰의 항목이 남아 있어도 다음 준비 주기에 지워진다")
+    @Test
+    void sweepDeletedCoupon() {
+        // given
+        Coupon coupon = createCoupon(createStore(), LocalDate.now().plusDays(1));
+        couponDropCache.prepare(coupon);
+        coupon.softDelete();
+
+        // when
+        couponDropScheduler.prepare();
+
+        // then
+        assertThat(couponDropCache.find(coupon.getId())).isNull();
+        assertThat(redisTemplate.hasKey(makeCouponDropKey(coupon.getId()))).isFalse();
+        assertThat(redisTemplate.opsForSet().isMember(COUPON_DROP_PREPARED_KEY, coupon.getId().toString())).isFalse();
+    }
+
+    private Store createStore() {
+        return storeRepository.save(Store.builder()
+                .storeManagerId(1L)
+                .storeCode("가게코드")
+                .storeName("가게")
+                .detailInfo("가게 상세정보")
+                .storeThumbnailImage("가게 썸네일")
+                .phoneNumber("가게 전화번호")
+                .accountNumber("가게 계좌정보")
+                .bank("가게 계좌 은행정보")
+                .build());
+    }
+
+    private Coupon createCoupon(Store store, LocalDate startDate) {
+        Coupon coupon = couponRepository.save(Coupon.builder()
+                .couponCode("쿠폰코드")
+                .store(store)
+                .limitCount(100)
+                .couponName("쿠폰이름")
+                .discountPrice(10000L)
+                .minPrice(100000L)
+                .startDate(startDate)
+                .endDate(startDate.plusDays(5))
+                .build());
+        redisTemplate.delete(makeCouponDropKey(coupon.getId()));
+        redisTemplate.opsForSet().remove(COUPON_DROP_PREPARED_KEY, coupon.getId().toString());
+        return coupon;
+    }
+}
@@ -0,0 +1,142 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.coupon.dto.CouponWithAvailabilityDto;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.entity.IssuedCoupon;
+import kr.bb.store.domain.coupon.entity.IssuedCouponId;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import kr.bb.store.domain.coupon.repository.IssuedCouponRepository;
+import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.repository.StoreRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+@Transactional
+@TestPropertySource(properties = "coupon.eligibility.enabled=true")
+class CouponEligibilityEngineTest extends RedisContainerTestEnv {
+    @Autowired
+    private CouponEligibilityEngine couponEligibilityEngine;
+    @Autowired
+    private CouponRepository couponRepository;
+    @Autowired
+    private IssuedCouponRepository issuedCouponRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @DisplayName("사용 가능한 쿠폰은 할인금액이 큰 순으로, 사용할 수 없는 쿠폰은 최소사용금액 순으로 뒤에 정렬된다")
+    @Test
+    void rankCouponsByDiscount() {
+        // given
+        Long userId = 1L;
+        LocalDate now = LocalDate.now();
+        Store store = createStore();
+        Coupon small = createCoupon(store, 1_000L, 10_000L);
+        Coupon big = createCoupon(store, 5_000L, 30_000L);
+        Coupon tooExpensive = createCoupon(store, 9_000L, 100_000L);
+        Coupon unreachable = createCoupon(store, 3_000L, 50_000L);
+        issuedCouponRepository.saveAll(List.of(createIssuedCoupon(small, userId), createIssuedCoupon(big, userId),
+                createIssuedCoupon(tooExpensive, userId), createIssuedCoupon(unreachable, userId)));
+
+        // when
+        List<CouponWithAvailabilityDto> result = couponEligibilityEngine.findAvailable(30_000L, userId, store.getId(), now);
+
+        // then
+        assertThat(result).extracting("couponId", "isAvailable")
+                .containsExactly(
+                        tuple(big.getId(), true),
+                        tuple(small.getId(), true),
+                        tuple(unreachable.getId(), false),
+                        tuple(tooExpensive.getId(), false)
+                );
+    }
+
+    @DisplayName("주문금액이 바뀌어도 한 번 읽은 쿠폰으로 계산하고, 유저의 항목을 지우면 다시 읽는다")
+    @Test
+    void findAvailableWithSession() {
+        // given
+        Long userId = 2L;
+        LocalDate now = LocalDate.now();
+        Store store = createStore();
+        Coupon c1 = createCoupon(store, 1_000L, 10_000L);
+        Coupon c2 = createCoupon(store, 2_000L, 20_000L);
+        issuedCouponRepository.save(createIssuedCoupon(c1, userId));
+        couponEligibilityEngine.findAvailable(10_000L, userId, store.getId(), now);
+        issuedCouponRepository.save(createIssuedCoupon(c2, userId));
+
+        // when
+        List<CouponWithAvailabilityDto> cached = couponEligibilityEngine.findAvailable(20_000L, userId, store.getId(), now);
+        couponEligibilityEngine.evictUser(userId);
+        List<CouponWithAvailabilityDto> reloaded = couponEligibilityEngine.findAvailable(20_000L, userId, store.getId(), now);
+
+        // then
+        assertThat(cached).extracting("couponId").containsExactly(c1.getId());
+        assertThat(reloaded).extracting("couponId").containsExactly(c2.getId(), c1.getId());
+    }
+
+    @DisplayName("가게의 쿠폰이 바뀌면 이미 읽어 둔 유저의 항목도 다시 읽는다")
+    @Test
+    void findAvailableAfterStoreEviction() {
+        // given
+        Long userId = 3L;
+        LocalDate now = LocalDate.now();
+        Store store = createStore();
+        Coupon c1 = createCoupon(store, 1_000L, 10_000L);
+        issuedCouponRepository.save(createIssuedCoupon(c1, userId));
+        couponEligibilityEngine.findAvailable(10_000L, userId, store.getId(), now);
+        Coupon c2 = createCoupon(store, 2_000L, 10_000L);
+        issuedCouponRepository.save(createIssuedCoupon(c2, userId));
+
+        // when
+        couponEligibilityEngine.evictStore(store.getId());
+        List<CouponWithAvailabilityDto> result = couponEligibilityEngine.findAvailable(10_000L, userId, store.getId(), now);
+
+        // then
+        assertThat(result).extracting("couponId").containsExactly(c2.getId(), c1.getId());
+    }
+
+    private Store createStore() {
+        return storeRepository.save(Store.builder()
+                .storeManagerId(1L)
+                .storeCode("가게코드")
+                .storeName("가게")
+                .detailInfo("가게 상세정보")
+                .storeThumbnailImage("가게 썸네일")
+                .phoneNumber("가게 전화번호")
+                .accountNumber("가게 계좌정보")
+                .bank("가게 계좌 은행정보")
+                .build());
+    }
+
+    private Coupon createCoupon(Store store, Long discountPrice, Long minPrice) {
+        return couponRepository.save(Coupon.builder()
+                .couponCode("쿠폰코드")
+                .store(store)
+                .limitCount(100)
+                .couponName("쿠폰이름")
+                .discountPrice(discountPrice)
+                .minPrice(minPrice)
+                .startDate(LocalDate.now())
+                .endDate(LocalDate.now().plusDays(5))
+                .build());
+    }
+
+    private IssuedCoupon createIssuedCoupon(Coupon coupon, Long userId) {
+        return IssuedCoupon.builder()
+                .id(IssuedCouponId.builder()
+                        .couponId(coupon.getId())
+                        .userId(userId)
+                        .build())
+                .coupon(coupon)
+                .build();
+    }
+}
@@ -16,12 +16,15 @@ import kr.bb.store.util.RedisUtils;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.util.List;
 
+import static kr.bb.store.util.RedisUtils.ISSUED_COUPON_STREAM_KEY;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -38,6 +41,12 @@ class CouponIssuerTest extends RedisContainerTestEnv {
     @Autowired
     private RedisOperation redisOperation;
     @Autowired
+    private CouponNegativeCache couponNegativeCache;
+    @Autowired
+    private IssuedCouponWriteBehindFlusher issuedCouponWriteBehindFlusher;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+    @Autowired
     private EntityManager em;
 
 
@@ -183,6 +192,74 @@ class CouponIssuerTest extends RedisContainerTestEnv {
     }
 
 
+    @DisplayName("여러 쿠폰을 한 번에 발급하면 소진된 쿠폰과 이미 받은 쿠폰을 빼고 저장하고, 소진된 쿠폰은 거절 캐시에 남긴다")
+    @Test
+    public void issuePossibleCouponsWithSoldOutAndDuplicated() {
+        // given
+        Store store = storeRepository.save(createStore());
+        Coupon normalCoupon = createCoupon(store, 100);
+        Coupon soldOutCoupon = createCoupon(store, 1);
+        Coupon possessedCoupon = createCoupon(store, 100);
+        List<Coupon> coupons = couponRepository.saveAll(List.of(normalCoupon, soldOutCoupon, possessedCoupon));
+        registerInRedis(coupons);
+
+        Long userId = 1L;
+        LocalDate issueDate = LocalDate.now();
+        couponIssuer.issueCoupon(soldOutCoupon, 2L, "nick2", "phoneNumber2", issueDate);
+        couponIssuer.issueCoupon(possessedCoupon, userId, "nick", "phoneNumber", issueDate);
+
+        // when
+        couponIssuer.issuePossibleCoupons(coupons, userId, "nick", "phoneNumber", issueDate);
+        em.flush();
+        em.clear();
+
+        // then
+        assertThat(issuedCouponRepository.countByCouponId(normalCoupon.getId())).isEqualTo(1L);
+        assertThat(issuedCouponRepository.countByCouponId(soldOutCoupon.getId())).isEqualTo(1L);
+        assertThat(issuedCouponRepository.countByCouponId(possessedCoupon.getId())).isEqualTo(1L);
+        assertThat(couponNegativeCache.contains(soldOutCoupon.getId())).isTrue();
+        assertThat(couponNegativeCache.contains(normalCoupon.getId())).isFalse();
+    }
+
+    @DisplayName("write-behind가 켜져 있으면 여러 쿠폰을 한 번에 발급한 내역은 스트림에 쌓였다가 저장된다")
+    @Test
+    public void issuePossibleCouponsWithWriteBehind() {
+        // given
+        Store store = storeRepository.save(createStore());
+        Coupon normalCoupon = createCoupon(store, 100);
+        Coupon soldOutCoupon = createCoupon(store, 0);
+        List<Coupon> coupons = couponRepository.saveAll(List.of(normalCoupon, soldOutCoupon));
+        registerInRedis(coupons);
+        redisTemplate.delete(ISSUED_COUPON_STREAM_KEY);
+
+        Long userId = 1L;
+        LocalDate issueDate = LocalDate.now();
+        ReflectionTestUtils.setField(couponIssuer, "writeBehindEnabled", true);
+
+        // when
+        try {
+            couponIssuer.issuePossibleCoupons(coupons, userId, "nick", "phoneNumber", issueDate);
+        } finally {
+            ReflectionTestUtils.setField(couponIssuer, "writeBehindEnabled", false);
+        }
+        long savedBeforeFlush = issuedCouponRepository.countByCouponId(normalCoupon.getId());
+        issuedCouponWriteBehindFlusher.flush();
+
+        // then
+        assertThat(savedBeforeFlush).isZero();
+        assertThat(issuedCouponRepository.countByCouponId(normalCoupon.getId())).isEqualTo(1L);
+        assertThat(issuedCouponRepository.countByCouponId(soldOutCoupon.getId())).isZero();
+        assertThat(couponNegativeCache.contains(soldOutCoupon.getId())).isTrue();
+    }
+
+    private void registerInRedis(List<Coupon> coupons) {
+        coupons.forEach(coupon -> {
+            String redisKey = RedisUtils.makeRedisKey(coupon);
+            redisTemplate.delete(redisKey);
+            redisOperation.addAndSetExpr(redisKey, LocalDate.now().plusDays(1));
+        });
+    }
+
     private Store createStore() {
         return Store.builder()
                 .storeManagerId(1L)
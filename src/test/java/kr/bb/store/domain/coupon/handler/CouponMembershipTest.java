@@ -0,0 +1,109 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.repository.StoreRepository;
+import kr.bb.store.util.RedisOperation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static kr.bb.store.util.RedisUtils.makeCouponBitmapKey;
+import static kr.bb.store.util.RedisUtils.makeCouponCountKey;
+import static kr.bb.store.util.RedisUtils.makeRedisKey;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@TestPropertySource(properties = "coupon.membership.bitmap=true")
+class CouponMembershipTest extends RedisContainerTestEnv {
+    @Autowired
+    private CouponMembership couponMembership;
+    @Autowired
+    private CouponRepository couponRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private RedisOperation redisOperation;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @DisplayName("bitmap 구조에서는 중복 발급을 막고 카운터로 수량을 제한한다")
+    @Test
+    void issueWithBitmap() {
+        // given
+        Coupon coupon = createCoupon(2);
+        couponMembership.register(coupon, LocalDate.now().plusDays(1));
+
+        // when
+        List<Long> first = issue(coupon, 1L);
+        List<Long> duplicated = issue(coupon, 1L);
+        List<Long> second = issue(coupon, 2L);
+        List<Long> outOfStock = issue(coupon, 3L);
+
+        // then
+        assertThat(first).containsExactly(1L);
+        assertThat(duplicated).containsExactly(-1L);
+        assertThat(second).containsExactly(1L);
+        assertThat(outOfStock).containsExactly(0L);
+        assertThat(couponMembership.count(coupon)).isEqualTo(2L);
+    }
+
+    @DisplayName("set에 기록된 발급 인원을 bitmap으로 옮긴다")
+    @Test
+    void migrateSetToBitmap() {
+        // given
+        Coupon coupon = createCoupon(100);
+        String setKey = makeRedisKey(coupon);
+        redisOperation.addAndSetExpr(setKey, LocalDate.now().plusDays(1));
+        redisOperation.add(setKey, "5");
+        redisOperation.add(setKey, "7");
+
+        // when
+        long migrated = couponMembership.migrate(coupon);
+
+        // then
+        assertThat(migrated).isEqualTo(2L);
+        assertThat(couponMembership.count(coupon)).isEqualTo(2L);
+        assertThat(issue(coupon, 5L)).containsExactly(-1L);
+        assertThat(issue(coupon, 6L)).containsExactly(1L);
+        assertThat(redisTemplate.getExpire(makeCouponBitmapKey(coupon))).isPositive();
+    }
+
+    private List<Long> issue(Coupon coupon, Long userId) {
+        return couponMembership.issue(List.of(coupon), userId, "nick", "phoneNumber", LocalDateTime.now(), false);
+    }
+
+    private Coupon createCoupon(int limitCnt) {
+        Store store = storeRepository.save(Store.builder()
+                .storeManagerId(1L)
+                .storeCode("가게코드")
+                .storeName("가게")
+                .detailInfo("가게 상세정보")
+                .storeThumbnailImage("가게 썸네일")
+                .phoneNumber("가게 전화번호")
+                .accountNumber("가게 계좌정보")
+                .bank("가게 계좌 은행정보")
+                .build());
+        Coupon coupon = couponRepository.save(Coupon.builder()
+                .couponCode("쿠폰코드")
+                .store(store)
+                .limitCount(limitCnt)
+                .couponName("쿠폰이름")
+                .discountPrice(10000L)
+                .minPrice(100000L)
+                .startDate(LocalDate.now())
+                .endDate(LocalDate.now())
+                .build());
+        redisTemplate.delete(List.of(makeRedisKey(coupon), makeCouponBitmapKey(coupon), makeCouponCountKey(coupon)));
+        return coupon;
+    }
+}
@@ -0,0 +1,63 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.coupon.exception.CouponOutOfStockException;
+import kr.bb.store.domain.coupon.exception.DeletedCouponException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CouponNegativeCacheTest extends RedisContainerTestEnv {
+    @Autowired
+    private CouponNegativeCache couponNegativeCache;
+
+    @DisplayName("거절 캐시에 등록된 쿠폰은 등록 사유에 맞는 예외로 바로 거절된다")
+    @Test
+    void rejectCachedCoupon() {
+        // given
+        Long soldOutCouponId = -1L;
+        Long deletedCouponId = -2L;
+
+        // when
+        couponNegativeCache.put(soldOutCouponId, CouponNegativeCache.Reason.SOLD_OUT);
+        couponNegativeCache.put(deletedCouponId, CouponNegativeCache.Reason.DELETED);
+
+        // then
+        assertThatThrownBy(() -> couponNegativeCache.check(soldOutCouponId))
+                .isInstanceOf(CouponOutOfStockException.class);
+        assertThatThrownBy(() -> couponNegativeCache.check(deletedCouponId))
+                .isInstanceOf(DeletedCouponException.class);
+    }
+
+    @DisplayName("거절 캐시에서 제거된 쿠폰은 다시 발급 요청을 받는다")
+    @Test
+    void evictCachedCoupon() {
+        // given
+        Long couponId = -3L;
+        couponNegativeCache.put(couponId, CouponNegativeCache.Reason.SOLD_OUT);
+
+        // when
+        couponNegativeCache.evict(couponId);
+
+        // then
+        assertThatCode(() -> couponNegativeCache.check(couponId)).doesNotThrowAnyException();
+    }
+
+    @DisplayName("쿠폰이 수정되기 전에 읽은 쿠폰으로는 거절 캐시에 등록하지 않는다")
+    @Test
+    void ignoreStaleEntryAfterEdit() {
+        // given
+        Long couponId = -4L;
+        long versionBeforeEdit = couponNegativeCache.version(couponId);
+        couponNegativeCache.evict(couponId);
+
+        // when
+        couponNegativeCache.put(couponId, CouponNegativeCache.Reason.SOLD_OUT, versionBeforeEdit);
+
+        // then
+        assertThatCode(() -> couponNegativeCache.check(couponId)).doesNotThrowAnyException();
+    }
+}
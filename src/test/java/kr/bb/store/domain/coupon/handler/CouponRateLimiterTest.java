@@ -0,0 +1,70 @@
+package kr.bb.store.domain.coupon.handler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.coupon.exception.CouponRateLimitExceededException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import static kr.bb.store.util.RedisUtils.makeCouponRateLimitKey;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+@TestPropertySource(properties = {"coupon.rate-limit.burst=2", "coupon.rate-limit.refill-per-second=0.001"})
+class CouponRateLimiterTest extends RedisContainerTestEnv {
+    @Autowired
+    private CouponRateLimiter couponRateLimiter;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @DisplayName("버킷 크기만큼 요청하면 같은 쿠폰에 대한 다음 요청은 거절된다")
+    @Test
+    void throttleAfterBurst() {
+        // given
+        Long userId = 1L;
+        Long couponId = 1L;
+        redisTemplate.delete(makeCouponRateLimitKey(userId, "coupon:" + couponId));
+        couponRateLimiter.checkCoupon(userId, couponId);
+        couponRateLimiter.checkCoupon(userId, couponId);
+
+        // when // then
+        assertThatThrownBy(() -> couponRateLimiter.checkCoupon(userId, couponId))
+                .isInstanceOf(CouponRateLimitExceededException.class)
+                .hasMessage("쿠폰 요청이 너무 많습니다. 잠시 후 다시 시도해주세요.");
+    }
+
+    @DisplayName("버킷은 유저와 쿠폰마다 따로 관리된다")
+    @Test
+    void bucketPerUserAndCoupon() {
+        // given
+        Long userId = 2L;
+        Long couponId = 1L;
+        Long otherCouponId = 2L;
+        redisTemplate.delete(makeCouponRateLimitKey(userId, "coupon:" + couponId));
+        redisTemplate.delete(makeCouponRateLimitKey(userId, "coupon:" + otherCouponId));
+        couponRateLimiter.checkCoupon(userId, couponId);
+        couponRateLimiter.checkCoupon(userId, couponId);
+
+        // when // then
+        assertThatCode(() -> couponRateLimiter.checkCoupon(userId, otherCouponId))
+                .doesNotThrowAnyException();
+    }
+
+    @DisplayName("충전 속도가 0이면 시작할 때 거절한다")
+    @Test
+    void rejectZeroRefill() {
+        // given
+        CouponRateLimiter rateLimiter = new CouponRateLimiter(redisTemplate, new SimpleMeterRegistry());
+        setField(rateLimiter, "enabled", true);
+        setField(rateLimiter, "burst", 5L);
+        setField(rateLimiter, "refillPerSecond", 0.0);
+
+        // when // then
+        assertThatThrownBy(rateLimiter::validate)
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -12,9 +12,12 @@ import kr.bb.store.domain.coupon.repository.CouponRepository;
 import kr.bb.store.domain.coupon.repository.IssuedCouponRepository;
 import kr.bb.store.domain.store.entity.Store;
 import kr.bb.store.domain.store.repository.StoreRepository;
+import kr.bb.store.util.RedisOperation;
+import kr.bb.store.util.RedisUtils;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
@@ -35,6 +38,10 @@ class CouponReaderTest extends RedisContainerTestEnv {
     private IssuedCouponRepository issuedCouponRepository;
     @Autowired
     private EntityManager em;
+    @Autowired
+    private RedisOperation redisOperation;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
 
 
 
@@ -67,6 +74,7 @@ class CouponReaderTest extends RedisContainerTestEnv {
         storeRepository.save(store);
         Coupon c1 = createCoupon(store);
         couponRepository.save(c1);
+        redisTemplate.delete(RedisUtils.makeRedisKey(c1));
 
         // when
         List<CouponForOwnerDto> result = couponReader.readCouponsForOwner(store.getId(), LocalDate.now());
@@ -85,6 +93,8 @@ class CouponReaderTest extends RedisContainerTestEnv {
         Coupon c1 = createCoupon(store);
         couponRepository.save(c1);
 
+        redisTemplate.delete(RedisUtils.makeRedisKey(c1));
+
         Long userId = 1L;
         issuedCouponRepository.save(createIssuedCoupon(c1, userId));
 
@@ -96,6 +106,28 @@ class CouponReaderTest extends RedisContainerTestEnv {
 
     }
 
+    @DisplayName("레디스에 발급 기록이 있는 쿠폰은 레디스의 발급 수량으로 남은 수량을 계산한다")
+    @Test
+    void unUsedCountUsesRedisIssuedCount() {
+        // given
+        Store store = createStore(1L);
+        storeRepository.save(store);
+        Coupon c1 = createCoupon(store);
+        couponRepository.save(c1);
+
+        String redisKey = RedisUtils.makeRedisKey(c1);
+        redisTemplate.delete(redisKey);
+        redisOperation.addAndSetExpr(redisKey, LocalDate.now().plusDays(1));
+        redisOperation.add(redisKey, "1");
+        redisOperation.add(redisKey, "2");
+
+        // when
+        List<CouponForOwnerDto> result = couponReader.readCouponsForOwner(store.getId(), LocalDate.now());
+
+        // then
+        assertThat(result.get(0).getUnusedCount()).isEqualTo(98);
+    }
+
     @DisplayName("해당 가게의 모든 쿠폰을 유저에게 보여준다")
     @Test
     void readStoreCouponsForUser() {
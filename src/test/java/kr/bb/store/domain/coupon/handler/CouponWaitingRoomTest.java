@@ -0,0 +1,121 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.coupon.controller.response.CouponQueueResponse;
+import kr.bb.store.domain.coupon.dto.CouponQueueStatus;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.exception.CouponNotFoundException;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.repository.StoreRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static kr.bb.store.util.RedisUtils.makeCouponQueueClosedKey;
+import static kr.bb.store.util.RedisUtils.makeCouponQueueKey;
+import static kr.bb.store.util.RedisUtils.makeCouponQueueResultKey;
+import static kr.bb.store.util.RedisUtils.makeCouponQueueSequenceKey;
+import static kr.bb.store.util.RedisUtils.makeCouponQueueUserKey;
+import static kr.bb.store.util.RedisUtils.makeRedisKey;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Transactional
+class CouponWaitingRoomTest extends RedisContainerTestEnv {
+    @Autowired
+    private CouponWaitingRoom couponWaitingRoom;
+    @Autowired
+    private CouponWaitingRoomAdmitter couponWaitingRoomAdmitter;
+    @Autowired
+    private CouponMembership couponMembership;
+    @Autowired
+    private CouponRepository couponRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @DisplayName("대기열에 들어온 순서대로 순번을 받고 다시 들어와도 순번은 유지된다")
+    @Test
+    void enterQueueInArrivalOrder() {
+        // given
+        Coupon coupon = createCoupon(100);
+
+        // when
+        CouponQueueResponse first = couponWaitingRoom.enter(coupon.getId(), 1L, "nick1", "phoneNumber1");
+        CouponQueueResponse second = couponWaitingRoom.enter(coupon.getId(), 2L, "nick2", "phoneNumber2");
+        CouponQueueResponse reentered = couponWaitingRoom.enter(coupon.getId(), 1L, "nick1", "phoneNumber1");
+
+        // then
+        assertThat(first.getStatus()).isEqualTo(CouponQueueStatus.WAITING);
+        assertThat(first.getPosition()).isEqualTo(1L);
+        assertThat(second.getPosition()).isEqualTo(2L);
+        assertThat(reentered.getPosition()).isEqualTo(1L);
+    }
+
+    @DisplayName("수량이 소진되면 대기열이 닫히고 이후 요청은 바로 거절된다")
+    @Test
+    void closeQueueWhenSoldOut() {
+        // given
+        Coupon coupon = createCoupon(1);
+        couponWaitingRoom.enter(coupon.getId(), 1L, "nick1", "phoneNumber1");
+        couponWaitingRoom.enter(coupon.getId(), 2L, "nick2", "phoneNumber2");
+
+        // when
+        couponWaitingRoomAdmitter.admit(coupon.getId(), LocalDate.now());
+        CouponQueueResponse late = couponWaitingRoom.enter(coupon.getId(), 3L, "nick3", "phoneNumber3");
+
+        // then
+        assertThat(couponWaitingRoom.getStatus(coupon.getId(), 1L).getStatus()).isEqualTo(CouponQueueStatus.ISSUED);
+        assertThat(couponWaitingRoom.getStatus(coupon.getId(), 2L).getStatus()).isEqualTo(CouponQueueStatus.SOLD_OUT);
+        assertThat(late.getStatus()).isEqualTo(CouponQueueStatus.SOLD_OUT);
+        assertThat(couponWaitingRoom.isClosed(coupon.getId())).isTrue();
+    }
+
+    @DisplayName("없는 쿠폰의 대기열에는 들어갈 수 없다")
+    @Test
+    void enterQueueOfUnknownCoupon() {
+        // given
+        Long unknownCouponId = 987654321L;
+
+        // when // then
+        assertThatThrownBy(() -> couponWaitingRoom.enter(unknownCouponId, 1L, "nick1", "phoneNumber1"))
+                .isInstanceOf(CouponNotFoundException.class);
+        assertThat(redisTemplate.hasKey(makeCouponQueueKey(unknownCouponId))).isFalse();
+    }
+
+    private Coupon createCoupon(int limitCnt) {
+        Store store = storeRepository.save(Store.builder()
+                .storeManagerId(1L)
+                .storeCode("가게코드")
+                .storeName("가게")
+                .detailInfo("가게 상세정보")
+                .storeThumbnailImage("가게 썸네일")
+                .phoneNumber("가게 전화번호")
+                .accountNumber("가게 계좌정보")
+                .bank("가게 계좌 은행정보")
+                .build());
+        Coupon coupon = couponRepository.save(Coupon.builder()
+                .couponCode("쿠폰코드")
+                .store(store)
+                .limitCount(limitCnt)
+                .couponName("쿠폰이름")
+                .discountPrice(10000L)
+                .minPrice(100000L)
+                .startDate(LocalDate.now())
+                .endDate(LocalDate.now())
+                .build());
+
+        Long couponId = coupon.getId();
+        redisTemplate.delete(List.of(makeRedisKey(coupon), makeCouponQueueKey(couponId), makeCouponQueueSequenceKey(couponId),
+                makeCouponQueueUserKey(couponId), makeCouponQueueResultKey(couponId), makeCouponQueueClosedKey(couponId)));
+        couponMembership.register(coupon, LocalDate.now().plusDays(1));
+        return coupon;
+    }
+}
@@ -0,0 +1,181 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.coupon.dto.IssuedCouponInsertDto;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.entity.IssuedCouponId;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import kr.bb.store.domain.coupon.repository.IssuedCouponRepository;
+import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.repository.StoreRepository;
+import kr.bb.store.util.RedisOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static kr.bb.store.util.RedisUtils.ISSUED_COUPON_STREAM_KEY;
+import static kr.bb.store.util.RedisUtils.ISSUED_COUPON_TRACKING_KEY;
+import static kr.bb.store.util.RedisUtils.makeRedisKey;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "coupon.write-behind.claim-idle-second=0")
+class IssuedCouponWriteBehindFlusherTest extends RedisContainerTestEnv {
+    @Autowired
+    private IssuedCouponWriteBehind issuedCouponWriteBehind;
+    @Autowired
+    private IssuedCouponWriteBehindFlusher issuedCouponWriteBehindFlusher;
+    @Autowired
+    private IssuedCouponReconciler issuedCouponReconciler;
+    @Autowired
+    private IssuedCouponRepository issuedCouponRepository;
+    @Autowired
+    private CouponRepository couponRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private RedisOperation redisOperation;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.delete(List.of(ISSUED_COUPON_STREAM_KEY, ISSUED_COUPON_TRACKING_KEY));
+    }
+
+    @AfterEach
+    void tearDown() {
+        issuedCouponRepository.deleteAllInBatch();
+        couponRepository.deleteAllInBatch();
+        storeRepository.deleteAllInBatch();
+    }
+
+    @DisplayName("스트림에 쌓인 발급 내역을 모아서 저장한다")
+    @Test
+    void flushIssuedCoupons() {
+        // given
+        Coupon coupon = createCoupon(100);
+        issuedCouponWriteBehind.issue(coupon, 1L, "nick1", "phoneNumber1", LocalDateTime.now());
+        issuedCouponWriteBehind.issue(coupon, 2L, null, null, LocalDateTime.now());
+
+        // when
+        issuedCouponWriteBehindFlusher.flush();
+
+        // then
+        assertThat(issuedCouponRepository.countByCouponId(coupon.getId())).isEqualTo(2L);
+        assertThat(issuedCouponWriteBehind.backlog()).isZero();
+    }
+
+    @DisplayName("이미 발급받은 사용자와 수량을 넘는 발급은 스트림에 쌓이지 않는다")
+    @Test
+    void rejectedIssueIsNotQueued() {
+        // given
+        Coupon coupon = createCoupon(1);
+        issuedCouponWriteBehind.issue(coupon, 1L, "nick1", "phoneNumber1", LocalDateTime.now());
+
+        // when
+        long duplicated = issuedCouponWriteBehind.issue(coupon, 1L, "nick1", "phoneNumber1", LocalDateTime.now());
+        long outOfStock = issuedCouponWriteBehind.issue(coupon, 2L, "nick2", "phoneNumber2", LocalDateTime.now());
+
+        // then
+        assertThat(duplicated).isEqualTo(-1L);
+        assertThat(outOfStock).isZero();
+        assertThat(issuedCouponWriteBehind.backlog()).isEqualTo(1L);
+    }
+
+    @DisplayName("같은 발급 내역이 다시 저장되어도 한 행만 남는다")
+    @Test
+    void insertIsIdempotent() {
+        // given
+        Coupon coupon = createCoupon(100);
+        issuedCouponWriteBehind.issue(coupon, 1L, "nick1", "phoneNumber1", LocalDateTime.now());
+        List<IssuedCouponInsertDto> insertDtos = issuedCouponWriteBehind.read(10).stream()
+                .map(issuedCouponWriteBehind::toInsertDto)
+                .collect(Collectors.toList());
+
+        // when
+        issuedCouponRepository.insertIfAbsentInBatch(insertDtos);
+        issuedCouponWriteBehindFlusher.flush();
+
+        // then
+        assertThat(issuedCouponRepository.countByCouponId(coupon.getId())).isEqualTo(1L);
+        assertThat(issuedCouponWriteBehind.backlog()).isZero();
+    }
+
+    @DisplayName("내려간 서버가 읽고 처리하지 못한 발급 내역은 다른 서버가 가져와 저장한다")
+    @Test
+    void flushIssuedCouponsOfOtherConsumer() {
+        // given
+        Coupon coupon = createCoupon(100);
+        issuedCouponWriteBehind.issue(coupon, 1L, "nick1", "phoneNumber1", LocalDateTime.now());
+        redisTemplate.opsForStream().createGroup(ISSUED_COUPON_STREAM_KEY, ReadOffset.from("0"), "issued-coupon-writer");
+        redisTemplate.opsForStream().read(Consumer.from("issued-coupon-writer", "crashed-instance"),
+                StreamOffset.create(ISSUED_COUPON_STREAM_KEY, ReadOffset.lastConsumed()));
+
+        // when
+        issuedCouponWriteBehindFlusher.flush();
+
+        // then
+        assertThat(issuedCouponRepository.countByCouponId(coupon.getId())).isEqualTo(1L);
+        assertThat(issuedCouponWriteBehind.backlog()).isZero();
+    }
+
+    @DisplayName("레디스에만 남은 발급은 저장된 뒤 다음 비교에서 다시 쌓여 저장된다")
+    @Test
+    void reconcileLostIssuedCoupon() {
+        // given
+        Coupon coupon = createCoupon(100);
+        issuedCouponWriteBehind.issue(coupon, 1L, "nick1", "phoneNumber1", LocalDateTime.now());
+        issuedCouponWriteBehind.issue(coupon, 2L, "nick2", "phoneNumber2", LocalDateTime.now());
+        issuedCouponWriteBehindFlusher.flush();
+        issuedCouponRepository.deleteById(new IssuedCouponId(coupon.getId(), 2L));
+        issuedCouponReconciler.reconcile();
+
+        // when
+        issuedCouponReconciler.reconcile();
+        issuedCouponWriteBehindFlusher.flush();
+
+        // then
+        assertThat(issuedCouponRepository.findUserIdsByCouponId(coupon.getId())).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(issuedCouponWriteBehind.backlog()).isZero();
+    }
+
+    private Coupon createCoupon(int limitCnt) {
+        Store store = storeRepository.save(Store.builder()
+                .storeManagerId(1L)
+                .storeCode("가게코드")
+                .storeName("가게")
+                .detailInfo("가게 상세정보")
+                .storeThumbnailImage("가게 썸네일")
+                .phoneNumber("가게 전화번호")
+                .accountNumber("가게 계좌정보")
+                .bank("가게 계좌 은행정보")
+                .build());
+        Coupon coupon = couponRepository.save(Coupon.builder()
+                .couponCode("쿠폰코드")
+                .store(store)
+                .limitCount(limitCnt)
+                .couponName("쿠폰이름")
+                .discountPrice(10000L)
+                .minPrice(100000L)
+                .startDate(LocalDate.now())
+                .endDate(LocalDate.now())
+                .build());
+
+        String redisKey = makeRedisKey(coupon);
+        redisTemplate.delete(redisKey);
+        redisOperation.addAndSetExpr(redisKey, LocalDate.now().plusDays(1));
+        return coupon;
+    }
+}
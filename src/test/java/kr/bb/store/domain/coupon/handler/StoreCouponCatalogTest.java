@@ -0,0 +1,124 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.coupon.dto.CouponDto;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.repository.StoreRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static kr.bb.store.util.RedisUtils.makeCouponCatalogKey;
+import static kr.bb.store.util.RedisUtils.makeCouponCatalogVersionKey;
+import static kr.bb.store.util.luascript.RedisScripts.COUPON_CATALOG_PUT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@TestPropertySource(properties = "coupon.catalog.enabled=true")
+class StoreCouponCatalogTest extends RedisContainerTestEnv {
+    @Autowired
+    private StoreCouponCatalog storeCouponCatalog;
+    @Autowired
+    private CouponRepository couponRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @DisplayName("한 번 조회한 가게의 쿠폰 목록은 DB가 바뀌어도 캐시에서 반환된다")
+    @Test
+    void readCachedCatalog() {
+        // given
+        LocalDate now = LocalDate.now();
+        Store store = createStore();
+        couponRepository.save(createCoupon(store));
+        storeCouponCatalog.read(store.getId(), now);
+
+        couponRepository.save(createCoupon(store));
+
+        // when
+        List<CouponDto> result = storeCouponCatalog.read(store.getId(), now);
+
+        // then
+        assertThat(result).hasSize(1);
+        assertThat(redisTemplate.opsForHash().hasKey(makeCouponCatalogKey(store.getId()), now.toString())).isTrue();
+    }
+
+    @DisplayName("캐시를 지우면 다음 조회는 DB의 최신 쿠폰 목록을 반환한다")
+    @Test
+    void readCatalogAfterEvict() {
+        // given
+        LocalDate now = LocalDate.now();
+        Store store = createStore();
+        couponRepository.save(createCoupon(store));
+        storeCouponCatalog.read(store.getId(), now);
+
+        couponRepository.save(createCoupon(store));
+
+        // when
+        storeCouponCatalog.evict(store.getId());
+        List<CouponDto> result = storeCouponCatalog.read(store.getId(), now);
+
+        // then
+        assertThat(result).hasSize(2)
+                .extracting("storeName")
+                .containsOnly("가게");
+    }
+
+    @DisplayName("목록을 읽는 동안 캐시가 지워지면 읽은 목록을 레디스에 쓰지 않는다")
+    @Test
+    void skipWriteAfterEvict() {
+        // given
+        LocalDate now = LocalDate.now();
+        Store store = createStore();
+        String key = makeCouponCatalogKey(store.getId());
+        String versionKey = makeCouponCatalogVersionKey(store.getId());
+        String version = Optional.ofNullable(redisTemplate.opsForValue().get(versionKey)).orElse("0");
+
+        // when
+        storeCouponCatalog.evict(store.getId());
+        Long written = redisTemplate.execute(COUPON_CATALOG_PUT, List.of(key, versionKey),
+                version, now.toString(), "[]", "600");
+
+        // then
+        assertThat(written).isZero();
+        assertThat(redisTemplate.opsForHash().hasKey(key, now.toString())).isFalse();
+    }
+
+    private Store createStore() {
+        Store store = storeRepository.save(Store.builder()
+                .storeManagerId(1L)
+                .storeCode("가게코드")
+                .storeName("가게")
+                .detailInfo("가게 상세정보")
+                .storeThumbnailImage("가게 썸네일")
+                .phoneNumber("가게 전화번호")
+                .accountNumber("가게 계좌정보")
+                .bank("가게 계좌 은행정보")
+                .build());
+        redisTemplate.delete(makeCouponCatalogKey(store.getId()));
+        return store;
+    }
+
+    private Coupon createCoupon(Store store) {
+        return Coupon.builder()
+                .couponCode("쿠폰코드")
+                .store(store)
+                .limitCount(100)
+                .couponName("쿠폰이름")
+                .discountPrice(10000L)
+                .minPrice(100000L)
+                .startDate(LocalDate.now())
+                .endDate(LocalDate.now())
+                .build();
+    }
+}
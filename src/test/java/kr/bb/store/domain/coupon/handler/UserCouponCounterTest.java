@@ -0,0 +1,123 @@
+package kr.bb.store.domain.coupon.handler;
+
+import kr.bb.store.domain.RedisContainerTestEnv;
+import kr.bb.store.domain.coupon.entity.Coupon;
+import kr.bb.store.domain.coupon.entity.IssuedCoupon;
+import kr.bb.store.domain.coupon.entity.IssuedCouponId;
+import kr.bb.store.domain.coupon.repository.CouponRepository;
+import kr.bb.store.domain.coupon.repository.IssuedCouponRepository;
+import kr.bb.store.domain.store.entity.Store;
+import kr.bb.store.domain.store.repository.StoreRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static kr.bb.store.util.RedisUtils.makeUserCouponEndKey;
+import static kr.bb.store.util.RedisUtils.makeUserCouponStartKey;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@TestPropertySource(properties = "coupon.user-counter.enabled=true")
+class UserCouponCounterTest extends RedisContainerTestEnv {
+    @Autowired
+    private UserCouponCounter userCouponCounter;
+    @Autowired
+    private CouponRepository couponRepository;
+    @Autowired
+    private IssuedCouponRepository issuedCouponRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @DisplayName("카운터가 없으면 DB로 만들고 이후 발급과 사용은 레디스에만 반영된다")
+    @Test
+    void countAfterRebuild() {
+        // given
+        Long userId = 1L;
+        LocalDate now = LocalDate.now();
+        deleteCounter(userId);
+        Store store = createStore();
+        Coupon c1 = createCoupon(store, now, now.plusDays(5));
+        Coupon c2 = createCoupon(store, now, now.plusDays(5));
+        Coupon notStarted = createCoupon(store, now.plusDays(1), now.plusDays(5));
+        issuedCouponRepository.saveAll(List.of(createIssuedCoupon(c1, userId), createIssuedCoupon(notStarted, userId)));
+        int rebuilt = userCouponCounter.count(userId, now);
+
+        // when
+        userCouponCounter.add(userId, List.of(c2), now);
+        userCouponCounter.remove(userId, List.of(c1.getId()));
+
+        // then
+        assertThat(rebuilt).isEqualTo(1);
+        assertThat(userCouponCounter.count(userId, now)).isEqualTo(1);
+        assertThat(userCouponCounter.count(userId, now.plusDays(1))).isEqualTo(2);
+        assertThat(userCouponCounter.count(userId, now.plusDays(6))).isZero();
+    }
+
+    @DisplayName("레디스 값이 SQL 결과와 다르면 DB로 다시 만든다")
+    @Test
+    void checkRebuildsMismatchedCounter() {
+        // given
+        Long userId = 2L;
+        LocalDate now = LocalDate.now();
+        deleteCounter(userId);
+        Store store = createStore();
+        Coupon coupon = createCoupon(store, now, now.plusDays(5));
+        userCouponCounter.count(userId, now);
+        issuedCouponRepository.save(createIssuedCoupon(coupon, userId));
+
+        // when
+        boolean consistent = userCouponCounter.check(userId, now);
+
+        // then
+        assertThat(consistent).isFalse();
+        assertThat(userCouponCounter.count(userId, now)).isEqualTo(1);
+    }
+
+    private void deleteCounter(Long userId) {
+        redisTemplate.delete(List.of(makeUserCouponEndKey(userId), makeUserCouponStartKey(userId)));
+    }
+
+    private Store createStore() {
+        return storeRepository.save(Store.builder()
+                .storeManagerId(1L)
+                .storeCode("가게코드")
+                .storeName("가게")
+                .detailInfo("가게 상세정보")
+                .storeThumbnailImage("가게 썸네일")
+                .phoneNumber("가게 전화번호")
+                .accountNumber("가게 계좌정보")
+                .bank("가게 계좌 은행정보")
+                .build());
+    }
+
+    private Coupon createCoupon(Store store, LocalDate startDate, LocalDate endDate) {
+        return couponRepository.save(Coupon.builder()
+                .couponCode("쿠폰코드")
+                .store(store)
+                .limitCount(100)
+                .couponName("쿠폰이름")
+                .discountPrice(10000L)
+                .minPrice(100000L)
+                .startDate(startDate)
+                .endDate(endDate)
+                .build());
+    }
+
+    private IssuedCoupon createIssuedCoupon(Coupon coupon, Long userId) {
+        return IssuedCoupon.builder()
+                .id(IssuedCouponId.builder()
+                        .couponId(coupon.getId())
+                        .userId(userId)
+                        .build())
+                .coupon(coupon)
+                .build();
+    }
+}
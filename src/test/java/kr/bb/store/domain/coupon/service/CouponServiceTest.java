@@ -5,9 +5,11 @@ import bloomingblooms.domain.order.ValidatePriceDto;
 import kr.bb.store.domain.RedisContainerTestEnv;
 import kr.bb.store.domain.cargo.repository.FlowerCargoRepository;
 import kr.bb.store.domain.coupon.controller.request.CouponEditRequest;
+import kr.bb.store.domain.coupon.controller.response.CouponIssuerResponse;
 import kr.bb.store.domain.coupon.entity.Coupon;
 import kr.bb.store.domain.coupon.entity.IssuedCoupon;
 import kr.bb.store.domain.coupon.entity.IssuedCouponId;
+import kr.bb.store.domain.coupon.exception.AlreadyUsedCouponException;
 import kr.bb.store.domain.coupon.exception.CouponInconsistencyException;
 import kr.bb.store.domain.coupon.exception.UnAuthorizedCouponException;
 import kr.bb.store.domain.coupon.repository.CouponRepository;
@@ -210,6 +212,33 @@ class CouponServiceTest extends RedisContainerTestEnv {
 
     }
 
+    @DisplayName("이미 사용한 쿠폰이 하나라도 있으면 함께 요청한 쿠폰은 모두 사용되지 않는다")
+    @Test
+    void useAllCouponsFailsWhenAnyCouponIsUsed() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+
+        Coupon c1 = couponCreator(store);
+        Coupon c2 = couponCreator(store);
+        couponRepository.saveAll(List.of(c1,c2));
+
+        Long userId = 1L;
+        LocalDate useDate = LocalDate.now();
+
+        IssuedCoupon ic1 = createIssuedCoupon(c1,userId);
+        IssuedCoupon ic2 = createIssuedCoupon(c2,userId);
+        issuedCouponRepository.saveAll(List.of(ic1, ic2));
+        couponService.useAllCoupons(List.of(c2.getId()), userId, useDate);
+
+        // when
+        assertThatThrownBy(() -> couponService.useAllCoupons(List.of(c1.getId(), c2.getId()), userId, useDate))
+                .isInstanceOf(AlreadyUsedCouponException.class);
+
+        // then
+        assertThat(issuedCouponRepository.findById(ic1.getId()).get().getIsUsed()).isFalse();
+    }
+
     @DisplayName("멀티쓰레드 환경에서도 동시에 쿠폰 발급을 요청해도 정해진 수량만큼의 발급이 보장된다")
     @Test
     void issueCouponInMultiThread() throws InterruptedException, ExecutionException {
@@ -259,6 +288,32 @@ class CouponServiceTest extends RedisContainerTestEnv {
 
     }
 
+    @DisplayName("커서로 쿠폰 발급자 목록을 이어서 조회한다")
+    @Test
+    void getCouponMembersByCursor() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+        Coupon coupon = couponCreator(store);
+        couponRepository.save(coupon);
+        issuedCouponRepository.saveAll(List.of(
+                createIssuedCoupon(coupon, 1L),
+                createIssuedCoupon(coupon, 2L),
+                createIssuedCoupon(coupon, 3L)
+        ));
+        Long ownerId = store.getStoreManagerId();
+
+        // when
+        CouponIssuerResponse first = couponService.getCouponMembersByCursor(ownerId, coupon.getId(), null, 2);
+        CouponIssuerResponse second = couponService.getCouponMembersByCursor(ownerId, coupon.getId(), first.getNextCursor(), 2);
+
+        // then
+        assertThat(first.getData()).hasSize(2);
+        assertThat(first.getTotalCnt()).isEqualTo(3L);
+        assertThat(second.getData()).hasSize(1);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
     @DisplayName("요청받은 쿠폰가격이 원본 쿠폰가격과 다르면 쿠폰을 사용할 수 없다")
     @Test
     void validateCouponPrice() {
@@ -312,6 +367,44 @@ class CouponServiceTest extends RedisContainerTestEnv {
 
     }
 
+    @DisplayName("여러 쿠폰을 검증하면 위반한 쿠폰을 모두 알려준다")
+    @Test
+    void validateCouponPriceReportsAllViolations() {
+        // given
+        Store store = createStore();
+        storeRepository.save(store);
+        Long discountPrice = 10_000L;
+        Long minPrice = 100_000L;
+
+        Coupon c1 = createCouponWithPrice(store, discountPrice, minPrice);
+        Coupon c2 = createCouponWithPrice(store, discountPrice, minPrice);
+        Coupon c3 = createCouponWithPrice(store, discountPrice, minPrice);
+        couponRepository.saveAll(List.of(c1, c2, c3));
+
+        List<ValidatePriceDto> data = List.of(
+                createValidatePriceDto(c1, store, 100_000L, 100_000L),
+                createValidatePriceDto(c2, store, 100_000L, 10_000L),
+                createValidatePriceDto(c3, store, 10_000L, 10_000L)
+        );
+
+        // when // then
+        assertThatThrownBy(() -> couponService.validateCouponPrice(data))
+                .isInstanceOf(CouponInconsistencyException.class)
+                .hasMessage("해당 요청은 실제 쿠폰 정보와 일치하지 않습니다.")
+                .extracting("couponIds")
+                .isEqualTo(List.of(c1.getId(), c3.getId()));
+
+    }
+
+    private ValidatePriceDto createValidatePriceDto(Coupon coupon, Store store, Long actualAmount, Long couponAmount) {
+        return ValidatePriceDto.builder()
+                .couponId(coupon.getId())
+                .storeId(store.getId())
+                .actualAmount(actualAmount)
+                .couponAmount(couponAmount)
+                .build();
+    }
+
     private IssuedCoupon createIssuedCoupon(Coupon coupon, Long userId) {
         return IssuedCoupon.builder()
                 .id(createIssuedCouponId(coupon.getId(),userId))
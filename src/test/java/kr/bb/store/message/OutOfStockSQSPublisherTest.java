@@ -0,0 +1,51 @@
+package kr.bb.store.message;
+
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.bb.store.domain.BasicIntegrationTestEnv;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OutOfStockSQSPublisherTest extends BasicIntegrationTestEnv {
+    @Autowired
+    private OutOfStockSQSPublisher outOfStockSQSPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private AmazonSQSAsync sqs;
+
+    @DisplayName("같은 가게의 재고 부족 알림은 한 번만 모아서 전송한다")
+    @Test
+    void publishCollapsesRepeatedAlerts() {
+        // given
+        BDDMockito.given(sqs.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .willReturn(new SendMessageBatchResult());
+        double suppressedBefore = meterRegistry.counter("stock.alert.suppressed").count();
+
+        // when
+        outOfStockSQSPublisher.publish(1001L);
+        outOfStockSQSPublisher.publish(1001L);
+        outOfStockSQSPublisher.publish(1001L);
+        outOfStockSQSPublisher.publish(1002L);
+        outOfStockSQSPublisher.flush();
+
+        // then
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqs, times(1)).sendMessageBatch(captor.capture());
+        assertThat(captor.getValue().getEntries()).hasSize(2);
+        assertThat(meterRegistry.counter("stock.alert.suppressed").count() - suppressedBefore).isEqualTo(2.0);
+    }
+}